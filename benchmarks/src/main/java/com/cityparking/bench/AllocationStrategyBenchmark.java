@@ -0,0 +1,101 @@
+package com.cityparking.bench;
+
+import com.cityparking.model.ParkingLot;
+import com.cityparking.model.ParkingSlot;
+import com.cityparking.model.ParkingTicket;
+import com.cityparking.model.RateCard;
+import com.cityparking.model.VehicleInfo;
+import com.cityparking.service.AllocationStrategy;
+import com.cityparking.service.ParkingService;
+import com.cityparking.service.SlotTypeRules;
+import com.cityparking.service.TimestampTicketIdGenerator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.ThreadParams;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of one entry/exit cycle under each {@link AllocationStrategy}, on a ten-floor lot held at
+ * {@code occupancy}. Stays cycle through a mix of short and long ones so the exit-time strategy
+ * exercises every floor. {@link AllocationSimulation} compares the walking distances.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AllocationStrategyBenchmark {
+
+    @State(Scope.Benchmark)
+    public static class Lot {
+        @Param({"nearest", "least-loaded", "exit-time"})
+        public String strategy;
+
+        @Param({"1000", "100000"})
+        public int lotSize;
+
+        @Param({"0.5", "0.9"})
+        public double occupancy;
+
+        private ParkingService service;
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            int baysPerFloor = (lotSize + 9) / 10;
+            List<ParkingSlot> slots = new ArrayList<>(lotSize);
+            for (int i = 0; i < lotSize; i++) {
+                int floor = i / baysPerFloor;
+                int bay = i % baysPerFloor + 1;
+                slots.add(new ParkingSlot("F" + floor + "-S" + bay, floor, floor * 50 + bay * 4));
+            }
+            service = new ParkingService(new ParkingLot("Benchmark lot", slots), new RateCard(60.0, 40.0, 600.0),
+                    new TimestampTicketIdGenerator(0), SlotTypeRules.defaults(), AllocationStrategy.named(strategy));
+            SplittableRandom random = new SplittableRandom(7);
+            int parked = (int) Math.round(lotSize * occupancy);
+            for (int i = 0; i < parked; i++) {
+                service.assignSlot(new VehicleInfo("KA 01 PK " + i, "Owner", "9800000000"),
+                        Duration.ofMinutes(15 + random.nextInt(10 * 60)));
+            }
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Gate {
+        private final VehicleInfo[] vehicles = new VehicleInfo[256];
+        private final Duration[] stays = new Duration[256];
+        private int next;
+
+        @Setup(Level.Trial)
+        public void setUp(ThreadParams threads) {
+            SplittableRandom random = new SplittableRandom(threads.getThreadIndex());
+            for (int i = 0; i < vehicles.length; i++) {
+                vehicles[i] = new VehicleInfo("BN " + threads.getThreadIndex() + " " + i, "Bench", "9800000000");
+                stays[i] = Duration.ofMinutes(15 + random.nextInt(10 * 60));
+            }
+        }
+    }
+
+    @Benchmark
+    public Optional<ParkingTicket> assignSlotThenClose(Lot lot, Gate gate) {
+        int i = gate.next++ & 255;
+        Optional<ParkingTicket> ticket = lot.service.assignSlot(gate.vehicles[i], gate.stays[i]);
+        ticket.ifPresent(issued -> lot.service.closeTicket(issued.getTicketKey()));
+        return ticket;
+    }
+}
@@ -0,0 +1,103 @@
+package com.cityparking.bench;
+
+import com.cityparking.model.ParkingLot;
+import com.cityparking.model.ParkingSlot;
+import com.cityparking.model.ParkingTicket;
+import com.cityparking.model.RateCard;
+import com.cityparking.model.VehicleInfo;
+import com.cityparking.service.LotRegistry;
+import com.cityparking.service.ParkingService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.ThreadParams;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Gate throughput across a registry of half-full lots. Each thread works the gates of lot
+ * {@code threadIndex % lots}, so with {@code lots} at least the thread count no two threads share
+ * a lot and throughput should grow with {@code -t}; with one lot every thread contends on it.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LotRegistryBenchmark {
+
+    @State(Scope.Benchmark)
+    public static class City {
+        @Param({"1", "4", "16"})
+        public int lots;
+
+        private static final int BAYS_PER_LOT = 1000;
+
+        private LotRegistry registry;
+        private ParkingService[] services;
+        private String[] parkedPlates;
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            registry = new LotRegistry();
+            services = new ParkingService[lots];
+            List<String> plates = new ArrayList<>();
+            for (int l = 0; l < lots; l++) {
+                List<ParkingSlot> slots = new ArrayList<>(BAYS_PER_LOT);
+                for (int i = 0; i < BAYS_PER_LOT; i++) {
+                    int floor = i / 100;
+                    slots.add(new ParkingSlot("F" + floor + "-S" + (i % 100), floor, floor * 50 + i % 100));
+                }
+                services[l] = registry.addLot("LOT-" + l, new ParkingLot("Lot " + l, slots),
+                        new RateCard(60.0, 40.0, 600.0));
+                for (int i = 0; i < BAYS_PER_LOT / 2; i++) {
+                    String plate = "KA " + l + " PK " + i;
+                    services[l].assignSlot(new VehicleInfo(plate, "Owner", "9800000000"));
+                    plates.add(plate);
+                }
+            }
+            parkedPlates = plates.toArray(String[]::new);
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Gate {
+        private final VehicleInfo[] vehicles = new VehicleInfo[256];
+        private ParkingService service;
+        private int next;
+
+        @Setup(Level.Trial)
+        public void setUp(City city, ThreadParams threads) {
+            int thread = threads.getThreadIndex();
+            service = city.services[thread % city.lots];
+            for (int i = 0; i < vehicles.length; i++) {
+                vehicles[i] = new VehicleInfo("BN " + thread + " " + i, "Bench", "9800000000");
+            }
+        }
+    }
+
+    @Benchmark
+    public Optional<ParkingTicket> assignSlotThenClose(Gate gate) {
+        Optional<ParkingTicket> ticket = gate.service.assignSlot(gate.vehicles[gate.next++ & 255]);
+        ticket.ifPresent(issued -> gate.service.closeTicket(issued.getTicketKey()));
+        return ticket;
+    }
+
+    @Benchmark
+    public Optional<LotRegistry.ParkedVehicle> findVehicle(City city, Gate gate) {
+        String[] plates = city.parkedPlates;
+        return city.registry.findVehicle(plates[gate.next++ % plates.length]);
+    }
+}
@@ -0,0 +1,70 @@
+package com.cityparking.bench;
+
+import com.cityparking.model.ParkingLot;
+import com.cityparking.model.ParkingSlot;
+import com.cityparking.model.RateCard;
+import com.cityparking.model.VehicleInfo;
+import com.cityparking.service.ParkingService;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A lot shared by all benchmark threads, pre-filled to {@code occupancy}. 36 bays is the
+ * three floors of twelve that {@code ParkingApp.bootService} builds; larger lots spread their
+ * bays over ten floors.
+ */
+@State(Scope.Benchmark)
+public class LotState {
+    @Param({"36", "1000", "10000", "100000"})
+    public int lotSize;
+
+    @Param({"0.0", "0.5", "0.9"})
+    public double occupancy;
+
+    public ParkingService service;
+    public ParkingLot lot;
+    public String[] slotIds;
+    /**
+     * Slot ids that are free after pre-filling, farthest from the gate first.
+     */
+    public List<String> freeSlotIds;
+    /**
+     * Plates of the pre-filled vehicles.
+     */
+    public String[] parkedPlates;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        int floors = lotSize <= 36 ? 3 : 10;
+        int baysPerFloor = (lotSize + floors - 1) / floors;
+        List<ParkingSlot> slots = new ArrayList<>(lotSize);
+        slotIds = new String[lotSize];
+        for (int i = 0; i < lotSize; i++) {
+            int floor = i / baysPerFloor;
+            int bay = i % baysPerFloor + 1;
+            slotIds[i] = "F" + floor + "-S" + String.format("%02d", bay);
+            slots.add(new ParkingSlot(slotIds[i], floor, floor * 50 + bay * 4));
+        }
+        lot = new ParkingLot("Benchmark lot", slots);
+        service = new ParkingService(lot, new RateCard(60.0, 40.0, 600.0));
+
+        int parked = (int) Math.round(lotSize * occupancy);
+        parkedPlates = new String[parked];
+        for (int i = 0; i < parked; i++) {
+            parkedPlates[i] = "KA 01 PK " + i;
+            service.assignSlot(new VehicleInfo(parkedPlates[i], "Owner", "9800000000"));
+        }
+        freeSlotIds = new ArrayList<>();
+        for (int i = lotSize - 1; i >= 0; i--) {
+            if (!slots.get(i).isOccupied()) {
+                freeSlotIds.add(slotIds[i]);
+            }
+        }
+    }
+}
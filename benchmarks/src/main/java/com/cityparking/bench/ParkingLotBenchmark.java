@@ -0,0 +1,68 @@
+package com.cityparking.bench;
+
+import com.cityparking.model.ParkingSlot;
+import com.cityparking.util.SlotSnapshotWriter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Read paths of the lot that the kiosk and the dashboards hit: slot lookup by id, the
+ * occupancy counter and the snapshot export.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ParkingLotBenchmark {
+
+    @State(Scope.Thread)
+    public static class Reader {
+        private int next;
+        private Path snapshot;
+
+        @Setup(Level.Trial)
+        public void setUp() throws IOException {
+            snapshot = Files.createTempFile("slots", ".json");
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() throws IOException {
+            Files.deleteIfExists(snapshot);
+            Files.deleteIfExists(snapshot.resolveSibling(snapshot.getFileName() + ".tmp"));
+        }
+    }
+
+    @Benchmark
+    public Optional<ParkingSlot> findSlotById(LotState lot, Reader reader) {
+        String[] ids = lot.slotIds;
+        return lot.lot.findSlotById(ids[reader.next++ % ids.length]);
+    }
+
+    @Benchmark
+    public long getOccupiedCount(LotState lot) {
+        return lot.lot.getOccupiedCount();
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public void snapshotWrite(LotState lot, Reader reader) {
+        SlotSnapshotWriter.write(lot.lot.getSlots(), reader.snapshot);
+    }
+}
@@ -0,0 +1,91 @@
+package com.cityparking.bench;
+
+import com.cityparking.model.ParkingTicket;
+import com.cityparking.model.VehicleInfo;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.ThreadParams;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Gate operations on a lot held at a steady occupancy. Issuing a ticket only makes sense
+ * paired with closing it again, so the entry benchmarks measure a full entry/exit cycle;
+ * {@code closeTicket} is the common part of both. Run with {@code -t 1}, {@code -t 4} and
+ * {@code -t 8} to see how the gates scale, e.g.
+ * {@code java -jar benchmarks/target/benchmarks.jar ParkingServiceBenchmark -t 4 -p lotSize=36,100000}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ParkingServiceBenchmark {
+
+    /**
+     * Per-thread vehicles and, for {@code assignSlotTo}, a private share of the free bays so
+     * threads never collide on the same bay.
+     */
+    @State(Scope.Thread)
+    public static class Gate {
+        private final VehicleInfo[] vehicles = new VehicleInfo[256];
+        private String[] ownBays;
+        private int next;
+
+        @Setup(Level.Trial)
+        public void setUp(LotState lot, ThreadParams threads) {
+            int thread = threads.getThreadIndex();
+            for (int i = 0; i < vehicles.length; i++) {
+                vehicles[i] = new VehicleInfo("BN " + thread + " " + i, "Bench", "9800000000");
+            }
+            int count = threads.getThreadCount();
+            ownBays = lot.freeSlotIds.stream()
+                    .filter(id -> Math.floorMod(id.hashCode(), count) == thread)
+                    .toArray(String[]::new);
+        }
+
+        VehicleInfo nextVehicle() {
+            return vehicles[next++ & (vehicles.length - 1)];
+        }
+
+        String nextBay() {
+            return ownBays.length == 0 ? "NONE" : ownBays[next++ % ownBays.length];
+        }
+    }
+
+    @Benchmark
+    public Optional<ParkingTicket> assignSlotThenClose(LotState lot, Gate gate) {
+        Optional<ParkingTicket> ticket = lot.service.assignSlot(gate.nextVehicle());
+        ticket.ifPresent(issued -> lot.service.closeTicket(issued.getTicketKey()));
+        return ticket;
+    }
+
+    @Benchmark
+    public Optional<ParkingTicket> assignSlotToThenClose(LotState lot, Gate gate) {
+        Optional<ParkingTicket> ticket = lot.service.assignSlotTo(gate.nextBay(), gate.nextVehicle());
+        ticket.ifPresent(issued -> lot.service.closeTicket(issued.getTicketKey()));
+        return ticket;
+    }
+
+    @Benchmark
+    public Optional<ParkingTicket> findActiveTicketByPlate(LotState lot, Gate gate) {
+        String[] plates = lot.parkedPlates;
+        return lot.service.findActiveTicketByPlate(plates.length == 0 ? "NONE" : plates[gate.next++ % plates.length]);
+    }
+
+    @Benchmark
+    public Map<Integer, Long> getFloorLoad(LotState lot) {
+        return lot.service.getFloorLoad();
+    }
+}
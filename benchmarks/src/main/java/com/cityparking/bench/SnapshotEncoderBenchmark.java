@@ -0,0 +1,143 @@
+package com.cityparking.bench;
+
+import com.cityparking.model.ParkingSlot;
+import com.cityparking.model.VehicleInfo;
+import com.cityparking.util.SlotJsonEncoder;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the original StringBuilder + Files.writeString snapshot writer with the streaming
+ * {@link SlotJsonEncoder}, both in memory (encode only) and through a real file channel.
+ * Run with {@code -prof gc} to see the per-snapshot allocation difference.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SnapshotEncoderBenchmark {
+    @Param({"1000", "10000", "100000"})
+    private int slotCount;
+
+    private List<ParkingSlot> slots;
+    private SlotJsonEncoder encoder;
+    private Path file;
+    private final DiscardingChannel discard = new DiscardingChannel();
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        slots = new ArrayList<>(slotCount);
+        for (int i = 0; i < slotCount; i++) {
+            ParkingSlot slot = new ParkingSlot("F" + (i / 1000) + "-S" + i, i / 1000, i % 1000);
+            if (i % 3 == 0) {
+                slot.occupy(new VehicleInfo("KA 01 AB " + i, "Owner", "9800000000"), null);
+            }
+            slots.add(slot);
+        }
+        encoder = new SlotJsonEncoder();
+        file = Files.createTempFile("slots", ".json");
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(file);
+    }
+
+    @Benchmark
+    public long legacyEncode() {
+        return legacyJson(slots).getBytes(StandardCharsets.UTF_8).length;
+    }
+
+    @Benchmark
+    public long streamingEncode() throws IOException {
+        discard.written = 0;
+        encoder.encode(slots, discard);
+        return discard.written;
+    }
+
+    @Benchmark
+    public void legacyWrite() throws IOException {
+        Files.writeString(file, legacyJson(slots));
+    }
+
+    @Benchmark
+    public void streamingWrite() throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            encoder.encode(slots, channel);
+        }
+    }
+
+    /**
+     * The snapshot writer as it was before the streaming encoder, kept here as the baseline.
+     */
+    private static String legacyJson(List<ParkingSlot> slots) {
+        StringBuilder json = new StringBuilder();
+        json.append("[\n");
+        for (int i = 0; i < slots.size(); i++) {
+            ParkingSlot slot = slots.get(i);
+            String vehicle = slot.isOccupied() && slot.getCurrentVehicle() != null
+                    ? slot.getCurrentVehicle().getPlateNumber()
+                    : "";
+            json.append("  {")
+                    .append("\"slotId\":\"").append(slot.getSlotId()).append("\",")
+                    .append("\"floor\":").append(slot.getFloor()).append(',')
+                    .append("\"distance\":").append(slot.getDistance()).append(',')
+                    .append("\"occupied\":").append(slot.isOccupied()).append(',')
+                    .append("\"vehicle\":\"")
+                    .append(vehicle)
+                    .append("\"}");
+            if (i < slots.size() - 1) {
+                json.append(",");
+            }
+            json.append("\n");
+        }
+        json.append("]");
+        return json.toString();
+    }
+
+    private static final class DiscardingChannel implements WritableByteChannel {
+        private long written;
+
+        @Override
+        public int write(ByteBuffer src) {
+            int remaining = src.remaining();
+            src.position(src.limit());
+            written += remaining;
+            return remaining;
+        }
+
+        @Override
+        public boolean isOpen() {
+            return true;
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
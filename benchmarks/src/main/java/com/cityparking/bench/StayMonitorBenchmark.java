@@ -0,0 +1,168 @@
+package com.cityparking.bench;
+
+import com.cityparking.model.ParkingLot;
+import com.cityparking.model.ParkingSlot;
+import com.cityparking.model.ParkingTicket;
+import com.cityparking.model.RateCard;
+import com.cityparking.model.VehicleInfo;
+import com.cityparking.service.ParkingService;
+import com.cityparking.service.StayEvent;
+import com.cityparking.service.StayMonitor;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Overstay detection with {@code parked} open tickets, each due somewhere in the next eight
+ * hours. {@code advanceOneSecond} moves a one-second {@link StayMonitor} clock forward and pays
+ * only for the events that come due; {@code scanOneSecond} is the naive alternative of checking
+ * every open ticket's due time each second. Both replace every overstaying ticket with a new
+ * arrival due within eight hours, so the lot stays full however far the simulated clock runs
+ * during warmup and measurement. {@code assignSlotThenClose} is the gate cycle with the monitor
+ * queueing an arm and a disarm, to compare with {@link ParkingServiceBenchmark}; every 256th
+ * cycle also applies the queue, the work the clock thread would do.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class StayMonitorBenchmark {
+    private static final int MAX_STAY_SECONDS = 8 * 60 * 60;
+
+    @State(Scope.Benchmark)
+    public static class Watched {
+        @Param({"1000", "100000"})
+        public int parked;
+
+        private StayMonitor monitor;
+        private ParkingTicket[] tickets;
+        private LocalDateTime clock;
+        private SplittableRandom random;
+        private ParkingSlot slot;
+        private VehicleInfo vehicle;
+        private long nextKey;
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            slot = new ParkingSlot("F0-S1", 0, 0);
+            vehicle = new VehicleInfo("KA 01 PK 1", "Owner", "9800000000");
+            ParkingService service = new ParkingService(new ParkingLot("Benchmark lot", List.of(slot)),
+                    new RateCard(60.0, 40.0, 600.0));
+            clock = LocalDateTime.of(2026, 1, 1, 0, 0);
+            random = new SplittableRandom(11);
+            tickets = new ParkingTicket[parked];
+            monitor = new StayMonitor(service, Duration.ofSeconds(1), clock);
+            for (int i = 0; i < parked; i++) {
+                tickets[i] = arrive();
+                monitor.ticketOpened(tickets[i]);
+            }
+            monitor.addListener(event -> {
+                if (event.getType() == StayEvent.Type.OVERSTAY) {
+                    monitor.ticketClosed(event.getTicket());
+                    monitor.ticketOpened(arrive());
+                }
+            });
+        }
+
+        /**
+         * A ticket checked in now and due back within eight hours.
+         */
+        private ParkingTicket arrive() {
+            return new ParkingTicket(++nextKey, slot, vehicle, clock, clock.plusSeconds(1 + random.nextInt(MAX_STAY_SECONDS)));
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() {
+            monitor.close();
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class Gate {
+        @Param({"1000", "100000"})
+        public int parked;
+
+        private ParkingService service;
+        private StayMonitor monitor;
+        private LocalDateTime clock;
+        private VehicleInfo[] vehicles;
+        private int next;
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            List<ParkingSlot> slots = new ArrayList<>(parked * 2);
+            int baysPerFloor = (parked * 2 + 9) / 10;
+            for (int i = 0; i < parked * 2; i++) {
+                int floor = i / baysPerFloor;
+                slots.add(new ParkingSlot("F" + floor + "-S" + (i % baysPerFloor + 1), floor, floor * 50 + i % baysPerFloor * 4));
+            }
+            service = new ParkingService(new ParkingLot("Benchmark lot", slots), new RateCard(60.0, 40.0, 600.0));
+            SplittableRandom random = new SplittableRandom(11);
+            for (int i = 0; i < parked; i++) {
+                service.assignSlot(new VehicleInfo("KA 01 PK " + i, "Owner", "9800000000"),
+                        Duration.ofSeconds(1 + random.nextInt(MAX_STAY_SECONDS)));
+            }
+            // The clock stays here, so applying the queue never raises an event.
+            clock = LocalDateTime.now();
+            monitor = new StayMonitor(service, Duration.ofSeconds(1), clock);
+            vehicles = new VehicleInfo[256];
+            for (int i = 0; i < vehicles.length; i++) {
+                vehicles[i] = new VehicleInfo("BN " + i, "Bench", "9800000000");
+            }
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() {
+            monitor.close();
+        }
+    }
+
+    @Benchmark
+    public int advanceOneSecond(Watched state) {
+        state.clock = state.clock.plusSeconds(1);
+        return state.monitor.advance(state.clock).size();
+    }
+
+    @Benchmark
+    public int scanOneSecond(Watched state) {
+        state.clock = state.clock.plusSeconds(1);
+        ParkingTicket[] tickets = state.tickets;
+        int overdue = 0;
+        for (int i = 0; i < tickets.length; i++) {
+            if (tickets[i].getDueTime().isBefore(state.clock)) {
+                tickets[i] = state.arrive();
+                overdue++;
+            }
+        }
+        return overdue;
+    }
+
+    @Benchmark
+    public Optional<ParkingTicket> assignSlotThenClose(Gate state) {
+        Optional<ParkingTicket> ticket = state.service.assignSlot(state.vehicles[state.next++ & 255], Duration.ofHours(2));
+        ticket.ifPresent(issued -> state.service.closeTicket(issued.getTicketKey()));
+        if ((state.next & 255) == 0) {
+            state.monitor.advance(state.clock);
+        }
+        return ticket;
+    }
+}
@@ -0,0 +1,200 @@
+package com.cityparking.archive;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.function.IntConsumer;
+
+/**
+ * One memory-mapped, fixed-capacity segment of the archive. Columns are laid out back to back
+ * after a 64-byte header: check-in epoch, check-out epoch, slot id, plate id, amount in paise.
+ * A row becomes visible only once the header count is bumped, after its columns are written.
+ * <p>
+ * When the segment fills, {@link #buildPlateIndex()} writes a plate index after the columns:
+ * (plate id, row) pairs sorted by plate, so a plate lookup is a binary search instead of a scan.
+ * Only the segment still being filled, which has no index yet, is scanned.
+ */
+final class ArchiveSegment implements AutoCloseable {
+    private static final int MAGIC = 0x504B4152; // "PKAR"
+    private static final int HEADER_BYTES = 64;
+    private static final int COUNT_OFFSET = 8;
+    private static final int MIN_CHECK_OUT_OFFSET = 16;
+    private static final int MAX_CHECK_OUT_OFFSET = 24;
+    private static final int PLATE_INDEX_OFFSET = 32;
+    private static final int ROW_BYTES = 32;
+    private static final int INDEX_ROW_BYTES = 8;
+
+    private final FileChannel channel;
+    private final MappedByteBuffer map;
+    private final int capacity;
+    private final int checkInColumn;
+    private final int checkOutColumn;
+    private final int slotColumn;
+    private final int plateColumn;
+    private final int amountColumn;
+    private final int plateIndex;
+    private volatile int count;
+    private volatile int indexedRows;
+    private long minCheckOut;
+    private long maxCheckOut;
+
+    ArchiveSegment(Path file, int capacity) throws IOException {
+        this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        boolean fresh = channel.size() == 0;
+        if (!fresh && channel.size() < HEADER_BYTES) {
+            channel.close();
+            throw new IOException("Not an archive segment: " + file);
+        }
+        this.map = channel.map(FileChannel.MapMode.READ_WRITE, 0, fresh ? sizeFor(capacity) : channel.size());
+        if (fresh) {
+            map.putInt(0, MAGIC);
+            map.putInt(4, capacity);
+            map.putLong(MIN_CHECK_OUT_OFFSET, Long.MAX_VALUE);
+            map.putLong(MAX_CHECK_OUT_OFFSET, Long.MIN_VALUE);
+        } else if (map.getInt(0) != MAGIC || map.getInt(4) <= 0 || sizeFor(map.getInt(4)) != channel.size()) {
+            channel.close();
+            throw new IOException("Not an archive segment: " + file);
+        }
+        this.capacity = map.getInt(4);
+        this.checkInColumn = HEADER_BYTES;
+        this.checkOutColumn = checkInColumn + 8 * this.capacity;
+        this.slotColumn = checkOutColumn + 8 * this.capacity;
+        this.plateColumn = slotColumn + 4 * this.capacity;
+        this.amountColumn = plateColumn + 4 * this.capacity;
+        this.plateIndex = amountColumn + 8 * this.capacity;
+        this.count = map.getInt(COUNT_OFFSET);
+        this.minCheckOut = map.getLong(MIN_CHECK_OUT_OFFSET);
+        this.maxCheckOut = map.getLong(MAX_CHECK_OUT_OFFSET);
+        this.indexedRows = map.getInt(PLATE_INDEX_OFFSET);
+    }
+
+    boolean isFull() {
+        return count >= capacity;
+    }
+
+    int count() {
+        return count;
+    }
+
+    /**
+     * Appends a row. Single writer only; callers serialise appends.
+     */
+    void append(long checkIn, long checkOut, int slotId, int plateId, long amount) {
+        int row = count;
+        map.putLong(checkInColumn + 8 * row, checkIn);
+        map.putLong(checkOutColumn + 8 * row, checkOut);
+        map.putInt(slotColumn + 4 * row, slotId);
+        map.putInt(plateColumn + 4 * row, plateId);
+        map.putLong(amountColumn + 8 * row, amount);
+        minCheckOut = Math.min(minCheckOut, checkOut);
+        maxCheckOut = Math.max(maxCheckOut, checkOut);
+        map.putLong(MIN_CHECK_OUT_OFFSET, minCheckOut);
+        map.putLong(MAX_CHECK_OUT_OFFSET, maxCheckOut);
+        map.putInt(COUNT_OFFSET, row + 1);
+        count = row + 1;
+    }
+
+    /**
+     * Whether any row may have a check-out in {@code [from, to)}, judged from the header alone.
+     */
+    boolean mayOverlap(long from, long to) {
+        return count > 0 && map.getLong(MIN_CHECK_OUT_OFFSET) < to && map.getLong(MAX_CHECK_OUT_OFFSET) >= from;
+    }
+
+    /**
+     * Writes the sorted plate index over every row. Call once the segment is full; it has no
+     * effect on a segment that already has one.
+     */
+    void buildPlateIndex() {
+        int rows = count;
+        if (hasPlateIndex()) {
+            return;
+        }
+        long[] keys = new long[rows];
+        for (int row = 0; row < rows; row++) {
+            keys[row] = (long) plateId(row) << 32 | row;
+        }
+        Arrays.sort(keys);
+        for (int i = 0; i < rows; i++) {
+            map.putLong(plateIndex + INDEX_ROW_BYTES * i, keys[i]);
+        }
+        map.putInt(PLATE_INDEX_OFFSET, rows);
+        indexedRows = rows;
+    }
+
+    boolean hasPlateIndex() {
+        return indexedRows > 0;
+    }
+
+    /**
+     * Visits the rows holding {@code plateId}: through the plate index once the segment has one,
+     * otherwise by scanning the plate column of the rows written so far.
+     */
+    void forEachRowOfPlate(int plateId, IntConsumer visitor) {
+        int indexed = indexedRows;
+        if (indexed == 0) {
+            int rows = count;
+            for (int row = 0; row < rows; row++) {
+                if (plateId(row) == plateId) {
+                    visitor.accept(row);
+                }
+            }
+            return;
+        }
+        long first = (long) plateId << 32;
+        int low = 0;
+        int high = indexed;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (map.getLong(plateIndex + INDEX_ROW_BYTES * middle) < first) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        for (int i = low; i < indexed; i++) {
+            long key = map.getLong(plateIndex + INDEX_ROW_BYTES * i);
+            if ((int) (key >>> 32) != plateId) {
+                break;
+            }
+            visitor.accept((int) key);
+        }
+    }
+
+    long checkIn(int row) {
+        return map.getLong(checkInColumn + 8 * row);
+    }
+
+    long checkOut(int row) {
+        return map.getLong(checkOutColumn + 8 * row);
+    }
+
+    int slotId(int row) {
+        return map.getInt(slotColumn + 4 * row);
+    }
+
+    int plateId(int row) {
+        return map.getInt(plateColumn + 4 * row);
+    }
+
+    long amount(int row) {
+        return map.getLong(amountColumn + 8 * row);
+    }
+
+    void force() {
+        map.force();
+    }
+
+    @Override
+    public void close() throws IOException {
+        map.force();
+        channel.close();
+    }
+
+    private static long sizeFor(int capacity) {
+        return HEADER_BYTES + (long) (ROW_BYTES + INDEX_ROW_BYTES) * capacity;
+    }
+}
@@ -0,0 +1,52 @@
+package com.cityparking.archive;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+
+/**
+ * A closed ticket read back from the archive. Only materialised for rows a query returns.
+ */
+public class ArchivedTicket {
+    private final LocalDateTime checkInTime;
+    private final LocalDateTime checkOutTime;
+    private final String slotId;
+    private final String plateNumber;
+    private final long amountPaise;
+
+    ArchivedTicket(long checkInEpoch, long checkOutEpoch, String slotId, String plateNumber, long amountPaise) {
+        this.checkInTime = LocalDateTime.ofEpochSecond(checkInEpoch, 0, ZoneOffset.UTC);
+        this.checkOutTime = LocalDateTime.ofEpochSecond(checkOutEpoch, 0, ZoneOffset.UTC);
+        this.slotId = slotId;
+        this.plateNumber = plateNumber;
+        this.amountPaise = amountPaise;
+    }
+
+    public LocalDateTime getCheckInTime() {
+        return checkInTime;
+    }
+
+    public LocalDateTime getCheckOutTime() {
+        return checkOutTime;
+    }
+
+    public String getSlotId() {
+        return slotId;
+    }
+
+    public String getPlateNumber() {
+        return plateNumber;
+    }
+
+    public long getAmountPaise() {
+        return amountPaise;
+    }
+
+    public double getAmount() {
+        return amountPaise / 100.0;
+    }
+
+    @Override
+    public String toString() {
+        return plateNumber + " @ " + slotId + " " + checkInTime + " -> " + checkOutTime + " INR " + String.format("%.2f", getAmount());
+    }
+}
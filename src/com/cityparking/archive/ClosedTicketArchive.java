@@ -0,0 +1,269 @@
+package com.cityparking.archive;
+
+import com.cityparking.model.ParkingTicket;
+import com.cityparking.service.TicketListener;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+/**
+ * Append-only archive of every closed ticket, stored column-wise in memory-mapped segment files.
+ * A record costs 40 bytes on disk, 8 of them for the plate index, and nothing on the heap;
+ * plates and slot ids are interned to ints through memory-mapped dictionaries. Time-range
+ * queries skip whole segments using the check-out bounds in each segment header, and plate
+ * lookups binary-search each full segment's sorted plate index, scanning only the int plate
+ * column of the segment still being filled.
+ * <p>
+ * Gates never write: {@link #ticketClosed} only queues the ticket, and one writer thread interns
+ * and appends in batches. A ticket that cannot be queued within {@value #ENQUEUE_TIMEOUT_MILLIS}
+ * ms, arrives after close or fails to write is logged and counted in {@link #getFailedCount()}.
+ * The dictionaries are forced to disk before a segment is, so a forced row never refers to a
+ * plate or slot id that was lost.
+ */
+public class ClosedTicketArchive implements TicketListener, AutoCloseable {
+    private static final String SEGMENT_PREFIX = "closed-";
+    private static final String SEGMENT_SUFFIX = ".seg";
+    private static final int QUEUE_CAPACITY = 64 * 1024;
+    private static final int MAX_BATCH = 4096;
+    private static final long ENQUEUE_TIMEOUT_MILLIS = 100;
+
+    private final Path directory;
+    private final int segmentCapacity;
+    private final StringDictionary plates;
+    private final StringDictionary slots;
+    private final List<ArchiveSegment> segments = new CopyOnWriteArrayList<>();
+    private final LongAdder failed = new LongAdder();
+    private final BlockingQueue<ParkingTicket> queue = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+    private final AtomicBoolean running = new AtomicBoolean(true);
+    private final Thread writer;
+
+    public ClosedTicketArchive(Path directory, int segmentCapacity) throws IOException {
+        this.directory = directory;
+        this.segmentCapacity = segmentCapacity;
+        Files.createDirectories(directory);
+        this.plates = new StringDictionary(directory.resolve("plates.dict"));
+        this.slots = new StringDictionary(directory.resolve("slots.dict"));
+        try (Stream<Path> files = Files.list(directory)) {
+            List<Path> existing = files
+                    .filter(path -> path.getFileName().toString().startsWith(SEGMENT_PREFIX))
+                    .sorted()
+                    .toList();
+            for (Path file : existing) {
+                ArchiveSegment segment = new ArchiveSegment(file, segmentCapacity);
+                if (segment.isFull() && !segment.hasPlateIndex()) {
+                    // Filled just before a crash, before its index was written.
+                    segment.buildPlateIndex();
+                    segment.force();
+                }
+                segments.add(segment);
+            }
+        }
+        this.writer = new Thread(this::runWriter, "ticket-archive");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    @Override
+    public void ticketOpened(ParkingTicket ticket) {
+    }
+
+    /**
+     * Queues the ticket for the writer thread. Runs on the gate that closed it, after the bay is
+     * released, so nothing here throws or waits for long.
+     */
+    @Override
+    public void ticketClosed(ParkingTicket ticket) {
+        if (!running.get()) {
+            failed.increment();
+            return;
+        }
+        try {
+            if (!queue.offer(ticket, ENQUEUE_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS)) {
+                failed.increment();
+                System.err.println("Ticket archive full, dropped " + ticket.getTicketId());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            failed.increment();
+        }
+    }
+
+    /**
+     * Archives a closed ticket on the caller's thread.
+     */
+    public synchronized void append(ParkingTicket ticket) throws IOException {
+        int plateId = plates.idFor(ticket.getVehicle().getPlateNumber());
+        int slotId = slots.idFor(ticket.getSlot().getSlotId());
+        writableSegment().append(
+                epoch(ticket.getCheckInTime()),
+                epoch(ticket.getCheckOutTime()),
+                slotId,
+                plateId,
+                ticket.getAmountPaise());
+    }
+
+    /**
+     * Closed tickets that were not archived: queued too late, after close, or failed to write.
+     */
+    public long getFailedCount() {
+        return failed.sum();
+    }
+
+    public long size() {
+        long total = 0;
+        for (ArchiveSegment segment : segments) {
+            total += segment.count();
+        }
+        return total;
+    }
+
+    /**
+     * Visits tickets that checked out in {@code [from, to)}, oldest segment first.
+     */
+    public void forEachClosedBetween(LocalDateTime from, LocalDateTime to, Consumer<ArchivedTicket> visitor) {
+        long start = epoch(from);
+        long end = epoch(to);
+        for (ArchiveSegment segment : segments) {
+            if (!segment.mayOverlap(start, end)) {
+                continue;
+            }
+            int count = segment.count();
+            for (int row = 0; row < count; row++) {
+                long checkOut = segment.checkOut(row);
+                if (checkOut >= start && checkOut < end) {
+                    visitor.accept(materialise(segment, row));
+                }
+            }
+        }
+    }
+
+    /**
+     * Sum of fees, in paise, for tickets that checked out in {@code [from, to)}. Reads only the
+     * check-out and amount columns.
+     */
+    public long revenueBetween(LocalDateTime from, LocalDateTime to) {
+        long start = epoch(from);
+        long end = epoch(to);
+        long total = 0;
+        for (ArchiveSegment segment : segments) {
+            if (!segment.mayOverlap(start, end)) {
+                continue;
+            }
+            int count = segment.count();
+            for (int row = 0; row < count; row++) {
+                long checkOut = segment.checkOut(row);
+                if (checkOut >= start && checkOut < end) {
+                    total += segment.amount(row);
+                }
+            }
+        }
+        return total;
+    }
+
+    /**
+     * Visits every archived visit of the given plate.
+     */
+    public void forEachForPlate(String plateNumber, Consumer<ArchivedTicket> visitor) {
+        if (plateNumber == null) {
+            return;
+        }
+        int plateId = plates.find(plateNumber.trim().toUpperCase());
+        if (plateId < 0) {
+            return;
+        }
+        for (ArchiveSegment segment : segments) {
+            segment.forEachRowOfPlate(plateId, row -> visitor.accept(materialise(segment, row)));
+        }
+    }
+
+    /**
+     * Archives everything queued, then closes the files, dictionaries first.
+     */
+    @Override
+    public void close() throws IOException {
+        if (!running.compareAndSet(true, false)) {
+            return;
+        }
+        try {
+            writer.join(TimeUnit.SECONDS.toMillis(10));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        synchronized (this) {
+            plates.close();
+            slots.close();
+            for (ArchiveSegment segment : segments) {
+                segment.close();
+            }
+        }
+    }
+
+    private void runWriter() {
+        List<ParkingTicket> batch = new ArrayList<>(MAX_BATCH);
+        while (running.get() || !queue.isEmpty()) {
+            try {
+                ParkingTicket first = queue.poll(1, TimeUnit.SECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            queue.drainTo(batch, MAX_BATCH - 1);
+            for (ParkingTicket ticket : batch) {
+                try {
+                    append(ticket);
+                } catch (IOException | RuntimeException e) {
+                    failed.increment();
+                    System.err.println("Unable to archive ticket " + ticket.getTicketId() + ": " + e);
+                }
+            }
+            batch.clear();
+        }
+    }
+
+    private ArchiveSegment writableSegment() throws IOException {
+        if (!segments.isEmpty()) {
+            ArchiveSegment last = segments.get(segments.size() - 1);
+            if (!last.isFull()) {
+                return last;
+            }
+            last.buildPlateIndex();
+            plates.force();
+            slots.force();
+            last.force();
+        }
+        Path file = directory.resolve(SEGMENT_PREFIX + String.format("%08d", segments.size() + 1) + SEGMENT_SUFFIX);
+        ArchiveSegment segment = new ArchiveSegment(file, segmentCapacity);
+        segments.add(segment);
+        return segment;
+    }
+
+    private ArchivedTicket materialise(ArchiveSegment segment, int row) {
+        return new ArchivedTicket(
+                segment.checkIn(row),
+                segment.checkOut(row),
+                slots.valueOf(segment.slotId(row)),
+                plates.valueOf(segment.plateId(row)),
+                segment.amount(row));
+    }
+
+    private static long epoch(LocalDateTime time) {
+        return time.toEpochSecond(ZoneOffset.UTC);
+    }
+}
@@ -0,0 +1,216 @@
+package com.cityparking.archive;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Append-only string interning table. Ids are dense and stable across restarts, so the archive
+ * columns can store an {@code int} per plate or slot.
+ * <p>
+ * Nothing per entry lives on the heap. The file is memory-mapped: a 16-byte header holding the
+ * number of bytes in use, then length-prefixed UTF-8 entries, so interning a new value is a copy
+ * into the map rather than a write call. Entry offsets and an open-addressing hash table of ids
+ * sit in direct buffers; lookups hash the value's bytes and compare them against the map. The
+ * header is updated after each entry is copied, so a torn append is never read back. A file
+ * that does not start with the dictionary header is rejected rather than overwritten.
+ */
+final class StringDictionary implements AutoCloseable {
+    private static final int MAGIC = 0x504B5344; // "PKSD"
+    private static final int FORMAT = 1;
+    private static final int HEADER_BYTES = 16;
+    private static final int USED_OFFSET = 8;
+    private static final int INITIAL_BYTES = 64 * 1024;
+    private static final int INITIAL_IDS = 1024;
+
+    private final FileChannel channel;
+    private MappedByteBuffer data;
+    private int used;
+    private ByteBuffer offsets = ByteBuffer.allocateDirect(4 * INITIAL_IDS);
+    private ByteBuffer table = ByteBuffer.allocateDirect(4 * 2 * INITIAL_IDS);
+    private int tableMask = 2 * INITIAL_IDS - 1;
+    private int count;
+
+    StringDictionary(Path file) throws IOException {
+        this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        if (channel.size() == 0) {
+            this.data = channel.map(FileChannel.MapMode.READ_WRITE, 0, INITIAL_BYTES);
+            data.putInt(0, MAGIC);
+            data.putInt(4, FORMAT);
+            data.putLong(USED_OFFSET, HEADER_BYTES);
+        } else if (channel.size() < HEADER_BYTES) {
+            channel.close();
+            throw new IOException("Not a string dictionary: " + file);
+        } else {
+            this.data = channel.map(FileChannel.MapMode.READ_WRITE, 0, channel.size());
+        }
+        long inUse = data.getLong(USED_OFFSET);
+        if (data.getInt(0) != MAGIC || data.getInt(4) != FORMAT || inUse < HEADER_BYTES || inUse > data.capacity()) {
+            channel.close();
+            throw new IOException("Not a string dictionary: " + file);
+        }
+        this.used = (int) inUse;
+        for (int position = HEADER_BYTES; position < used; position += 2 + lengthAt(position)) {
+            index(position);
+        }
+    }
+
+    synchronized int idFor(String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        int existing = find(bytes);
+        if (existing >= 0) {
+            return existing;
+        }
+        if (bytes.length > 0xFFFF) {
+            throw new IOException("Value too long to intern: " + bytes.length + " bytes");
+        }
+        int position = used;
+        ensureCapacity(position + 2 + bytes.length);
+        data.putShort(position, (short) bytes.length);
+        data.put(position + 2, bytes);
+        used = position + 2 + bytes.length;
+        data.putLong(USED_OFFSET, used);
+        return index(position);
+    }
+
+    /**
+     * Id of an already interned value, or -1.
+     */
+    synchronized int find(String value) {
+        return find(value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    synchronized String valueOf(int id) {
+        if (id < 0 || id >= count) {
+            throw new IndexOutOfBoundsException("No dictionary entry " + id);
+        }
+        int position = offsets.getInt(4 * id);
+        byte[] bytes = new byte[lengthAt(position)];
+        data.get(position + 2, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Number of interned values; ids run from 0 to {@code size() - 1}.
+     */
+    synchronized int size() {
+        return count;
+    }
+
+    /**
+     * Forces every interned value to disk; call before forcing rows that refer to them.
+     */
+    synchronized void force() {
+        data.force();
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        data.force();
+        channel.close();
+    }
+
+    private int find(byte[] bytes) {
+        for (int bucket = hash(bytes) & tableMask; ; bucket = (bucket + 1) & tableMask) {
+            int slot = table.getInt(4 * bucket);
+            if (slot == 0) {
+                return -1;
+            }
+            if (matches(slot - 1, bytes)) {
+                return slot - 1;
+            }
+        }
+    }
+
+    /**
+     * Assigns the next id to the entry at {@code position}.
+     */
+    private int index(int position) {
+        int id = count;
+        if (4 * (id + 1) > offsets.capacity()) {
+            offsets = grow(offsets, 2 * offsets.capacity());
+        }
+        offsets.putInt(4 * id, position);
+        count = id + 1;
+        if (2 * count > tableMask + 1) {
+            rehash(2 * (tableMask + 1));
+        } else {
+            insert(id);
+        }
+        return id;
+    }
+
+    private void insert(int id) {
+        int bucket = hashAt(offsets.getInt(4 * id)) & tableMask;
+        while (table.getInt(4 * bucket) != 0) {
+            bucket = (bucket + 1) & tableMask;
+        }
+        table.putInt(4 * bucket, id + 1);
+    }
+
+    private void rehash(int buckets) {
+        table = ByteBuffer.allocateDirect(4 * buckets);
+        tableMask = buckets - 1;
+        for (int id = 0; id < count; id++) {
+            insert(id);
+        }
+    }
+
+    private boolean matches(int id, byte[] bytes) {
+        int position = offsets.getInt(4 * id);
+        if (lengthAt(position) != bytes.length) {
+            return false;
+        }
+        for (int i = 0; i < bytes.length; i++) {
+            if (data.get(position + 2 + i) != bytes[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private int lengthAt(int position) {
+        return Short.toUnsignedInt(data.getShort(position));
+    }
+
+    private void ensureCapacity(int bytes) throws IOException {
+        if (bytes > data.capacity()) {
+            long size = Math.max(2L * data.capacity(), bytes);
+            if (size > Integer.MAX_VALUE) {
+                throw new IOException("String dictionary full");
+            }
+            data.force();
+            data = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+        }
+    }
+
+    private static ByteBuffer grow(ByteBuffer buffer, int capacity) {
+        ByteBuffer grown = ByteBuffer.allocateDirect(capacity);
+        grown.put(buffer.duplicate().clear());
+        return grown;
+    }
+
+    /**
+     * FNV-1a over the UTF-8 bytes, so lookups and the stored entries hash alike.
+     */
+    private static int hash(byte[] bytes) {
+        int hash = 0x811C9DC5;
+        for (byte b : bytes) {
+            hash = (hash ^ (b & 0xFF)) * 0x01000193;
+        }
+        return hash ^ (hash >>> 16);
+    }
+
+    private int hashAt(int position) {
+        int hash = 0x811C9DC5;
+        int end = position + 2 + lengthAt(position);
+        for (int i = position + 2; i < end; i++) {
+            hash = (hash ^ (data.get(i) & 0xFF)) * 0x01000193;
+        }
+        return hash ^ (hash >>> 16);
+    }
+}
@@ -0,0 +1,123 @@
+package com.cityparking.ingest;
+
+import com.cityparking.model.ParkingLot;
+import com.cityparking.model.ParkingSlot;
+import com.cityparking.model.RateCard;
+import com.cityparking.model.VehicleClass;
+import com.cityparking.service.ParkingService;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs the gate-event pipeline without the Swing UI, printing throughput every second.
+ * <pre>
+ * AnprIngest &lt;events-file&gt; [--bays N]              replay a camera feed
+ * AnprIngest - [--bays N]                           read the feed from stdin, e.g. nc -l 9000 | ...
+ * AnprIngest --synthetic N [--producers P] [--bays N]  N generated events from P camera threads
+ * </pre>
+ */
+public final class AnprIngest {
+    private static final int RING_CAPACITY = 64 * 1024;
+    private static final int MAX_BATCH = 1024;
+    private static final int BAYS_PER_FLOOR = 500;
+
+    private AnprIngest() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        String source = null;
+        long synthetic = -1;
+        int producers = 1;
+        int bays = 10_000;
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--synthetic" -> synthetic = Long.parseLong(args[++i]);
+                case "--producers" -> producers = Integer.parseInt(args[++i]);
+                case "--bays" -> bays = Integer.parseInt(args[++i]);
+                default -> source = args[i];
+            }
+        }
+        if (source == null && synthetic < 0) {
+            System.err.println("Usage: AnprIngest <events-file | - | --synthetic N [--producers P]> [--bays N]");
+            System.exit(2);
+        }
+
+        ParkingService service = new ParkingService(buildLot(bays), new RateCard(60.0, 40.0, 600.0));
+        GateEventPipeline pipeline = new GateEventPipeline(service, RING_CAPACITY, MAX_BATCH);
+        ScheduledExecutorService reporter = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "ingest-reporter");
+            thread.setDaemon(true);
+            return thread;
+        });
+        pipeline.start();
+        reporter.scheduleAtFixedRate(() -> System.out.print(pipeline.report()), 1, 1, TimeUnit.SECONDS);
+
+        long start = System.nanoTime();
+        if (synthetic >= 0) {
+            runSynthetic(pipeline, synthetic, producers, bays);
+        } else if (source.equals("-")) {
+            pipeline.ingest(new BufferedReader(new InputStreamReader(System.in, StandardCharsets.UTF_8)));
+        } else {
+            try (BufferedReader feed = Files.newBufferedReader(Path.of(source))) {
+                pipeline.ingest(feed);
+            }
+        }
+        pipeline.close();
+        reporter.shutdownNow();
+        double seconds = (System.nanoTime() - start) / 1e9;
+        System.out.print(pipeline.report());
+        System.out.printf("done: %,d events in %.2fs, %,.0f events/s sustained, %d occupied of %d%n",
+                pipeline.getProcessedCount(), seconds, pipeline.getProcessedCount() / seconds,
+                service.getParkingLot().getOccupiedCount(), bays);
+    }
+
+    /**
+     * Each camera thread drives its own plates through the lot, keeping a window of them parked
+     * so entries and exits interleave as they would at a busy site.
+     */
+    private static void runSynthetic(GateEventPipeline pipeline, long events, int producers, int bays)
+            throws InterruptedException {
+        List<Thread> threads = new ArrayList<>(producers);
+        for (int p = 0; p < producers; p++) {
+            String prefix = "AN" + p + " ";
+            long share = events / producers + (p < events % producers ? 1 : 0);
+            long window = Math.max(1, bays / (2L * producers));
+            Thread thread = new Thread(() -> {
+                long submitted = 0;
+                for (long i = 0; submitted < share; i++) {
+                    pipeline.submit(GateEvent.entry(prefix + i, VehicleClass.CAR));
+                    submitted++;
+                    if (i >= window && submitted < share) {
+                        pipeline.submit(GateEvent.exit(prefix + (i - window)));
+                        submitted++;
+                    }
+                }
+            }, "camera-" + p);
+            threads.add(thread);
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+    }
+
+    private static ParkingLot buildLot(int bays) {
+        List<ParkingSlot> slots = new ArrayList<>(bays);
+        for (int i = 0; i < bays; i++) {
+            int floor = i / BAYS_PER_FLOOR;
+            int bay = i % BAYS_PER_FLOOR + 1;
+            slots.add(new ParkingSlot("F" + floor + "-S" + String.format("%03d", bay), floor, floor * 50 + bay * 4));
+        }
+        return new ParkingLot("ANPR ingest", slots);
+    }
+}
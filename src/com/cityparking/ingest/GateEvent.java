@@ -0,0 +1,79 @@
+package com.cityparking.ingest;
+
+import com.cityparking.model.VehicleClass;
+
+import java.util.Locale;
+
+/**
+ * One plate read by an entry or exit camera. Feeds carry one event per line:
+ * {@code ENTRY <plate> [vehicle class]} or {@code EXIT <plate>}, separated by commas or
+ * whitespace; blank lines and lines starting with {@code #} are ignored.
+ */
+public final class GateEvent {
+
+    public enum Type {
+        ENTRY,
+        EXIT
+    }
+
+    private final Type type;
+    private final String plateNumber;
+    private final VehicleClass vehicleClass;
+
+    public GateEvent(Type type, String plateNumber, VehicleClass vehicleClass) {
+        this.type = type;
+        this.plateNumber = plateNumber;
+        this.vehicleClass = vehicleClass;
+    }
+
+    public static GateEvent entry(String plateNumber, VehicleClass vehicleClass) {
+        return new GateEvent(Type.ENTRY, plateNumber, vehicleClass);
+    }
+
+    public static GateEvent exit(String plateNumber) {
+        return new GateEvent(Type.EXIT, plateNumber, null);
+    }
+
+    /**
+     * Parses one feed line.
+     *
+     * @return null for blank and comment lines
+     * @throws IllegalArgumentException if the line is not an event
+     */
+    public static GateEvent parse(String line) {
+        String trimmed = line.trim();
+        if (trimmed.isEmpty() || trimmed.startsWith("#")) {
+            return null;
+        }
+        String[] fields = trimmed.split("[,\\s]+");
+        if (fields.length < 2) {
+            throw new IllegalArgumentException("Expected '<ENTRY|EXIT> <plate>': " + line);
+        }
+        switch (fields[0].toUpperCase(Locale.ROOT)) {
+            case "ENTRY":
+                VehicleClass vehicleClass = fields.length > 2
+                        ? VehicleClass.valueOf(fields[2].toUpperCase(Locale.ROOT))
+                        : VehicleClass.CAR;
+                return entry(fields[1], vehicleClass);
+            case "EXIT":
+                return exit(fields[1]);
+            default:
+                throw new IllegalArgumentException("Unknown event type: " + line);
+        }
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    public String getPlateNumber() {
+        return plateNumber;
+    }
+
+    /**
+     * Class read by the entry camera; null for exits.
+     */
+    public VehicleClass getVehicleClass() {
+        return vehicleClass;
+    }
+}
@@ -0,0 +1,237 @@
+package com.cityparking.ingest;
+
+import com.cityparking.model.ParkingTicket;
+import com.cityparking.model.VehicleInfo;
+import com.cityparking.service.ParkingService;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Headless path from plate cameras into a {@link ParkingService}. Camera readers only append
+ * to a bounded {@link GateEventRing}; one consumer thread drains it up to {@code maxBatch}
+ * events at a time and applies them in arrival order, so a burst costs one wake-up instead of
+ * one per plate. When the ring is full {@link #submit} parks the camera thread until the
+ * consumer catches up, so a burst slows the feed down instead of growing the heap.
+ * Entries for a plate that is already parked (a double read) and exits with no open ticket
+ * are counted and skipped. An event whose processing throws is counted as failed and the
+ * consumer carries on with the next one; if the consumer dies anyway the pipeline stops, so
+ * cameras get an exception instead of parking forever.
+ */
+public class GateEventPipeline implements AutoCloseable {
+    private static final long IDLE_PARK_NANOS = TimeUnit.MICROSECONDS.toNanos(50);
+    private static final long FULL_PARK_NANOS = TimeUnit.MICROSECONDS.toNanos(10);
+
+    private final ParkingService service;
+    private final GateEventRing ring;
+    private final int maxBatch;
+    private final AtomicLong processed = new AtomicLong();
+    private final AtomicLong batches = new AtomicLong();
+    private final AtomicLong admitted = new AtomicLong();
+    private final AtomicLong lotFull = new AtomicLong();
+    private final AtomicLong duplicateEntries = new AtomicLong();
+    private final AtomicLong closed = new AtomicLong();
+    private final AtomicLong unmatchedExits = new AtomicLong();
+    private final LongAdder stalls = new LongAdder();
+    private final LongAdder malformed = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private volatile boolean running;
+    private Thread consumer;
+    private long startNanos;
+    private long lastReportNanos;
+    private long lastReportProcessed;
+
+    public GateEventPipeline(ParkingService service, int capacity, int maxBatch) {
+        this.service = service;
+        this.ring = new GateEventRing(capacity);
+        this.maxBatch = Math.max(1, maxBatch);
+    }
+
+    public synchronized void start() {
+        if (consumer != null) {
+            return;
+        }
+        running = true;
+        startNanos = System.nanoTime();
+        lastReportNanos = startNanos;
+        consumer = new Thread(this::runConsumer, "gate-event-pipeline");
+        consumer.setDaemon(true);
+        consumer.start();
+    }
+
+    /**
+     * Queues an event, parking the caller while the ring is full.
+     *
+     * @throws IllegalStateException if the pipeline is not running
+     */
+    public void submit(GateEvent event) {
+        if (!running) {
+            throw new IllegalStateException("Pipeline is not running");
+        }
+        if (ring.offer(event)) {
+            return;
+        }
+        stalls.increment();
+        while (!ring.offer(event)) {
+            if (!running) {
+                throw new IllegalStateException("Pipeline is not running");
+            }
+            LockSupport.parkNanos(FULL_PARK_NANOS);
+        }
+    }
+
+    /**
+     * Queues an event if there is room, for feeds that would rather drop than wait.
+     */
+    public boolean offer(GateEvent event) {
+        return running && ring.offer(event);
+    }
+
+    /**
+     * Submits every event in a feed until end of stream. Malformed lines are counted and skipped.
+     *
+     * @return the number of events submitted
+     */
+    public long ingest(BufferedReader feed) throws IOException {
+        long submitted = 0;
+        String line;
+        while ((line = feed.readLine()) != null) {
+            GateEvent event;
+            try {
+                event = GateEvent.parse(line);
+            } catch (IllegalArgumentException e) {
+                malformed.increment();
+                continue;
+            }
+            if (event != null) {
+                submit(event);
+                submitted++;
+            }
+        }
+        return submitted;
+    }
+
+    /**
+     * Throughput since the previous report and since start, then what happened to the events.
+     */
+    public synchronized String report() {
+        long now = System.nanoTime();
+        long total = processed.get();
+        double intervalSeconds = Math.max(1, now - lastReportNanos) / 1e9;
+        double totalSeconds = Math.max(1, now - startNanos) / 1e9;
+        long totalBatches = batches.get();
+        String line = String.format(
+                "events %,d in %.2fs (%,.0f/s), total %,d (%,.0f/s), avg batch %.1f, queued %d/%d%n"
+                        + "  admitted %,d, lot full %,d, duplicate entries %,d, closed %,d, unmatched exits %,d,"
+                        + " malformed %,d, failed %,d, producer stalls %,d%n",
+                total - lastReportProcessed, intervalSeconds, (total - lastReportProcessed) / intervalSeconds,
+                total, total / totalSeconds, totalBatches == 0 ? 0.0 : (double) total / totalBatches,
+                ring.size(), ring.capacity(),
+                admitted.get(), lotFull.get(), duplicateEntries.get(), closed.get(), unmatchedExits.get(),
+                malformed.sum(), failed.sum(), stalls.sum());
+        lastReportNanos = now;
+        lastReportProcessed = total;
+        return line;
+    }
+
+    public long getProcessedCount() {
+        return processed.get();
+    }
+
+    public long getBatchCount() {
+        return batches.get();
+    }
+
+    public long getAdmittedCount() {
+        return admitted.get();
+    }
+
+    public long getClosedCount() {
+        return closed.get();
+    }
+
+    public long getRejectedCount() {
+        return lotFull.get() + duplicateEntries.get() + unmatchedExits.get();
+    }
+
+    /**
+     * Events that threw while being applied to the service.
+     */
+    public long getFailedCount() {
+        return failed.sum();
+    }
+
+    public long getStallCount() {
+        return stalls.sum();
+    }
+
+    /**
+     * Applies everything already queued, then stops the consumer.
+     */
+    @Override
+    public void close() {
+        Thread thread;
+        synchronized (this) {
+            if (!running) {
+                return;
+            }
+            running = false;
+            thread = consumer;
+        }
+        try {
+            thread.join(TimeUnit.SECONDS.toMillis(10));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void runConsumer() {
+        GateEvent[] batch = new GateEvent[maxBatch];
+        try {
+            while (running || ring.size() > 0) {
+                int count = ring.drainTo(batch, maxBatch);
+                if (count == 0) {
+                    LockSupport.parkNanos(IDLE_PARK_NANOS);
+                    continue;
+                }
+                for (int i = 0; i < count; i++) {
+                    try {
+                        apply(batch[i]);
+                    } catch (RuntimeException e) {
+                        failed.increment();
+                        System.err.println("Gate event failed: " + batch[i].getType() + " " + batch[i].getPlateNumber() + ": " + e);
+                    }
+                    batch[i] = null;
+                }
+                processed.addAndGet(count);
+                batches.incrementAndGet();
+            }
+        } finally {
+            // Normally already false; after an Error it releases any camera parked in submit.
+            running = false;
+        }
+    }
+
+    private void apply(GateEvent event) {
+        if (event.getType() == GateEvent.Type.ENTRY) {
+            if (service.findActiveTicketByPlate(event.getPlateNumber()).isPresent()) {
+                duplicateEntries.incrementAndGet();
+                return;
+            }
+            VehicleInfo vehicle = new VehicleInfo(event.getPlateNumber(), "ANPR", "", event.getVehicleClass());
+            (service.assignSlot(vehicle).isPresent() ? admitted : lotFull).incrementAndGet();
+        } else {
+            Optional<ParkingTicket> ticket = service.findActiveTicketByPlate(event.getPlateNumber());
+            if (ticket.isPresent() && service.closeTicket(ticket.get().getTicketKey()).isPresent()) {
+                closed.incrementAndGet();
+            } else {
+                unmatchedExits.incrementAndGet();
+            }
+        }
+    }
+}
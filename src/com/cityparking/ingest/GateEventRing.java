@@ -0,0 +1,84 @@
+package com.cityparking.ingest;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Bounded multi-producer, single-consumer ring of gate events. Each cell carries a sequence
+ * number that says whose turn it is: producers claim a position with one CAS on the tail and
+ * publish by advancing the cell's sequence, and the consumer drains published cells in order
+ * without any lock. A full ring makes {@link #offer} fail rather than overwrite, which is what
+ * lets the pipeline push back on the cameras.
+ */
+final class GateEventRing {
+    private final GateEvent[] events;
+    private final AtomicLongArray sequences;
+    private final int mask;
+    private final AtomicLong tail = new AtomicLong();
+    private long head;
+
+    GateEventRing(int capacity) {
+        int size = Integer.highestOneBit(Math.max(2, capacity - 1)) << 1;
+        this.events = new GateEvent[size];
+        this.sequences = new AtomicLongArray(size);
+        this.mask = size - 1;
+        for (int i = 0; i < size; i++) {
+            sequences.set(i, i);
+        }
+    }
+
+    /**
+     * Appends an event, or returns false when the ring is full.
+     */
+    boolean offer(GateEvent event) {
+        long position = tail.get();
+        while (true) {
+            int index = (int) position & mask;
+            long lag = sequences.get(index) - position;
+            if (lag == 0) {
+                if (tail.compareAndSet(position, position + 1)) {
+                    events[index] = event;
+                    sequences.set(index, position + 1);
+                    return true;
+                }
+                position = tail.get();
+            } else if (lag < 0) {
+                // The cell still holds an event from the previous lap.
+                return false;
+            } else {
+                position = tail.get();
+            }
+        }
+    }
+
+    /**
+     * Moves up to {@code max} published events into {@code batch}. Consumer thread only.
+     *
+     * @return the number of events moved
+     */
+    int drainTo(GateEvent[] batch, int max) {
+        int count = 0;
+        while (count < max) {
+            int index = (int) head & mask;
+            if (sequences.get(index) != head + 1) {
+                break;
+            }
+            batch[count++] = events[index];
+            events[index] = null;
+            sequences.set(index, head + mask + 1);
+            head++;
+        }
+        return count;
+    }
+
+    int capacity() {
+        return events.length;
+    }
+
+    /**
+     * Events claimed but not yet drained; approximate while producers are active.
+     */
+    int size() {
+        return (int) Math.max(0, tail.get() - head);
+    }
+}
@@ -0,0 +1,145 @@
+package com.cityparking.journal;
+
+import com.cityparking.model.ParkingTicket;
+import com.cityparking.model.VehicleClass;
+import com.cityparking.model.VehicleInfo;
+
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.zip.CRC32C;
+
+/**
+ * One ticket event in the journal. On disk a record is framed as
+ * {@code [int payloadLength][int crc32c][payload]} so a torn tail is detected on replay.
+ */
+final class JournalRecord {
+    static final byte OPENED = 1;
+    static final byte CLOSED = 2;
+    static final int HEADER_BYTES = 8;
+
+    final byte type;
+    final long ticketKey;
+    final String slotId;
+    final String plate;
+    final String owner;
+    final String phone;
+    final byte vehicleClass;
+    final long epochSecond;
+    final int nano;
+    final long amountPaise;
+
+    private JournalRecord(byte type, long ticketKey, String slotId, String plate, String owner, String phone,
+                          byte vehicleClass, long epochSecond, int nano, long amountPaise) {
+        this.type = type;
+        this.ticketKey = ticketKey;
+        this.slotId = slotId;
+        this.plate = plate;
+        this.owner = owner;
+        this.phone = phone;
+        this.vehicleClass = vehicleClass;
+        this.epochSecond = epochSecond;
+        this.nano = nano;
+        this.amountPaise = amountPaise;
+    }
+
+    static JournalRecord opened(ParkingTicket ticket) {
+        VehicleInfo vehicle = ticket.getVehicle();
+        LocalDateTime checkIn = ticket.getCheckInTime();
+        return new JournalRecord(OPENED, ticket.getTicketKey(), ticket.getSlot().getSlotId(), vehicle.getPlateNumber(),
+                vehicle.getOwnerName(), vehicle.getPhoneNumber(), (byte) vehicle.getVehicleClass().ordinal(),
+                checkIn.toEpochSecond(ZoneOffset.UTC), checkIn.getNano(), 0);
+    }
+
+    static JournalRecord closed(ParkingTicket ticket) {
+        LocalDateTime checkOut = ticket.getCheckOutTime();
+        return new JournalRecord(CLOSED, ticket.getTicketKey(), "", "", "", "", (byte) 0,
+                checkOut.toEpochSecond(ZoneOffset.UTC), checkOut.getNano(), ticket.getAmountPaise());
+    }
+
+    /**
+     * The event time: check-in for opened tickets, check-out for closed ones.
+     */
+    LocalDateTime time() {
+        return LocalDateTime.ofEpochSecond(epochSecond, nano, ZoneOffset.UTC);
+    }
+
+    VehicleInfo vehicle() {
+        return new VehicleInfo(plate, owner, phone, VehicleClass.values()[vehicleClass]);
+    }
+
+    /**
+     * Upper bound of the framed size, used to make room in the write buffer.
+     */
+    int maxFramedSize() {
+        return HEADER_BYTES + 1 + 8 + 1 + 8 + 4 + 8 + 4 * 2
+                + 3 * (slotId.length() + plate.length() + owner.length() + phone.length());
+    }
+
+    void writeTo(ByteBuffer buffer) {
+        int start = buffer.position();
+        buffer.position(start + HEADER_BYTES);
+        buffer.put(type);
+        buffer.putLong(ticketKey);
+        putString(buffer, slotId);
+        putString(buffer, plate);
+        putString(buffer, owner);
+        putString(buffer, phone);
+        buffer.put(vehicleClass);
+        buffer.putLong(epochSecond);
+        buffer.putInt(nano);
+        buffer.putLong(amountPaise);
+        int end = buffer.position();
+        int payloadLength = end - start - HEADER_BYTES;
+        buffer.putInt(start, payloadLength);
+        buffer.putInt(start + 4, crc(buffer, start + HEADER_BYTES, payloadLength));
+    }
+
+    /**
+     * Reads the next framed record, or returns null when the remaining bytes are a torn or
+     * corrupt tail. The buffer position is left after the record on success.
+     */
+    static JournalRecord readFrom(ByteBuffer buffer) {
+        if (buffer.remaining() < HEADER_BYTES) {
+            return null;
+        }
+        int start = buffer.position();
+        int payloadLength = buffer.getInt(start);
+        int expectedCrc = buffer.getInt(start + 4);
+        if (payloadLength <= 0 || payloadLength > buffer.remaining() - HEADER_BYTES
+                || crc(buffer, start + HEADER_BYTES, payloadLength) != expectedCrc) {
+            return null;
+        }
+        ByteBuffer payload = buffer.slice(start + HEADER_BYTES, payloadLength);
+        try {
+            JournalRecord record = new JournalRecord(payload.get(), payload.getLong(), getString(payload),
+                    getString(payload), getString(payload), getString(payload),
+                    payload.get(), payload.getLong(), payload.getInt(), payload.getLong());
+            buffer.position(start + HEADER_BYTES + payloadLength);
+            return record;
+        } catch (BufferUnderflowException e) {
+            return null;
+        }
+    }
+
+    private static int crc(ByteBuffer buffer, int offset, int length) {
+        CRC32C crc = new CRC32C();
+        crc.update(buffer.slice(offset, length));
+        return (int) crc.getValue();
+    }
+
+    static void putString(ByteBuffer buffer, String value) {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        buffer.putShort((short) bytes.length);
+        buffer.put(bytes);
+    }
+
+    static String getString(ByteBuffer buffer) {
+        int length = Short.toUnsignedInt(buffer.getShort());
+        byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
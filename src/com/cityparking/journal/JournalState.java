@@ -0,0 +1,160 @@
+package com.cityparking.journal;
+
+import com.cityparking.model.VehicleClass;
+
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * The ticket state implied by a prefix of the journal: open tickets and the revenue collected on
+ * the day of the latest exit, kept per slot and vehicle class so the service's revenue breakdown
+ * for today survives a restart. The first exit of a later day clears it. Folding records into it
+ * is how both recovery and checkpointing work, so a checkpoint never has to pause the live
+ * service.
+ */
+final class JournalState {
+    private static final int CHECKPOINT_MAGIC = 0x504B4350; // "PKCP"
+    private static final int CHECKPOINT_FORMAT = 6;
+    static final long NO_DAY = Long.MIN_VALUE;
+    private static final int CLASSES = VehicleClass.values().length;
+
+    private final Map<Long, JournalRecord> openTickets = new LinkedHashMap<>();
+    private final Map<String, long[]> revenueBySlot = new LinkedHashMap<>();
+    private long closedTickets;
+    private long revenueDay = NO_DAY;
+
+    void apply(JournalRecord record) {
+        if (record.type == JournalRecord.OPENED) {
+            openTickets.put(record.ticketKey, record);
+        } else if (record.type == JournalRecord.CLOSED) {
+            JournalRecord opened = openTickets.remove(record.ticketKey);
+            if (opened != null) {
+                long day = Math.floorDiv(record.epochSecond, 86_400);
+                if (day > revenueDay) {
+                    revenueBySlot.clear();
+                    revenueDay = day;
+                }
+                addRevenue(opened.slotId, opened.vehicleClass, record.amountPaise);
+                closedTickets++;
+            }
+        }
+    }
+
+    Collection<JournalRecord> openTickets() {
+        return openTickets.values();
+    }
+
+    /**
+     * Revenue in paise per slot id, each array indexed by vehicle class ordinal.
+     */
+    Map<String, long[]> revenueBySlot() {
+        return revenueBySlot;
+    }
+
+    /**
+     * Epoch day that {@link #revenueBySlot()} covers, or {@link #NO_DAY}.
+     */
+    long revenueDay() {
+        return revenueDay;
+    }
+
+    long closedTickets() {
+        return closedTickets;
+    }
+
+    private void addRevenue(String slotId, int vehicleClass, long paise) {
+        revenueBySlot.computeIfAbsent(slotId, key -> new long[CLASSES])[vehicleClass] += paise;
+    }
+
+    /**
+     * Atomically replaces {@code file} with this state, noting the first segment still to replay.
+     */
+    void writeCheckpoint(Path file, long firstSegment) throws IOException {
+        int size = 64;
+        for (JournalRecord record : openTickets.values()) {
+            size += record.maxFramedSize();
+        }
+        for (Map.Entry<String, long[]> slot : revenueBySlot.entrySet()) {
+            size += 4 + 3 * slot.getKey().length() + 10 * CLASSES;
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(size);
+        buffer.putInt(CHECKPOINT_MAGIC);
+        buffer.putInt(CHECKPOINT_FORMAT);
+        buffer.putLong(firstSegment);
+        buffer.putLong(closedTickets);
+        buffer.putLong(revenueDay);
+        buffer.putInt(openTickets.size());
+        openTickets.values().forEach(record -> record.writeTo(buffer));
+        buffer.putInt(revenueBySlot.size());
+        revenueBySlot.forEach((slotId, byClass) -> {
+            JournalRecord.putString(buffer, slotId);
+            int countPosition = buffer.position();
+            short nonZero = 0;
+            buffer.putShort(nonZero);
+            for (int vehicleClass = 0; vehicleClass < byClass.length; vehicleClass++) {
+                if (byClass[vehicleClass] != 0) {
+                    buffer.putShort((short) vehicleClass);
+                    buffer.putLong(byClass[vehicleClass]);
+                    nonZero++;
+                }
+            }
+            buffer.putShort(countPosition, nonZero);
+        });
+        buffer.flip();
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            channel.force(true);
+        }
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Loads a checkpoint into this (empty) state.
+     *
+     * @return the first segment number that must be replayed on top of it
+     */
+    long readCheckpoint(Path file) throws IOException {
+        ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(file));
+        if (buffer.remaining() < 36 || buffer.getInt() != CHECKPOINT_MAGIC || buffer.getInt() != CHECKPOINT_FORMAT) {
+            throw new IOException("Unrecognised journal checkpoint " + file);
+        }
+        long firstSegment = buffer.getLong();
+        closedTickets = buffer.getLong();
+        revenueDay = buffer.getLong();
+        int count = buffer.getInt();
+        for (int i = 0; i < count; i++) {
+            JournalRecord record = JournalRecord.readFrom(buffer);
+            if (record == null) {
+                throw new IOException("Corrupt journal checkpoint " + file);
+            }
+            openTickets.put(record.ticketKey, record);
+        }
+        try {
+            int slots = buffer.getInt();
+            for (int i = 0; i < slots; i++) {
+                String slotId = JournalRecord.getString(buffer);
+                int cells = buffer.getShort();
+                for (int j = 0; j < cells; j++) {
+                    int vehicleClass = buffer.getShort();
+                    addRevenue(slotId, vehicleClass, buffer.getLong());
+                }
+            }
+        } catch (BufferUnderflowException | IndexOutOfBoundsException e) {
+            throw new IOException("Corrupt journal checkpoint " + file, e);
+        }
+        return firstSegment;
+    }
+}
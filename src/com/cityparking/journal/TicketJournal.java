@@ -0,0 +1,372 @@
+package com.cityparking.journal;
+
+import com.cityparking.model.ParkingTicket;
+import com.cityparking.model.TicketIds;
+import com.cityparking.model.VehicleClass;
+import com.cityparking.service.ParkingService;
+import com.cityparking.service.TicketListener;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Stream;
+
+/**
+ * Append-only binary journal of ticket opens and closes. Gate threads only enqueue records;
+ * a single writer thread batches them into one {@link FileChannel} write and fsyncs once per
+ * {@code syncBatchSize} records or {@code syncInterval}, whichever comes first (group commit).
+ * Every {@code checkpointEveryRecords} records the writer rolls to a new segment and stores the
+ * folded state as a compact checkpoint, so recovery loads the checkpoint and replays only the
+ * segments written after it.
+ * <p>
+ * A gate is not let through until its record is queued: when the writer is a full queue behind,
+ * the gate waits for room, so a slow disk slows the gates rather than losing records. Only a
+ * record that arrives after the journal closed or its writer failed is dropped, and it is
+ * counted in {@link #getDroppedCount()}. On close or failure the journal also stops listening
+ * to the service.
+ */
+public class TicketJournal implements TicketListener, AutoCloseable {
+    private static final String CHECKPOINT_FILE = "checkpoint.bin";
+    private static final String SEGMENT_PREFIX = "segment-";
+    private static final String SEGMENT_SUFFIX = ".journal";
+    private static final int QUEUE_CAPACITY = 64 * 1024;
+    private static final int MAX_BATCH = 4096;
+    private static final long RUNNING_CHECK_MILLIS = 100;
+
+    private final Path directory;
+    private final long syncIntervalNanos;
+    private final int syncBatchSize;
+    private final long checkpointEveryRecords;
+    private final BlockingQueue<JournalRecord> queue = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+    private final AtomicBoolean running = new AtomicBoolean();
+    private final AtomicBoolean checkpointRequested = new AtomicBoolean();
+    private final AtomicLong recordsWritten = new AtomicLong();
+    private final AtomicLong syncs = new AtomicLong();
+    private final AtomicLong checkpoints = new AtomicLong();
+    private final LongAdder dropped = new LongAdder();
+    private final ByteBuffer writeBuffer = ByteBuffer.allocateDirect(256 * 1024);
+    private volatile ParkingService service;
+    private JournalState state;
+    private FileChannel channel;
+    private long segment;
+    private Thread writer;
+
+    public TicketJournal(Path directory, Duration syncInterval, int syncBatchSize, long checkpointEveryRecords) {
+        this.directory = directory;
+        this.syncIntervalNanos = syncInterval.toNanos();
+        this.syncBatchSize = Math.max(1, syncBatchSize);
+        this.checkpointEveryRecords = Math.max(1, checkpointEveryRecords);
+    }
+
+    /**
+     * Restores the journalled state into {@code service}, checkpoints it, then starts journalling
+     * the service's ticket events. Call once, before the service takes traffic.
+     */
+    public synchronized RecoveryResult open(ParkingService service) throws IOException {
+        if (state != null) {
+            throw new IllegalStateException("Journal already open");
+        }
+        long start = System.nanoTime();
+        Files.createDirectories(directory);
+        JournalState recovered = new JournalState();
+        Path checkpointFile = directory.resolve(CHECKPOINT_FILE);
+        long firstSegment = Files.exists(checkpointFile) ? recovered.readCheckpoint(checkpointFile) : 1;
+        long replayed = 0;
+        long lastSegment = firstSegment - 1;
+        for (long number : segmentNumbers()) {
+            lastSegment = Math.max(lastSegment, number);
+            if (number >= firstSegment) {
+                replayed += replay(segmentFile(number), recovered);
+            }
+        }
+        int restored = 0;
+        for (JournalRecord record : recovered.openTickets()) {
+            if (service.restoreTicket(record.ticketKey, record.slotId, record.vehicle(), record.time())) {
+                restored++;
+            }
+        }
+        // Only today's revenue goes back into the ledger; earlier days stay on record in the
+        // archive.
+        if (recovered.revenueDay() == LocalDate.now().toEpochDay()) {
+            LocalDate today = LocalDate.now();
+            VehicleClass[] classes = VehicleClass.values();
+            recovered.revenueBySlot().forEach((slotId, byClass) -> {
+                for (int vehicleClass = 0; vehicleClass < byClass.length; vehicleClass++) {
+                    if (byClass[vehicleClass] != 0) {
+                        service.restoreRevenue(today, slotId, classes[vehicleClass], byClass[vehicleClass]);
+                    }
+                }
+            });
+        }
+
+        state = recovered;
+        segment = lastSegment + 1;
+        channel = openSegment(segment);
+        state.writeCheckpoint(checkpointFile, segment);
+        deleteSegmentsBefore(segment);
+        this.service = service;
+        running.set(true);
+        writer = new Thread(this::runWriter, "ticket-journal");
+        writer.setDaemon(true);
+        writer.start();
+        service.addTicketListener(this);
+        return new RecoveryResult(restored, replayed, recovered.closedTickets(), Duration.ofNanos(System.nanoTime() - start));
+    }
+
+    @Override
+    public void ticketOpened(ParkingTicket ticket) {
+        enqueue(JournalRecord.opened(ticket));
+    }
+
+    @Override
+    public void ticketClosed(ParkingTicket ticket) {
+        enqueue(JournalRecord.closed(ticket));
+    }
+
+    /**
+     * Asks the writer to roll the segment and write a checkpoint at its next opportunity.
+     */
+    public void checkpoint() {
+        checkpointRequested.set(true);
+    }
+
+    public long getRecordsWritten() {
+        return recordsWritten.get();
+    }
+
+    public long getSyncCount() {
+        return syncs.get();
+    }
+
+    public long getCheckpointCount() {
+        return checkpoints.get();
+    }
+
+    /**
+     * Records that were never journalled: they arrived after close or after the writer failed.
+     */
+    public long getDroppedCount() {
+        return dropped.sum();
+    }
+
+    /**
+     * Writes and fsyncs everything queued, then stops the writer.
+     */
+    @Override
+    public void close() {
+        if (!running.compareAndSet(true, false)) {
+            return;
+        }
+        detach();
+        try {
+            writer.join(TimeUnit.SECONDS.toMillis(10));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Blocks the gate until the record is queued, waking every {@value #RUNNING_CHECK_MILLIS} ms
+     * to stop waiting once the journal has closed or failed.
+     */
+    private void enqueue(JournalRecord record) {
+        try {
+            while (running.get()) {
+                if (!queue.offer(record, RUNNING_CHECK_MILLIS, TimeUnit.MILLISECONDS)) {
+                    continue;
+                }
+                // The writer may have drained its last batch between the check and the offer; a
+                // record it will never see is taken back and counted here instead.
+                if (!running.get() && queue.remove(record)) {
+                    break;
+                }
+                return;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        dropped.increment();
+        System.err.println("Ticket journal not running, dropped record for " + TicketIds.format(record.ticketKey));
+    }
+
+    private void detach() {
+        ParkingService attached = service;
+        if (attached != null) {
+            attached.removeTicketListener(this);
+        }
+    }
+
+    private void runWriter() {
+        List<JournalRecord> batch = new ArrayList<>(MAX_BATCH);
+        long unsynced = 0;
+        long sinceCheckpoint = 0;
+        long lastSync = System.nanoTime();
+        try {
+            while (running.get() || !queue.isEmpty()) {
+                JournalRecord first = queue.poll(Math.max(1, syncIntervalNanos), TimeUnit.NANOSECONDS);
+                if (first != null) {
+                    batch.add(first);
+                    queue.drainTo(batch, MAX_BATCH - 1);
+                    for (JournalRecord record : batch) {
+                        append(record);
+                        state.apply(record);
+                    }
+                    flushBuffer();
+                    recordsWritten.addAndGet(batch.size());
+                    unsynced += batch.size();
+                    sinceCheckpoint += batch.size();
+                    batch.clear();
+                }
+                long now = System.nanoTime();
+                if (unsynced > 0 && (unsynced >= syncBatchSize || now - lastSync >= syncIntervalNanos)) {
+                    sync();
+                    unsynced = 0;
+                    lastSync = now;
+                }
+                if (sinceCheckpoint >= checkpointEveryRecords || checkpointRequested.getAndSet(false)) {
+                    rollAndCheckpoint();
+                    unsynced = 0;
+                    sinceCheckpoint = 0;
+                }
+            }
+            sync();
+            channel.close();
+        } catch (IOException e) {
+            running.set(false);
+            detach();
+            batch.clear();
+            dropped.add(queue.drainTo(batch));
+            System.err.println("Ticket journal stopped: " + e.getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void append(JournalRecord record) throws IOException {
+        if (writeBuffer.remaining() < record.maxFramedSize()) {
+            flushBuffer();
+        }
+        record.writeTo(writeBuffer);
+    }
+
+    private void flushBuffer() throws IOException {
+        writeBuffer.flip();
+        while (writeBuffer.hasRemaining()) {
+            channel.write(writeBuffer);
+        }
+        writeBuffer.clear();
+    }
+
+    private void sync() throws IOException {
+        channel.force(false);
+        syncs.incrementAndGet();
+    }
+
+    private void rollAndCheckpoint() throws IOException {
+        sync();
+        channel.close();
+        segment++;
+        channel = openSegment(segment);
+        state.writeCheckpoint(directory.resolve(CHECKPOINT_FILE), segment);
+        deleteSegmentsBefore(segment);
+        checkpoints.incrementAndGet();
+    }
+
+    private FileChannel openSegment(long number) throws IOException {
+        return FileChannel.open(segmentFile(number), StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+    }
+
+    private Path segmentFile(long number) {
+        return directory.resolve(SEGMENT_PREFIX + String.format("%010d", number) + SEGMENT_SUFFIX);
+    }
+
+    private List<Long> segmentNumbers() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.map(path -> path.getFileName().toString())
+                    .filter(name -> name.startsWith(SEGMENT_PREFIX) && name.endsWith(SEGMENT_SUFFIX))
+                    .map(name -> Long.parseLong(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length())))
+                    .sorted()
+                    .toList();
+        }
+    }
+
+    private void deleteSegmentsBefore(long number) throws IOException {
+        for (long existing : segmentNumbers()) {
+            if (existing < number) {
+                Files.deleteIfExists(segmentFile(existing));
+            }
+        }
+    }
+
+    /**
+     * Replays one segment, stopping quietly at a torn or corrupt tail left by a crash.
+     */
+    private static long replay(Path file, JournalState target) throws IOException {
+        try (FileChannel in = FileChannel.open(file, StandardOpenOption.READ)) {
+            if (in.size() == 0) {
+                return 0;
+            }
+            MappedByteBuffer buffer = in.map(FileChannel.MapMode.READ_ONLY, 0, in.size());
+            long count = 0;
+            JournalRecord record;
+            while ((record = JournalRecord.readFrom(buffer)) != null) {
+                target.apply(record);
+                count++;
+            }
+            return count;
+        }
+    }
+
+    /**
+     * What {@link #open} restored.
+     */
+    public static final class RecoveryResult {
+        private final int restoredTickets;
+        private final long replayedRecords;
+        private final long closedTickets;
+        private final Duration elapsed;
+
+        RecoveryResult(int restoredTickets, long replayedRecords, long closedTickets, Duration elapsed) {
+            this.restoredTickets = restoredTickets;
+            this.replayedRecords = replayedRecords;
+            this.closedTickets = closedTickets;
+            this.elapsed = elapsed;
+        }
+
+        public int getRestoredTickets() {
+            return restoredTickets;
+        }
+
+        public long getReplayedRecords() {
+            return replayedRecords;
+        }
+
+        public long getClosedTickets() {
+            return closedTickets;
+        }
+
+        public Duration getElapsed() {
+            return elapsed;
+        }
+
+        @Override
+        public String toString() {
+            return "restored " + restoredTickets + " active tickets (" + replayedRecords + " journal records replayed, "
+                    + closedTickets + " closed tickets on record) in " + elapsed.toMillis() + " ms";
+        }
+    }
+}
@@ -0,0 +1,8 @@
+package com.cityparking.latency;
+
+/**
+ * JMX view of the free-slot pool: how many slots are queued for allocation.
+ */
+public interface FreeSlotsMXBean {
+    long getFreeSlots();
+}
@@ -0,0 +1,27 @@
+package com.cityparking.latency;
+
+/**
+ * Process-wide latency histograms, one per {@link Operation}. Instrumented code takes
+ * {@code System.nanoTime()} on entry and calls {@link #record} on exit, which costs a second
+ * clock read and a lock-free histogram update.
+ */
+public final class Latencies {
+    private static final LatencyHistogram[] HISTOGRAMS = new LatencyHistogram[Operation.values().length];
+
+    static {
+        for (int i = 0; i < HISTOGRAMS.length; i++) {
+            HISTOGRAMS[i] = new LatencyHistogram();
+        }
+    }
+
+    private Latencies() {
+    }
+
+    public static void record(Operation operation, long startNanos) {
+        HISTOGRAMS[operation.ordinal()].record(System.nanoTime() - startNanos);
+    }
+
+    public static LatencyHistogram of(Operation operation) {
+        return HISTOGRAMS[operation.ordinal()];
+    }
+}
@@ -0,0 +1,163 @@
+package com.cityparking.latency;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/**
+ * Publishes {@link Latencies} and the free-slot depth. {@link #registerMBeans()} exposes them
+ * under {@code com.cityparking:type=Latency,name=<operation>} and
+ * {@code com.cityparking:type=FreeSlots}; {@link #start(PrintStream)} also prints one line per
+ * operation every interval, with percentiles for that interval and running totals.
+ */
+public class LatencyReporter implements AutoCloseable {
+    private static final Operation[] OPERATIONS = Operation.values();
+
+    private final Duration interval;
+    private final LongSupplier freeSlots;
+    private final LatencyHistogram.Snapshot[] previous = new LatencyHistogram.Snapshot[OPERATIONS.length];
+    private final List<ObjectName> registered = new ArrayList<>();
+    private ScheduledExecutorService executor;
+
+    public LatencyReporter(Duration interval, LongSupplier freeSlots) {
+        this.interval = interval;
+        this.freeSlots = freeSlots;
+    }
+
+    public synchronized void registerMBeans() throws JMException {
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        for (Operation operation : OPERATIONS) {
+            ObjectName name = new ObjectName("com.cityparking:type=Latency,name=" + operation.name());
+            server.registerMBean(new LatencyStats(Latencies.of(operation)), name);
+            registered.add(name);
+        }
+        ObjectName name = new ObjectName("com.cityparking:type=FreeSlots");
+        server.registerMBean(new FreeSlots(freeSlots), name);
+        registered.add(name);
+    }
+
+    public synchronized void start(PrintStream out) {
+        if (executor != null) {
+            return;
+        }
+        for (Operation operation : OPERATIONS) {
+            previous[operation.ordinal()] = Latencies.of(operation).snapshot();
+        }
+        executor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "latency-reporter");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long millis = interval.toMillis();
+        executor.scheduleAtFixedRate(() -> out.print(report()), millis, millis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * One line per operation for the interval since the previous report, then the free-slot depth.
+     */
+    public synchronized String report() {
+        StringBuilder sb = new StringBuilder();
+        for (Operation operation : OPERATIONS) {
+            LatencyHistogram.Snapshot now = Latencies.of(operation).snapshot();
+            LatencyHistogram.Snapshot window = previous[operation.ordinal()] == null
+                    ? now : now.since(previous[operation.ordinal()]);
+            previous[operation.ordinal()] = now;
+            sb.append(String.format("%-15s n=%-8d p50=%8.1fus p99=%8.1fus p99.9=%8.1fus max=%8.1fus total=%d%n",
+                    operation.name(),
+                    window.getCount(),
+                    micros(window.getValueAtPercentile(50)),
+                    micros(window.getValueAtPercentile(99)),
+                    micros(window.getValueAtPercentile(99.9)),
+                    micros(window.getMaxNanos()),
+                    now.getCount()));
+        }
+        sb.append("free slots: ").append(freeSlots.getAsLong()).append(System.lineSeparator());
+        return sb.toString();
+    }
+
+    @Override
+    public synchronized void close() {
+        if (executor != null) {
+            executor.shutdownNow();
+            executor = null;
+        }
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        for (ObjectName name : registered) {
+            try {
+                server.unregisterMBean(name);
+            } catch (JMException e) {
+                // Already gone.
+            }
+        }
+        registered.clear();
+    }
+
+    private static double micros(long nanos) {
+        return nanos / 1000.0;
+    }
+
+    private static final class FreeSlots implements FreeSlotsMXBean {
+        private final LongSupplier freeSlots;
+
+        FreeSlots(LongSupplier freeSlots) {
+            this.freeSlots = freeSlots;
+        }
+
+        @Override
+        public long getFreeSlots() {
+            return freeSlots.getAsLong();
+        }
+    }
+
+    private static final class LatencyStats implements LatencyStatsMXBean {
+        private final LatencyHistogram histogram;
+
+        LatencyStats(LatencyHistogram histogram) {
+            this.histogram = histogram;
+        }
+
+        @Override
+        public long getCount() {
+            return histogram.snapshot().getCount();
+        }
+
+        @Override
+        public double getMeanMicros() {
+            return micros(histogram.snapshot().getMeanNanos());
+        }
+
+        @Override
+        public double getP50Micros() {
+            return micros(histogram.snapshot().getValueAtPercentile(50));
+        }
+
+        @Override
+        public double getP90Micros() {
+            return micros(histogram.snapshot().getValueAtPercentile(90));
+        }
+
+        @Override
+        public double getP99Micros() {
+            return micros(histogram.snapshot().getValueAtPercentile(99));
+        }
+
+        @Override
+        public double getP999Micros() {
+            return micros(histogram.snapshot().getValueAtPercentile(99.9));
+        }
+
+        @Override
+        public double getMaxMicros() {
+            return micros(histogram.snapshot().getMaxNanos());
+        }
+    }
+}
@@ -0,0 +1,20 @@
+package com.cityparking.latency;
+
+/**
+ * JMX view of one operation's latency since start-up, in microseconds.
+ */
+public interface LatencyStatsMXBean {
+    long getCount();
+
+    double getMeanMicros();
+
+    double getP50Micros();
+
+    double getP90Micros();
+
+    double getP99Micros();
+
+    double getP999Micros();
+
+    double getMaxMicros();
+}
@@ -0,0 +1,12 @@
+package com.cityparking.latency;
+
+/**
+ * Hot-path operations whose latency is recorded.
+ */
+public enum Operation {
+    ASSIGN_SLOT,
+    ASSIGN_SLOT_TO,
+    CLOSE_TICKET,
+    FIND_BY_PLATE,
+    SNAPSHOT_WRITE
+}
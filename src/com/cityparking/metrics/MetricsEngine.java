@@ -0,0 +1,156 @@
+package com.cityparking.metrics;
+
+import com.cityparking.model.ParkingLot;
+import com.cityparking.model.ParkingSlot;
+import com.cityparking.model.ParkingTicket;
+import com.cityparking.model.SlotListener;
+import com.cityparking.service.TicketListener;
+
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.zone.ZoneRules;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * In-process time series of lot activity: arrivals, exits, revenue and dwell-time histograms
+ * from ticket events, and peak occupancy per floor from slot events. Every series is kept in
+ * fixed {@link RollupRing}s at minute, hour and day resolution, so memory is bounded however
+ * long the process runs and a query costs one pass over the requested buckets. Buckets follow
+ * the local wall clock, with the zone offset looked up for each record so buckets stay aligned
+ * across daylight-saving changes.
+ * <p>
+ * Register it as both a slot listener on the lot and a ticket listener on the service before
+ * the lot takes traffic; floor levels start from the lot's occupancy at construction.
+ */
+public class MetricsEngine implements TicketListener, SlotListener {
+    private static final int ARRIVALS = 0;
+    private static final int EXITS = 1;
+    private static final int REVENUE = 2;
+    private static final int DWELL = 3;
+    private static final long[] DWELL_LIMIT_MINUTES = {15, 30, 60, 120, 240, 480, 1440};
+    private static final List<String> DWELL_LABELS = List.of("<15m", "<30m", "<1h", "<2h", "<4h", "<8h", "<24h", "24h+");
+    private static final Resolution[] RESOLUTIONS = Resolution.values();
+
+    private final ZoneRules zoneRules;
+    private final RollupRing[] traffic = new RollupRing[RESOLUTIONS.length];
+    private final Map<Integer, FloorSeries> floors = new ConcurrentSkipListMap<>();
+
+    public MetricsEngine(ParkingLot parkingLot) {
+        this.zoneRules = ZoneId.systemDefault().getRules();
+        for (Resolution resolution : RESOLUTIONS) {
+            traffic[resolution.ordinal()] = new RollupRing(resolution, DWELL + DWELL_LABELS.size());
+        }
+        parkingLot.getFloorOccupancy().forEach(floor -> floors.put(floor.getFloor(), new FloorSeries(floor.getOccupiedSlots())));
+    }
+
+    @Override
+    public void ticketOpened(ParkingTicket ticket) {
+        long now = now();
+        for (RollupRing ring : traffic) {
+            ring.add(now, ARRIVALS, 1);
+        }
+    }
+
+    @Override
+    public void ticketClosed(ParkingTicket ticket) {
+        long now = now();
+        int dwellColumn = DWELL + dwellBin(ticket.getDuration().toMinutes());
+        long paise = ticket.getAmountPaise();
+        for (RollupRing ring : traffic) {
+            ring.add(now, EXITS, 1);
+            ring.add(now, REVENUE, paise);
+            ring.add(now, dwellColumn, 1);
+        }
+    }
+
+    @Override
+    public void slotChanged(ParkingSlot slot) {
+        floors.computeIfAbsent(slot.getFloor(), floor -> new FloorSeries(0)).record(now(), slot.isOccupied() ? 1 : -1);
+    }
+
+    /**
+     * Arrivals per bucket over the last {@code buckets} buckets, oldest first, ending with the
+     * current (partial) bucket.
+     */
+    public long[] getArrivals(Resolution resolution, int buckets) {
+        return traffic[resolution.ordinal()].column(now(), ARRIVALS, buckets);
+    }
+
+    public long[] getExits(Resolution resolution, int buckets) {
+        return traffic[resolution.ordinal()].column(now(), EXITS, buckets);
+    }
+
+    public long[] getRevenuePaise(Resolution resolution, int buckets) {
+        return traffic[resolution.ordinal()].column(now(), REVENUE, buckets);
+    }
+
+    /**
+     * Exits per dwell-time bin (see {@link #getDwellBinLabels()}) over the last {@code buckets}
+     * buckets.
+     */
+    public long[] getDwellHistogram(Resolution resolution, int buckets) {
+        return traffic[resolution.ordinal()].sum(now(), DWELL, DWELL_LABELS.size(), buckets);
+    }
+
+    public static List<String> getDwellBinLabels() {
+        return DWELL_LABELS;
+    }
+
+    /**
+     * Highest number of occupied slots on {@code floor} in each bucket, oldest first.
+     */
+    public long[] getPeakOccupancy(int floor, Resolution resolution, int buckets) {
+        FloorSeries series = floors.get(floor);
+        if (series == null) {
+            return new long[Math.min(buckets, resolution.getCapacity())];
+        }
+        return series.peaks(now(), resolution, buckets);
+    }
+
+    public List<Integer> getFloors() {
+        return List.copyOf(floors.keySet());
+    }
+
+    private long now() {
+        long millis = System.currentTimeMillis();
+        return millis + zoneRules.getOffset(Instant.ofEpochMilli(millis)).getTotalSeconds() * 1000L;
+    }
+
+    private static int dwellBin(long minutes) {
+        for (int bin = 0; bin < DWELL_LIMIT_MINUTES.length; bin++) {
+            if (minutes < DWELL_LIMIT_MINUTES[bin]) {
+                return bin;
+            }
+        }
+        return DWELL_LIMIT_MINUTES.length;
+    }
+
+    /**
+     * Occupancy level of one floor and its gauge rings.
+     */
+    private static final class FloorSeries {
+        private final RollupRing[] rings = new RollupRing[RESOLUTIONS.length];
+        private long occupied;
+
+        FloorSeries(long occupied) {
+            this.occupied = occupied;
+            for (Resolution resolution : RESOLUTIONS) {
+                rings[resolution.ordinal()] = new RollupRing(resolution, 0);
+            }
+        }
+
+        synchronized void record(long now, int delta) {
+            long before = occupied;
+            occupied += delta;
+            for (RollupRing ring : rings) {
+                ring.gauge(now, before, occupied);
+            }
+        }
+
+        synchronized long[] peaks(long now, Resolution resolution, int buckets) {
+            return rings[resolution.ordinal()].peaks(now, buckets, occupied);
+        }
+    }
+}
@@ -0,0 +1,29 @@
+package com.cityparking.metrics;
+
+/**
+ * Bucket width of a rollup ring and how many buckets it retains.
+ */
+public enum Resolution {
+    MINUTE(60_000L, 180),
+    HOUR(3_600_000L, 72),
+    DAY(86_400_000L, 90);
+
+    private final long periodMillis;
+    private final int capacity;
+
+    Resolution(long periodMillis, int capacity) {
+        this.periodMillis = periodMillis;
+        this.capacity = capacity;
+    }
+
+    public long getPeriodMillis() {
+        return periodMillis;
+    }
+
+    /**
+     * Number of buckets retained, i.e. the longest window a query can return.
+     */
+    public int getCapacity() {
+        return capacity;
+    }
+}
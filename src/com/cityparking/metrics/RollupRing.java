@@ -0,0 +1,150 @@
+package com.cityparking.metrics;
+
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Fixed ring of time buckets, each a row of {@code width} counters. A slot is reused for a new
+ * period the first time that period is written, by swapping in a fresh bucket, so memory never
+ * grows and stale periods are recognised by their period number instead of being swept. Queries
+ * walk at most {@link Resolution#getCapacity()} buckets.
+ * <p>
+ * Counters are {@link LongAdder}s and a new bucket is installed with one compare-and-set, so
+ * concurrent {@link #add} calls never lock or lose an update, including across a rollover. A
+ * write that arrives a whole ring late, after its slot has moved on, is dropped. Gauge rings
+ * ({@code width} 0) keep a peak and a starting level per bucket instead, and rely on the caller
+ * to serialise {@link #gauge} and {@link #peaks}.
+ */
+final class RollupRing {
+    private final long periodMillis;
+    private final int capacity;
+    private final int width;
+    private final AtomicReferenceArray<Bucket> buckets;
+
+    RollupRing(Resolution resolution, int width) {
+        this.periodMillis = resolution.getPeriodMillis();
+        this.capacity = resolution.getCapacity();
+        this.width = width;
+        this.buckets = new AtomicReferenceArray<>(capacity);
+    }
+
+    void add(long nowMillis, int column, long delta) {
+        Bucket bucket = bucketFor(Math.floorDiv(nowMillis, periodMillis));
+        if (bucket != null) {
+            bucket.counts[column].add(delta);
+        }
+    }
+
+    /**
+     * Records a gauge moving from {@code before} to {@code after}, keeping the peak and the level
+     * at the first change of the bucket.
+     */
+    void gauge(long nowMillis, long before, long after) {
+        long period = Math.floorDiv(nowMillis, periodMillis);
+        Bucket bucket = buckets.get(Math.floorMod(period, capacity));
+        if (bucket == null || bucket.period != period) {
+            bucket = bucketFor(period);
+            if (bucket == null) {
+                return;
+            }
+            bucket.start = before;
+            bucket.peak = before;
+        }
+        bucket.peak = Math.max(bucket.peak, after);
+    }
+
+    /**
+     * One column over the last {@code buckets} periods ending with the current one, oldest first.
+     * Periods nobody wrote to read as zero.
+     */
+    long[] column(long nowMillis, int column, int buckets) {
+        long current = Math.floorDiv(nowMillis, periodMillis);
+        int count = Math.min(buckets, capacity);
+        long[] series = new long[count];
+        for (int i = 0; i < count; i++) {
+            Bucket bucket = bucket(current - (count - 1 - i));
+            series[i] = bucket != null ? bucket.counts[column].sum() : 0;
+        }
+        return series;
+    }
+
+    /**
+     * Sums columns {@code [from, from + length)} over the last {@code buckets} periods.
+     */
+    long[] sum(long nowMillis, int from, int length, int buckets) {
+        long current = Math.floorDiv(nowMillis, periodMillis);
+        int count = Math.min(buckets, capacity);
+        long[] totals = new long[length];
+        for (long period = current - count + 1; period <= current; period++) {
+            Bucket bucket = bucket(period);
+            if (bucket != null) {
+                for (int column = 0; column < length; column++) {
+                    totals[column] += bucket.counts[from + column].sum();
+                }
+            }
+        }
+        return totals;
+    }
+
+    /**
+     * Peak gauge level per period, oldest first. A period with no change held the level that
+     * the next change started from, so the walk runs newest to oldest carrying that level back,
+     * starting from {@code currentLevel}.
+     */
+    long[] peaks(long nowMillis, int buckets, long currentLevel) {
+        long current = Math.floorDiv(nowMillis, periodMillis);
+        int count = Math.min(buckets, capacity);
+        long[] series = new long[count];
+        long level = currentLevel;
+        for (int i = count - 1; i >= 0; i--) {
+            Bucket bucket = bucket(current - (count - 1 - i));
+            if (bucket != null) {
+                series[i] = bucket.peak;
+                level = bucket.start;
+            } else {
+                series[i] = level;
+            }
+        }
+        return series;
+    }
+
+    /**
+     * The bucket holding {@code period}, or null if nothing was written to it.
+     */
+    private Bucket bucket(long period) {
+        Bucket bucket = buckets.get(Math.floorMod(period, capacity));
+        return bucket != null && bucket.period == period ? bucket : null;
+    }
+
+    /**
+     * The bucket for {@code period}, installing a fresh one over an older period; null when the
+     * slot already holds a later period.
+     */
+    private Bucket bucketFor(long period) {
+        int slot = Math.floorMod(period, capacity);
+        Bucket bucket = buckets.get(slot);
+        while (bucket == null || bucket.period < period) {
+            Bucket fresh = new Bucket(period, width);
+            if (buckets.compareAndSet(slot, bucket, fresh)) {
+                return fresh;
+            }
+            bucket = buckets.get(slot);
+        }
+        return bucket.period == period ? bucket : null;
+    }
+
+    private static final class Bucket {
+        private final long period;
+        private final LongAdder[] counts;
+        private long peak;
+        private long start;
+
+        Bucket(long period, int width) {
+            this.period = period;
+            this.counts = new LongAdder[width];
+            for (int i = 0; i < width; i++) {
+                counts[i] = new LongAdder();
+            }
+        }
+    }
+}
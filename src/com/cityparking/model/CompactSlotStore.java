@@ -0,0 +1,187 @@
+package com.cityparking.model;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Optional compact representation of slot state for city-scale deployments. Occupancy lives in
+ * a bitset, the start time in a {@code long} of epoch nanoseconds and the plate in an interned
+ * {@code int}, all in parallel arrays indexed by slot. The {@link ParkingSlot} instances it hands
+ * out are subclasses that keep the slot's identity, which comparisons read on every allocator
+ * step, but route occupancy to the store: they never hold a vehicle or {@link LocalDateTime}, and
+ * rebuild them only when asked. Capacity is fixed at construction, and all of a store's slots
+ * belong to one lot.
+ */
+public class CompactSlotStore {
+    private static final int NO_PLATE = -1;
+
+    private final AtomicLongArray occupiedBits;
+    private final long[] startNanos;
+    private final int[] plateIds;
+    private final PlateRegistry plates;
+    private volatile ParkingLot lot;
+    private int size;
+
+    public CompactSlotStore(int capacity) {
+        this(capacity, new PlateRegistry());
+    }
+
+    public CompactSlotStore(int capacity, PlateRegistry plates) {
+        this.occupiedBits = new AtomicLongArray((capacity + 63) >>> 6);
+        this.startNanos = new long[capacity];
+        this.plateIds = new int[capacity];
+        this.plates = plates;
+    }
+
+    /**
+     * Creates a slot whose state is held in this store.
+     *
+     * @throws IllegalStateException when the store is full
+     */
+    public ParkingSlot newSlot(String slotId, int floor, int distance) {
+        return newSlot(slotId, floor, distance, SlotType.STANDARD);
+    }
+
+    /**
+     * Creates a slot of the given type whose state is held in this store.
+     *
+     * @throws IllegalStateException when the store is full
+     */
+    public synchronized ParkingSlot newSlot(String slotId, int floor, int distance, SlotType slotType) {
+        if (size == startNanos.length) {
+            throw new IllegalStateException("Compact slot store is full (" + size + " slots)");
+        }
+        plateIds[size] = NO_PLATE;
+        return new FlyweightSlot(slotId, floor, distance, slotType, this, size++);
+    }
+
+    public synchronized int size() {
+        return size;
+    }
+
+    public int capacity() {
+        return startNanos.length;
+    }
+
+    public PlateRegistry getPlates() {
+        return plates;
+    }
+
+    /**
+     * Bytes held in the state arrays, excluding the flyweights and the plate table.
+     */
+    public long stateBytes() {
+        return 8L * occupiedBits.length() + 8L * startNanos.length + 4L * plateIds.length;
+    }
+
+    ParkingLot lot() {
+        return lot;
+    }
+
+    synchronized void attach(ParkingLot owner) {
+        if (lot != null && lot != owner) {
+            throw new IllegalStateException("Slots of one compact store must belong to one lot");
+        }
+        lot = owner;
+    }
+
+    boolean isOccupied(int index) {
+        return (occupiedBits.get(index >>> 6) & (1L << index)) != 0;
+    }
+
+    String plate(int index) {
+        if (!isOccupied(index)) {
+            return null;
+        }
+        int id = plateIds[index];
+        String plate = id == NO_PLATE ? null : plates.plateOf(id);
+        // Ids are recycled: only trust the plate if the bay still holds the same id.
+        return isOccupied(index) && plateIds[index] == id ? plate : null;
+    }
+
+    LocalDateTime startTime(int index) {
+        if (!isOccupied(index)) {
+            return null;
+        }
+        return EpochNanos.toLocalDateTime(startNanos[index]);
+    }
+
+    void store(int index, VehicleInfo vehicle, LocalDateTime start) {
+        int previous = plateIds[index];
+        plateIds[index] = vehicle != null ? plates.acquire(vehicle.getPlateNumber()) : NO_PLATE;
+        startNanos[index] = EpochNanos.of(start);
+        // The bit is set last with a volatile CAS so readers that see it also see the fields.
+        long mask = 1L << index;
+        occupiedBits.getAndAccumulate(index >>> 6, mask, (word, bit) -> word | bit);
+        if (previous != NO_PLATE) {
+            plates.release(previous);
+        }
+    }
+
+    void clear(int index) {
+        long mask = ~(1L << index);
+        occupiedBits.getAndAccumulate(index >>> 6, mask, (word, bits) -> word & bits);
+        int previous = plateIds[index];
+        plateIds[index] = NO_PLATE;
+        if (previous != NO_PLATE) {
+            plates.release(previous);
+        }
+    }
+
+    /**
+     * Slot view over one index of the store. Reading the vehicle rebuilds a plate-only
+     * {@link VehicleInfo}; tickets keep the full owner details.
+     */
+    private static final class FlyweightSlot extends ParkingSlot {
+        private final CompactSlotStore store;
+        private final int index;
+
+        private FlyweightSlot(String slotId, int floor, int distance, SlotType slotType,
+                              CompactSlotStore store, int index) {
+            super(slotId, floor, distance, slotType);
+            this.store = store;
+            this.index = index;
+        }
+
+        @Override
+        public boolean isOccupied() {
+            return store.isOccupied(index);
+        }
+
+        @Override
+        public VehicleInfo getCurrentVehicle() {
+            String plate = store.plate(index);
+            return plate != null ? new VehicleInfo(plate, "", "") : null;
+        }
+
+        @Override
+        public String getCurrentPlate() {
+            return store.plate(index);
+        }
+
+        @Override
+        public LocalDateTime getStartTime() {
+            return store.startTime(index);
+        }
+
+        @Override
+        protected void storeOccupant(VehicleInfo vehicle, LocalDateTime start) {
+            store.store(index, vehicle, start);
+        }
+
+        @Override
+        protected void clearOccupant() {
+            store.clear(index);
+        }
+
+        @Override
+        ParkingLot getLot() {
+            return store.lot();
+        }
+
+        @Override
+        void setLot(ParkingLot owner) {
+            store.attach(owner);
+        }
+    }
+}
@@ -0,0 +1,29 @@
+package com.cityparking.model;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+
+/**
+ * Packs a {@link LocalDateTime} into a {@code long} of nanoseconds since the epoch (treating the
+ * wall-clock time as UTC), so timestamps can be held as primitives. Covers years 1678 to 2261.
+ */
+final class EpochNanos {
+    static final long NONE = Long.MIN_VALUE;
+
+    private EpochNanos() {
+    }
+
+    static long of(LocalDateTime time) {
+        if (time == null) {
+            return NONE;
+        }
+        return Math.addExact(Math.multiplyExact(time.toEpochSecond(ZoneOffset.UTC), 1_000_000_000L), time.getNano());
+    }
+
+    static LocalDateTime toLocalDateTime(long nanos) {
+        if (nanos == NONE) {
+            return null;
+        }
+        return LocalDateTime.ofEpochSecond(Math.floorDiv(nanos, 1_000_000_000L), (int) Math.floorMod(nanos, 1_000_000_000L), ZoneOffset.UTC);
+    }
+}
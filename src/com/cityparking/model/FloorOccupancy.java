@@ -0,0 +1,32 @@
+package com.cityparking.model;
+
+/**
+ * Point-in-time occupied/total counts for one floor of a parking lot.
+ */
+public class FloorOccupancy {
+    private final int floor;
+    private final long totalSlots;
+    private final long occupiedSlots;
+
+    public FloorOccupancy(int floor, long totalSlots, long occupiedSlots) {
+        this.floor = floor;
+        this.totalSlots = totalSlots;
+        this.occupiedSlots = occupiedSlots;
+    }
+
+    public int getFloor() {
+        return floor;
+    }
+
+    public long getTotalSlots() {
+        return totalSlots;
+    }
+
+    public long getOccupiedSlots() {
+        return occupiedSlots;
+    }
+
+    public long getAvailableSlots() {
+        return totalSlots - occupiedSlots;
+    }
+}
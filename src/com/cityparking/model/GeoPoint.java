@@ -0,0 +1,30 @@
+package com.cityparking.model;
+
+/**
+ * WGS84 latitude/longitude of a lot entrance, in degrees.
+ */
+public class GeoPoint {
+    private final double latitude;
+    private final double longitude;
+
+    public GeoPoint(double latitude, double longitude) {
+        if (!(latitude >= -90 && latitude <= 90) || !(longitude >= -180 && longitude <= 180)) {
+            throw new IllegalArgumentException("Not a coordinate: " + latitude + ", " + longitude);
+        }
+        this.latitude = latitude;
+        this.longitude = longitude;
+    }
+
+    public double getLatitude() {
+        return latitude;
+    }
+
+    public double getLongitude() {
+        return longitude;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%.6f, %.6f", latitude, longitude);
+    }
+}
@@ -1,21 +1,36 @@
 package com.cityparking.model;
 
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.LongAdder;
 import java.util.stream.Collectors;
 
 /**
  * Aggregates the slots that belong to the smart parking site.
+ * Slots are indexed by their upper-cased id so lookups and duplicate checks are O(1).
+ * Occupancy totals are maintained incrementally as slots are occupied and released,
+ * so counter reads never walk the slot list.
  */
 public class ParkingLot {
     private final String name;
-    private final List<ParkingSlot> slots;
+    private final ArrayList<ParkingSlot> slots;
+    private final Map<String, ParkingSlot> slotsById;
+    private final LongAdder occupiedCount = new LongAdder();
+    private final Map<Integer, FloorCounters> floorCounters = new ConcurrentSkipListMap<>();
+    private final List<SlotListener> listeners = new CopyOnWriteArrayList<>();
 
     public ParkingLot(String name, List<ParkingSlot> slots) {
         this.name = name;
-        this.slots = new ArrayList<>(slots);
+        this.slots = new ArrayList<>(slots.size());
+        this.slotsById = new ConcurrentHashMap<>(Math.max(16, slots.size() * 2));
+        addSlots(slots);
     }
 
     public String getName() {
@@ -27,24 +42,37 @@ public class ParkingLot {
     }
 
     public synchronized boolean addSlot(ParkingSlot slot) {
-        Optional<ParkingSlot> existing = slots.stream()
-                .filter(s -> s.getSlotId().equalsIgnoreCase(slot.getSlotId()))
-                .findFirst();
-        if (existing.isPresent()) {
+        if (slotsById.putIfAbsent(normalize(slot.getSlotId()), slot) != null) {
             return false;
         }
         slots.add(slot);
+        adopt(slot);
         return true;
     }
 
+    /**
+     * Registers many slots in one pass, skipping ids that are already present.
+     *
+     * @return the number of slots actually added
+     */
+    public synchronized int addSlots(Collection<ParkingSlot> newSlots) {
+        slots.ensureCapacity(slots.size() + newSlots.size());
+        int added = 0;
+        for (ParkingSlot slot : newSlots) {
+            if (slotsById.putIfAbsent(normalize(slot.getSlotId()), slot) == null) {
+                slots.add(slot);
+                adopt(slot);
+                added++;
+            }
+        }
+        return added;
+    }
+
     public Optional<ParkingSlot> findSlotById(String slotId) {
         if (slotId == null || slotId.isBlank()) {
             return Optional.empty();
         }
-        String normalized = slotId.trim().toUpperCase();
-        return slots.stream()
-                .filter(slot -> slot.getSlotId().equalsIgnoreCase(normalized))
-                .findFirst();
+        return Optional.ofNullable(slotsById.get(normalize(slotId)));
     }
 
     public List<ParkingSlot> getAvailableSlots() {
@@ -56,11 +84,60 @@ public class ParkingLot {
     }
 
     public long getOccupiedCount() {
-        return slots.stream().filter(ParkingSlot::isOccupied).count();
+        return occupiedCount.sum();
     }
 
     public long getAvailableCount() {
         return getTotalSlots() - getOccupiedCount();
     }
+
+    /**
+     * Occupied/total counts per floor in ascending floor order. Costs O(floors).
+     */
+    public List<FloorOccupancy> getFloorOccupancy() {
+        List<FloorOccupancy> result = new ArrayList<>(floorCounters.size());
+        floorCounters.forEach((floor, counters) ->
+                result.add(new FloorOccupancy(floor, counters.total.sum(), counters.occupied.sum())));
+        return result;
+    }
+
+    public void addSlotListener(SlotListener listener) {
+        listeners.add(listener);
+    }
+
+    public void removeSlotListener(SlotListener listener) {
+        listeners.remove(listener);
+    }
+
+    void onOccupancyChanged(ParkingSlot slot, boolean occupied) {
+        long delta = occupied ? 1 : -1;
+        occupiedCount.add(delta);
+        floorCounters(slot.getFloor()).occupied.add(delta);
+        for (SlotListener listener : listeners) {
+            listener.slotChanged(slot);
+        }
+    }
+
+    private void adopt(ParkingSlot slot) {
+        FloorCounters counters = floorCounters(slot.getFloor());
+        counters.total.increment();
+        if (slot.attachTo(this)) {
+            occupiedCount.increment();
+            counters.occupied.increment();
+        }
+    }
+
+    private FloorCounters floorCounters(int floor) {
+        return floorCounters.computeIfAbsent(floor, f -> new FloorCounters());
+    }
+
+    private static String normalize(String slotId) {
+        return slotId.trim().toUpperCase();
+    }
+
+    private static final class FloorCounters {
+        private final LongAdder total = new LongAdder();
+        private final LongAdder occupied = new LongAdder();
+    }
 }
 
@@ -4,20 +4,29 @@ import java.time.LocalDateTime;
 
 /**
  * Represents a physical parking slot inside a multi-level parking structure.
+ * Occupancy state is read and written through overridable accessors so that
+ * {@link CompactSlotStore} can keep it in primitive arrays instead of per-slot objects; its
+ * views use only the identity fields here.
  */
 public class ParkingSlot implements Comparable<ParkingSlot> {
     private final String slotId;
     private final int floor;
     private final int distance; // proxy for "nearest to gate"
-    private boolean occupied;
-    private VehicleInfo currentVehicle;
-    private LocalDateTime startTime;
+    private final SlotType slotType;
+    private volatile boolean occupied;
+    private volatile VehicleInfo currentVehicle;
+    private volatile LocalDateTime startTime;
+    private ParkingLot lot;
 
     public ParkingSlot(String slotId, int floor, int distance) {
+        this(slotId, floor, distance, SlotType.STANDARD);
+    }
+
+    public ParkingSlot(String slotId, int floor, int distance, SlotType slotType) {
         this.slotId = slotId;
         this.floor = floor;
         this.distance = distance;
-        this.occupied = false;
+        this.slotType = slotType;
     }
 
     public String getSlotId() {
@@ -32,6 +41,13 @@ public class ParkingSlot implements Comparable<ParkingSlot> {
         return distance;
     }
 
+    /**
+     * The bay's single type; see {@link SlotType} for why bays do not carry attribute sets.
+     */
+    public SlotType getSlotType() {
+        return slotType;
+    }
+
     public boolean isOccupied() {
         return occupied;
     }
@@ -40,22 +56,75 @@ public class ParkingSlot implements Comparable<ParkingSlot> {
         return currentVehicle;
     }
 
+    /**
+     * Plate of the parked vehicle, or null when free. Cheaper than {@link #getCurrentVehicle()}
+     * in compact mode, where the full vehicle is not retained.
+     */
+    public String getCurrentPlate() {
+        VehicleInfo vehicle = getCurrentVehicle();
+        return vehicle != null ? vehicle.getPlateNumber() : null;
+    }
+
     public LocalDateTime getStartTime() {
         return startTime;
     }
 
-    public void occupy(VehicleInfo vehicle, LocalDateTime start) {
-        this.occupied = true;
+    public synchronized void occupy(VehicleInfo vehicle, LocalDateTime start) {
+        boolean wasOccupied = isOccupied();
+        storeOccupant(vehicle, start);
+        ParkingLot lot = getLot();
+        if (!wasOccupied && lot != null) {
+            lot.onOccupancyChanged(this, true);
+        }
+    }
+
+    public synchronized void release() {
+        boolean wasOccupied = isOccupied();
+        clearOccupant();
+        ParkingLot lot = getLot();
+        if (wasOccupied && lot != null) {
+            lot.onOccupancyChanged(this, false);
+        }
+    }
+
+    /**
+     * Records the occupant. Called with the slot locked; must publish the occupied flag last.
+     */
+    protected void storeOccupant(VehicleInfo vehicle, LocalDateTime start) {
         this.currentVehicle = vehicle;
         this.startTime = start;
+        this.occupied = true;
     }
 
-    public void release() {
+    /**
+     * Clears the occupant. Called with the slot locked; must clear the occupied flag first.
+     */
+    protected void clearOccupant() {
         this.occupied = false;
         this.currentVehicle = null;
         this.startTime = null;
     }
 
+    /**
+     * The lot whose occupancy counters the slot feeds, or null before it is adopted.
+     */
+    ParkingLot getLot() {
+        return lot;
+    }
+
+    void setLot(ParkingLot owner) {
+        this.lot = owner;
+    }
+
+    /**
+     * Binds the slot to the lot whose occupancy counters it feeds. Called when the lot adopts the
+     * slot.
+     */
+    synchronized boolean attachTo(ParkingLot owner) {
+        setLot(owner);
+        return isOccupied();
+    }
+
     @Override
     public int compareTo(ParkingSlot other) {
         int floorCompare = Integer.compare(this.floor, other.floor);
@@ -74,4 +143,3 @@ public class ParkingSlot implements Comparable<ParkingSlot> {
         return slotId + " (F" + floor + ")";
     }
 }
-
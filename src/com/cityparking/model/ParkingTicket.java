@@ -2,28 +2,56 @@ package com.cityparking.model;
 
 import java.time.Duration;
 import java.time.LocalDateTime;
-import java.util.UUID;
 
 /**
- * Captures the lifecycle of a parked vehicle.
+ * Captures the lifecycle of a parked vehicle. Check-in and check-out are held as primitive
+ * epoch nanoseconds and only turned into {@link LocalDateTime} objects when read; likewise the
+ * ticket is keyed by a primitive {@code long} and its printed id is only formatted on demand.
  */
 public class ParkingTicket {
-    private final String ticketId;
+    private final long ticketKey;
+    private String ticketId;
     private final ParkingSlot slot;
     private final VehicleInfo vehicle;
-    private final LocalDateTime checkInTime;
-    private LocalDateTime checkOutTime;
-    private double amount;
+    private final long checkInNanos;
+    private final long dueNanos;
+    private volatile long checkOutNanos = EpochNanos.NONE;
+    private long amountPaise;
 
-    public ParkingTicket(ParkingSlot slot, VehicleInfo vehicle) {
-        this.ticketId = UUID.randomUUID().toString().substring(0, 8).toUpperCase();
+    public ParkingTicket(long ticketKey, ParkingSlot slot, VehicleInfo vehicle, LocalDateTime checkInTime) {
+        this(ticketKey, slot, vehicle, checkInTime, null);
+    }
+
+    /**
+     * @param dueTime end of the stay the driver declared or reserved, or null when open-ended
+     */
+    public ParkingTicket(long ticketKey, ParkingSlot slot, VehicleInfo vehicle, LocalDateTime checkInTime,
+                         LocalDateTime dueTime) {
+        if (ticketKey <= 0) {
+            throw new IllegalArgumentException("Ticket keys are positive: " + ticketKey);
+        }
+        this.ticketKey = ticketKey;
         this.slot = slot;
         this.vehicle = vehicle;
-        this.checkInTime = LocalDateTime.now();
+        this.checkInNanos = EpochNanos.of(checkInTime);
+        this.dueNanos = EpochNanos.of(dueTime);
+    }
+
+    public long getTicketKey() {
+        return ticketKey;
     }
 
+    /**
+     * The printed id, see {@link TicketIds}.
+     */
     public String getTicketId() {
-        return ticketId;
+        // Racy single-check caching is safe: every thread computes the same immutable string.
+        String id = ticketId;
+        if (id == null) {
+            id = TicketIds.format(ticketKey);
+            ticketId = id;
+        }
+        return id;
     }
 
     public ParkingSlot getSlot() {
@@ -35,25 +63,36 @@ public class ParkingTicket {
     }
 
     public LocalDateTime getCheckInTime() {
-        return checkInTime;
+        return EpochNanos.toLocalDateTime(checkInNanos);
+    }
+
+    /**
+     * When the vehicle is expected to leave, or null when the stay is open-ended.
+     */
+    public LocalDateTime getDueTime() {
+        return EpochNanos.toLocalDateTime(dueNanos);
     }
 
     public LocalDateTime getCheckOutTime() {
-        return checkOutTime;
+        return EpochNanos.toLocalDateTime(checkOutNanos);
+    }
+
+    public long getAmountPaise() {
+        return amountPaise;
     }
 
     public double getAmount() {
-        return amount;
+        return amountPaise / 100.0;
     }
 
     public Duration getDuration() {
-        LocalDateTime end = checkOutTime != null ? checkOutTime : LocalDateTime.now();
-        return Duration.between(checkInTime, end);
+        long end = checkOutNanos != EpochNanos.NONE ? checkOutNanos : EpochNanos.of(LocalDateTime.now());
+        return Duration.ofNanos(end - checkInNanos);
     }
 
-    public void close(double amount) {
-        this.checkOutTime = LocalDateTime.now();
-        this.amount = amount;
+    public void close(long amountPaise, LocalDateTime checkOutTime) {
+        this.amountPaise = amountPaise;
+        this.checkOutNanos = EpochNanos.of(checkOutTime);
     }
 }
 
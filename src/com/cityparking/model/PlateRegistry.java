@@ -0,0 +1,104 @@
+package com.cityparking.model;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Interns plate numbers to dense int ids so compact slot state can store a plate in four bytes.
+ * Each id is counted once per bay holding the plate: {@link #acquire} when a vehicle parks,
+ * {@link #release} when it leaves. When the count drops to zero the plate is forgotten and its
+ * id goes on a free list for the next new plate, so the table is sized by the vehicles parked
+ * now rather than every plate ever seen. Counting runs under the plate's map entry; only taking
+ * or returning an id locks the registry.
+ */
+public class PlateRegistry {
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+    private volatile String[] plates = new String[1024];
+    private int[] freeIds = new int[64];
+    private int freeCount;
+    private int nextId;
+
+    /**
+     * Id of {@code plate}, counting one more bay that holds it.
+     */
+    public int acquire(String plate) {
+        return entries.compute(plate, (key, entry) -> {
+            if (entry == null) {
+                return new Entry(allocate(key));
+            }
+            entry.references++;
+            return entry;
+        }).id;
+    }
+
+    /**
+     * Counts one fewer bay holding the plate with this id, recycling the id when none is left.
+     */
+    public void release(int id) {
+        String plate = plateOf(id);
+        if (plate == null) {
+            return;
+        }
+        entries.computeIfPresent(plate, (key, entry) -> {
+            if (entry.id != id || --entry.references > 0) {
+                return entry;
+            }
+            free(id);
+            return null;
+        });
+    }
+
+    /**
+     * The plate holding {@code id}, or null if the id is free.
+     */
+    public String plateOf(int id) {
+        String[] current = plates;
+        return id >= 0 && id < current.length ? current[id] : null;
+    }
+
+    /**
+     * Number of plates currently interned.
+     */
+    public int size() {
+        return entries.size();
+    }
+
+    /**
+     * Ids handed out so far, live or free; the length of the id table in use.
+     */
+    public synchronized int capacity() {
+        return nextId;
+    }
+
+    private synchronized int allocate(String plate) {
+        int id = freeCount > 0 ? freeIds[--freeCount] : nextId++;
+        String[] current = plates;
+        if (id == current.length) {
+            current = Arrays.copyOf(current, current.length * 2);
+        }
+        current[id] = plate;
+        plates = current;
+        return id;
+    }
+
+    private synchronized void free(int id) {
+        plates[id] = null;
+        if (freeCount == freeIds.length) {
+            freeIds = Arrays.copyOf(freeIds, freeIds.length * 2);
+        }
+        freeIds[freeCount++] = id;
+    }
+
+    /**
+     * An interned plate's id and the number of bays holding it.
+     */
+    private static final class Entry {
+        private final int id;
+        private int references = 1;
+
+        Entry(int id) {
+            this.id = id;
+        }
+    }
+}
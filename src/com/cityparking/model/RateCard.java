@@ -1,28 +1,148 @@
 package com.cityparking.model;
 
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
 /**
- * Simple pricing policy using progressive hourly slabs.
+ * Pricing policy with per-class hourly slabs, a daily cap applied to every 24-hour block of a
+ * stay, and time-of-day bands that scale the charge for the clock hours they cover.
+ * <p>
+ * The whole policy is compiled up front into a table of capped fees in paise, indexed by
+ * vehicle class, check-in clock hour and hours into the current day, so billing an exit is a
+ * couple of array reads. A stay of {@code n} billable hours costs
+ * {@code fullDays * fee(24) + fee(remaining hours)}, because every day starts at the same
+ * clock hour as the check-in.
  */
 public class RateCard {
-    private final double firstHour;
-    private final double additionalHour;
-    private final double dailyCap;
+    private static final int HOURS_PER_DAY = 24;
+    private static final int ROW = HOURS_PER_DAY + 1;
+    private static final VehicleClass[] CLASSES = VehicleClass.values();
+
+    /**
+     * Capped fee in paise, at {@code ((class * 24) + startHour) * 25 + hoursIntoDay}.
+     */
+    private final long[] dayFees = new long[CLASSES.length * HOURS_PER_DAY * ROW];
 
     public RateCard(double firstHour, double additionalHour, double dailyCap) {
-        this.firstHour = firstHour;
-        this.additionalHour = additionalHour;
-        this.dailyCap = dailyCap;
+        this(Map.of(VehicleClass.CAR, new ClassRates(firstHour, additionalHour, dailyCap)), List.of());
     }
 
-    public double feeForHours(long hours) {
-        if (hours <= 1) {
-            return firstHour;
+    /**
+     * @param rates     rates per vehicle class; classes without an entry are billed at the
+     *                  {@link VehicleClass#CAR} rates, which must be present
+     * @param peakBands time-of-day bands; a clock hour covered by several bands uses the last one
+     */
+    public RateCard(Map<VehicleClass, ClassRates> rates, List<PeakBand> peakBands) {
+        ClassRates defaults = rates.get(VehicleClass.CAR);
+        if (defaults == null) {
+            throw new IllegalArgumentException("Rates for " + VehicleClass.CAR.name() + " are required");
         }
-        double total = firstHour + (hours - 1) * additionalHour;
-        if (total > dailyCap) {
-            return dailyCap;
+        int[] percentByHour = new int[HOURS_PER_DAY];
+        Arrays.fill(percentByHour, 100);
+        for (PeakBand band : peakBands) {
+            for (int hour = band.startHour; hour != band.endHour; hour = (hour + 1) % HOURS_PER_DAY) {
+                percentByHour[hour] = band.percent;
+            }
+        }
+        for (VehicleClass vehicleClass : CLASSES) {
+            compile(vehicleClass, rates.getOrDefault(vehicleClass, defaults), percentByHour);
+        }
+    }
+
+    private void compile(VehicleClass vehicleClass, ClassRates rates, int[] percentByHour) {
+        for (int startHour = 0; startHour < HOURS_PER_DAY; startHour++) {
+            int base = rowOf(vehicleClass.ordinal(), startHour);
+            long running = 0;
+            for (int hour = 0; hour < HOURS_PER_DAY; hour++) {
+                long slab = hour == 0 ? rates.firstHourPaise : rates.additionalHourPaise;
+                int percent = percentByHour[(startHour + hour) % HOURS_PER_DAY];
+                running += (slab * percent + 50) / 100;
+                dayFees[base + hour + 1] = Math.min(running, rates.dailyCapPaise);
+            }
+        }
+    }
+
+    /**
+     * Fee in paise for {@code hours} billable hours starting at clock hour {@code startHour}.
+     */
+    public long feePaise(VehicleClass vehicleClass, int startHour, long hours) {
+        return fee(rowOf(vehicleClass.ordinal(), startHour), Math.max(1, hours));
+    }
+
+    /**
+     * Fee in paise for a stay, rounded up to whole hours with a one-hour minimum.
+     */
+    public long feePaise(VehicleClass vehicleClass, LocalDateTime checkIn, LocalDateTime checkOut) {
+        long seconds = Math.max(0, Duration.between(checkIn, checkOut).getSeconds());
+        return feePaise(vehicleClass, checkIn.getHour(), billableHours(seconds));
+    }
+
+    /**
+     * Bills {@code count} closed stays in one pass, e.g. for nightly reconciliation. Times are
+     * epoch seconds of the wall-clock time read as UTC, the way tickets are journalled and
+     * archived; {@code classOrdinals} holds {@link VehicleClass#ordinal()} values. The loop is
+     * branch-free apart from the bounds checks, so it runs as a tight scalar loop over the table.
+     */
+    public void billBatch(byte[] classOrdinals, long[] checkInSeconds, long[] checkOutSeconds, long[] feesOut, int count) {
+        for (int i = 0; i < count; i++) {
+            long checkIn = checkInSeconds[i];
+            int startHour = Math.floorMod(Math.floorDiv(checkIn, 3600), HOURS_PER_DAY);
+            feesOut[i] = fee(rowOf(classOrdinals[i], startHour), billableHours(Math.max(0, checkOutSeconds[i] - checkIn)));
         }
-        return total;
     }
-}
 
+    /**
+     * Billable hours for a stay of {@code seconds}: whole minutes rounded up to the hour, at
+     * least one.
+     */
+    public static long billableHours(long seconds) {
+        return Math.max(1, (seconds / 60 + 59) / 60);
+    }
+
+    private long fee(int base, long hours) {
+        long fullDays = (hours - 1) / HOURS_PER_DAY;
+        return fullDays * dayFees[base + HOURS_PER_DAY] + dayFees[base + (int) (hours - fullDays * HOURS_PER_DAY)];
+    }
+
+    private static int rowOf(int classOrdinal, int startHour) {
+        return (classOrdinal * HOURS_PER_DAY + startHour) * ROW;
+    }
+
+    /**
+     * Hourly slabs and daily cap of one vehicle class, in rupees.
+     */
+    public static final class ClassRates {
+        private final long firstHourPaise;
+        private final long additionalHourPaise;
+        private final long dailyCapPaise;
+
+        public ClassRates(double firstHour, double additionalHour, double dailyCap) {
+            this.firstHourPaise = Math.round(firstHour * 100);
+            this.additionalHourPaise = Math.round(additionalHour * 100);
+            this.dailyCapPaise = Math.round(dailyCap * 100);
+        }
+    }
+
+    /**
+     * Scales the hourly charge to {@code percent} for clock hours in [startHour, endHour),
+     * wrapping past midnight when endHour is smaller.
+     */
+    public static final class PeakBand {
+        private final int startHour;
+        private final int endHour;
+        private final int percent;
+
+        public PeakBand(int startHour, int endHour, int percent) {
+            if (startHour < 0 || startHour >= HOURS_PER_DAY || endHour < 0 || endHour >= HOURS_PER_DAY
+                    || startHour == endHour || percent < 0) {
+                throw new IllegalArgumentException("Invalid peak band " + startHour + "-" + endHour + " @ " + percent + "%");
+            }
+            this.startHour = startHour;
+            this.endHour = endHour;
+            this.percent = percent;
+        }
+    }
+}
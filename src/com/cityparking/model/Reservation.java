@@ -0,0 +1,64 @@
+package com.cityparking.model;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+
+/**
+ * A pre-booked hold on one bay for the window {@code [start, end)}. The window is kept as epoch
+ * seconds so overlap checks compare primitives.
+ */
+public class Reservation {
+    private final long reservationId;
+    private final ParkingSlot slot;
+    private final String plateNumber;
+    private final long startSecond;
+    private final long endSecond;
+
+    public Reservation(long reservationId, ParkingSlot slot, String plateNumber, LocalDateTime start, LocalDateTime end) {
+        this.reservationId = reservationId;
+        this.slot = slot;
+        this.plateNumber = plateNumber.trim().toUpperCase();
+        this.startSecond = start.toEpochSecond(ZoneOffset.UTC);
+        this.endSecond = end.toEpochSecond(ZoneOffset.UTC);
+    }
+
+    public long getReservationId() {
+        return reservationId;
+    }
+
+    public ParkingSlot getSlot() {
+        return slot;
+    }
+
+    public String getPlateNumber() {
+        return plateNumber;
+    }
+
+    public LocalDateTime getStart() {
+        return LocalDateTime.ofEpochSecond(startSecond, 0, ZoneOffset.UTC);
+    }
+
+    public LocalDateTime getEnd() {
+        return LocalDateTime.ofEpochSecond(endSecond, 0, ZoneOffset.UTC);
+    }
+
+    public long getStartSecond() {
+        return startSecond;
+    }
+
+    public long getEndSecond() {
+        return endSecond;
+    }
+
+    /**
+     * True when this hold shares any time with {@code [fromSecond, toSecond)}.
+     */
+    public boolean overlaps(long fromSecond, long toSecond) {
+        return startSecond < toSecond && fromSecond < endSecond;
+    }
+
+    @Override
+    public String toString() {
+        return "#" + reservationId + " " + slot.getSlotId() + " " + plateNumber + " " + getStart() + " - " + getEnd();
+    }
+}
@@ -0,0 +1,10 @@
+package com.cityparking.model;
+
+/**
+ * Callback fired by {@link ParkingLot} whenever one of its slots is occupied or released.
+ * Invoked on the thread that changed the slot while the slot is locked, so implementations
+ * must be quick and must not block; hand heavier work to another thread.
+ */
+public interface SlotListener {
+    void slotChanged(ParkingSlot slot);
+}
@@ -0,0 +1,31 @@
+package com.cityparking.model;
+
+/**
+ * Physical kind of bay. Which vehicle classes may use which bays is decided by the allocator's
+ * fallback rules, not here.
+ * <p>
+ * A bay has exactly one type rather than a set of attributes. This is deliberate: each free bay
+ * then sits in exactly one per-type pool, so finding the nearest compatible bay is a seek in one
+ * ordered set per allowed type, with no intersection of attribute sets on the gate path. A bay
+ * that is both, say, accessible and EV-equipped is registered under the type it should be kept
+ * for (usually the scarcer one), and the fallback rules decide who else may use it.
+ */
+public enum SlotType {
+    STANDARD("Standard"),
+    COMPACT("Compact"),
+    EV("EV charging"),
+    ACCESSIBLE("Accessible"),
+    TWO_WHEELER("Two-wheeler"),
+    OVERSIZE("Oversize");
+
+    private final String label;
+
+    SlotType(String label) {
+        this.label = label;
+    }
+
+    @Override
+    public String toString() {
+        return label;
+    }
+}
@@ -0,0 +1,67 @@
+package com.cityparking.model;
+
+import java.util.Arrays;
+
+/**
+ * Converts between primitive ticket keys and the printed ticket id, which is the key in
+ * Crockford base32 (digits and upper-case letters without I, L, O and U). Parsing is
+ * case-insensitive, accepts I/L as 1 and O as 0, and ignores hyphens so ids can be read
+ * back from a receipt.
+ */
+public final class TicketIds {
+    private static final char[] ALPHABET = "0123456789ABCDEFGHJKMNPQRSTVWXYZ".toCharArray();
+    private static final byte[] VALUES = new byte[128];
+
+    static {
+        Arrays.fill(VALUES, (byte) -1);
+        for (int i = 0; i < ALPHABET.length; i++) {
+            VALUES[ALPHABET[i]] = (byte) i;
+            VALUES[Character.toLowerCase(ALPHABET[i])] = (byte) i;
+        }
+        VALUES['I'] = VALUES['i'] = VALUES['L'] = VALUES['l'] = 1;
+        VALUES['O'] = VALUES['o'] = 0;
+    }
+
+    private TicketIds() {
+    }
+
+    public static String format(long key) {
+        if (key <= 0) {
+            throw new IllegalArgumentException("Ticket keys are positive: " + key);
+        }
+        char[] digits = new char[13];
+        int position = digits.length;
+        do {
+            digits[--position] = ALPHABET[(int) (key & 31)];
+            key >>>= 5;
+        } while (key != 0);
+        return new String(digits, position, digits.length - position);
+    }
+
+    /**
+     * Parses a printed ticket id.
+     *
+     * @return the key, or -1 when the text is not a valid ticket id
+     */
+    public static long parse(CharSequence text) {
+        if (text == null) {
+            return -1;
+        }
+        long key = 0;
+        int digits = 0;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c == '-') {
+                continue;
+            }
+            int value = c < VALUES.length ? VALUES[c] : -1;
+            // 13 digits hold 65 bits; anything that would overflow into the sign bit is invalid.
+            if (value < 0 || (key >>> 58) != 0) {
+                return -1;
+            }
+            key = (key << 5) | value;
+            digits++;
+        }
+        return digits == 0 || key <= 0 ? -1 : key;
+    }
+}
@@ -0,0 +1,22 @@
+package com.cityparking.model;
+
+/**
+ * Tariff class of a vehicle. Each class can carry its own hourly rates and daily cap.
+ */
+public enum VehicleClass {
+    TWO_WHEELER("Two-wheeler"),
+    CAR("Car"),
+    EV("Electric car"),
+    LARGE("Van / SUV");
+
+    private final String label;
+
+    VehicleClass(String label) {
+        this.label = label;
+    }
+
+    @Override
+    public String toString() {
+        return label;
+    }
+}
@@ -9,11 +9,17 @@ public class VehicleInfo {
     private final String plateNumber;
     private final String ownerName;
     private final String phoneNumber;
+    private final VehicleClass vehicleClass;
 
     public VehicleInfo(String plateNumber, String ownerName, String phoneNumber) {
+        this(plateNumber, ownerName, phoneNumber, VehicleClass.CAR);
+    }
+
+    public VehicleInfo(String plateNumber, String ownerName, String phoneNumber, VehicleClass vehicleClass) {
         this.plateNumber = plateNumber.trim().toUpperCase();
         this.ownerName = ownerName.trim();
         this.phoneNumber = phoneNumber.trim();
+        this.vehicleClass = vehicleClass;
     }
 
     public String getPlateNumber() {
@@ -28,6 +34,10 @@ public class VehicleInfo {
         return phoneNumber;
     }
 
+    public VehicleClass getVehicleClass() {
+        return vehicleClass;
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) {
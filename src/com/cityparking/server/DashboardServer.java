@@ -0,0 +1,333 @@
+package com.cityparking.server;
+
+import com.cityparking.model.ParkingLot;
+import com.cityparking.service.StayEvent;
+import com.cityparking.util.SlotChangeLog;
+import com.cityparking.util.SlotJsonEncoder;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * Embedded HTTP server for the wall displays. Serves the static dashboard from {@code web/},
+ * the current snapshot at {@code /api/slots}, the change window at {@code /api/changes?since=N}
+ * and a Server-Sent Events stream at {@code /api/events}: slot changes as {@code slot} events
+ * and, when fed by a {@code StayMonitor} through {@link #publishAlert}, overstay and expiry
+ * alerts as {@code alert} events. Alerts carry no id and are not replayed on reconnect.
+ * Each SSE client has a bounded queue; a display that cannot keep up is disconnected and
+ * resynchronises through {@code Last-Event-ID} or a fresh snapshot when it reconnects.
+ */
+public class DashboardServer implements AutoCloseable {
+    private static final int CLIENT_QUEUE_SIZE = 1024;
+    private static final long KEEP_ALIVE_SECONDS = 15;
+    private static final byte[] RESET_EVENT = "event: reset\ndata: {}\n\n".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] KEEP_ALIVE = ": keep-alive\n\n".getBytes(StandardCharsets.US_ASCII);
+    private static final Map<String, String> CONTENT_TYPES = Map.of(
+            "html", "text/html; charset=utf-8",
+            "css", "text/css; charset=utf-8",
+            "js", "text/javascript; charset=utf-8",
+            "json", "application/json");
+
+    private final ParkingLot parkingLot;
+    private final SlotChangeLog changeLog;
+    private final Path webRoot;
+    private final HttpServer server;
+    private final ExecutorService executor;
+    private final Set<EventClient> clients = ConcurrentHashMap.newKeySet();
+    private final ThreadLocal<SlotJsonEncoder> encoders = ThreadLocal.withInitial(() -> new SlotJsonEncoder(16 * 1024));
+
+    public DashboardServer(ParkingLot parkingLot, SlotChangeLog changeLog, Path webRoot, int port) throws IOException {
+        this.parkingLot = parkingLot;
+        this.changeLog = changeLog;
+        this.webRoot = webRoot.toAbsolutePath().normalize();
+        this.server = HttpServer.create(new InetSocketAddress(port), 0);
+        AtomicInteger threadCounter = new AtomicInteger();
+        this.executor = Executors.newCachedThreadPool(r -> {
+            Thread thread = new Thread(r, "dashboard-http-" + threadCounter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        server.setExecutor(executor);
+        server.createContext("/api/slots", this::handleSnapshot);
+        server.createContext("/api/changes", this::handleChanges);
+        server.createContext("/api/events", this::handleEvents);
+        server.createContext("/", this::handleStatic);
+    }
+
+    public void start() {
+        server.start();
+    }
+
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    public int getConnectedClients() {
+        return clients.size();
+    }
+
+    /**
+     * Pushes a stay alert to every connected display. Encoded once and shared by all clients.
+     */
+    public void publishAlert(StayEvent event) {
+        String frame = "event: alert\ndata: {\"type\":\"" + event.getType().name()
+                + "\",\"time\":\"" + event.getTime().withNano(0)
+                + "\",\"slotId\":" + jsonString(event.getSlot().getSlotId())
+                + ",\"plate\":" + jsonString(event.getPlateNumber())
+                + ",\"message\":" + jsonString(event.describe()) + "}\n\n";
+        byte[] bytes = frame.getBytes(StandardCharsets.UTF_8);
+        clients.forEach(client -> client.offer(bytes));
+    }
+
+    @Override
+    public void close() {
+        clients.forEach(EventClient::disconnect);
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    private void handleSnapshot(HttpExchange exchange) throws IOException {
+        if (!allowGet(exchange)) {
+            return;
+        }
+        long version = changeLog.getVersion();
+        sendJson(exchange, channel -> encoders.get().encodeSnapshot(version, parkingLot.getSlots(), channel));
+    }
+
+    private void handleChanges(HttpExchange exchange) throws IOException {
+        if (!allowGet(exchange)) {
+            return;
+        }
+        long since = parseLong(queryParam(exchange.getRequestURI(), "since"), 0);
+        long version;
+        long oldest;
+        List<SlotChangeLog.Change> changes;
+        synchronized (changeLog) {
+            version = changeLog.getVersion();
+            oldest = changeLog.getOldestVersion();
+            changes = changeLog.changesSince(since);
+        }
+        sendJson(exchange, channel -> encoders.get().encodeChanges(version, oldest, changes, channel));
+    }
+
+    private void handleEvents(HttpExchange exchange) throws IOException {
+        if (!allowGet(exchange)) {
+            return;
+        }
+        long lastEventId = parseLong(exchange.getRequestHeaders().getFirst("Last-Event-ID"), -1);
+        exchange.getResponseHeaders().set("Content-Type", "text/event-stream");
+        exchange.getResponseHeaders().set("Cache-Control", "no-cache");
+        exchange.sendResponseHeaders(200, 0);
+        EventClient client = new EventClient(exchange.getResponseBody());
+        List<SlotChangeLog.Change> backlog;
+        boolean gap;
+        // Subscribe and read the backlog under the log lock so no change is missed or repeated.
+        synchronized (changeLog) {
+            changeLog.subscribe(client);
+            gap = lastEventId >= 0 && changeLog.getOldestVersion() > lastEventId + 1;
+            backlog = lastEventId >= 0 && !gap ? changeLog.changesSince(lastEventId) : List.of();
+        }
+        clients.add(client);
+        try {
+            client.run(gap || lastEventId < 0, backlog);
+        } finally {
+            changeLog.unsubscribe(client);
+            clients.remove(client);
+            exchange.close();
+        }
+    }
+
+    private void handleStatic(HttpExchange exchange) throws IOException {
+        if (!allowGet(exchange)) {
+            return;
+        }
+        String requested = exchange.getRequestURI().getPath();
+        if (requested.equals("/")) {
+            requested = "/dashboard.html";
+        }
+        Path file = webRoot.resolve(requested.substring(1)).normalize();
+        if (!file.startsWith(webRoot) || !Files.isRegularFile(file)) {
+            sendText(exchange, 404, "Not found");
+            return;
+        }
+        String name = file.getFileName().toString();
+        String extension = name.substring(name.lastIndexOf('.') + 1);
+        exchange.getResponseHeaders().set("Content-Type", CONTENT_TYPES.getOrDefault(extension, "application/octet-stream"));
+        exchange.getResponseHeaders().set("Cache-Control", "no-cache");
+        exchange.sendResponseHeaders(200, Files.size(file));
+        try (OutputStream body = exchange.getResponseBody()) {
+            Files.copy(file, body);
+        }
+    }
+
+    private boolean allowGet(HttpExchange exchange) throws IOException {
+        if ("GET".equals(exchange.getRequestMethod())) {
+            return true;
+        }
+        exchange.getResponseHeaders().set("Allow", "GET");
+        sendText(exchange, 405, "Method not allowed");
+        return false;
+    }
+
+    private static void sendJson(HttpExchange exchange, JsonBody body) throws IOException {
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.getResponseHeaders().set("Cache-Control", "no-store");
+        exchange.sendResponseHeaders(200, 0);
+        try (OutputStream out = exchange.getResponseBody()) {
+            body.writeTo(Channels.newChannel(out));
+        }
+    }
+
+    private static void sendText(HttpExchange exchange, int status, String text) throws IOException {
+        byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "text/plain; charset=utf-8");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    private static String queryParam(URI uri, String name) {
+        String query = uri.getRawQuery();
+        if (query == null) {
+            return null;
+        }
+        for (String pair : query.split("&")) {
+            int eq = pair.indexOf('=');
+            if (eq > 0 && pair.substring(0, eq).equals(name)) {
+                return pair.substring(eq + 1);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Quotes a value for an event frame, escaping as {@link SlotJsonEncoder} does: U+2028 and
+     * U+2029 are valid in JSON but end a line in JavaScript source, so they are escaped too.
+     */
+    private static String jsonString(String value) {
+        StringBuilder sb = new StringBuilder(value.length() + 2).append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"' || c == '\\') {
+                sb.append('\\').append(c);
+            } else if (c < 0x20 || c == 0x2028 || c == 0x2029) {
+                sb.append(String.format("\\u%04x", (int) c));
+            } else {
+                sb.append(c);
+            }
+        }
+        return sb.append('"').toString();
+    }
+
+    private static long parseLong(String value, long fallback) {
+        if (value == null || value.isBlank()) {
+            return fallback;
+        }
+        try {
+            return Long.parseLong(value.trim());
+        } catch (NumberFormatException e) {
+            return fallback;
+        }
+    }
+
+    private interface JsonBody {
+        void writeTo(WritableByteChannel channel) throws IOException;
+    }
+
+    /**
+     * One connected display. Changes are queued by the change-log thread, and pre-encoded alert
+     * frames by the alerting thread; the HTTP worker that owns the connection writes both.
+     */
+    private static final class EventClient implements Consumer<SlotChangeLog.Change> {
+        private final OutputStream out;
+        private final WritableByteChannel channel;
+        private final BlockingQueue<Object> queue = new ArrayBlockingQueue<>(CLIENT_QUEUE_SIZE);
+        private final SlotJsonEncoder encoder = new SlotJsonEncoder(1024);
+        private volatile boolean connected = true;
+
+        EventClient(OutputStream out) {
+            this.out = out;
+            this.channel = Channels.newChannel(out);
+        }
+
+        @Override
+        public void accept(SlotChangeLog.Change change) {
+            offer(change);
+        }
+
+        void offer(Object item) {
+            if (!queue.offer(item)) {
+                disconnect();
+            }
+        }
+
+        void disconnect() {
+            connected = false;
+            queue.clear();
+        }
+
+        void run(boolean sendReset, List<SlotChangeLog.Change> backlog) {
+            try {
+                if (sendReset) {
+                    out.write(RESET_EVENT);
+                }
+                for (SlotChangeLog.Change change : backlog) {
+                    writeChange(change);
+                }
+                out.flush();
+                while (connected) {
+                    Object item = queue.poll(KEEP_ALIVE_SECONDS, TimeUnit.SECONDS);
+                    if (item == null) {
+                        out.write(KEEP_ALIVE);
+                    } else {
+                        write(item);
+                        while ((item = queue.poll()) != null) {
+                            write(item);
+                        }
+                    }
+                    out.flush();
+                }
+            } catch (IOException e) {
+                // Display closed the connection.
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        private void write(Object item) throws IOException {
+            if (item instanceof SlotChangeLog.Change change) {
+                writeChange(change);
+            } else {
+                out.write((byte[]) item);
+            }
+        }
+
+        private void writeChange(SlotChangeLog.Change change) throws IOException {
+            out.write(("id: " + change.getSequence() + "\nevent: slot\ndata: ").getBytes(StandardCharsets.US_ASCII));
+            encoder.encodeChange(change, channel);
+            out.write('\n');
+            out.write('\n');
+        }
+    }
+}
@@ -0,0 +1,36 @@
+package com.cityparking.service;
+
+import com.cityparking.model.ParkingSlot;
+
+import java.time.Duration;
+
+/**
+ * Chooses which free bay a walk-in gets. {@link SlotAllocator} calls the strategy once per bay
+ * type the vehicle may use, in preference order, with that type's free bays. Implementations
+ * must claim the bay through one of the {@code poll} methods of
+ * {@link SlotAllocator.FreeSlots} and should stay O(log n): a seek per floor is fine, a walk
+ * over the free bays is not.
+ */
+public interface AllocationStrategy {
+
+    /**
+     * Claims a bay for a vehicle expected to stay {@code expectedStay}, or returns null to let
+     * the allocator try the next bay type.
+     */
+    ParkingSlot acquire(SlotAllocator.FreeSlots free, Duration expectedStay);
+
+    /**
+     * Looks a strategy up by the name used in configuration: {@code nearest},
+     * {@code least-loaded} or {@code exit-time}.
+     *
+     * @throws IllegalArgumentException for any other name
+     */
+    static AllocationStrategy named(String name) {
+        return switch (name.trim().toLowerCase()) {
+            case "nearest" -> new NearestFirstStrategy();
+            case "least-loaded" -> new LeastLoadedFloorStrategy();
+            case "exit-time" -> new ExitTimeAwareStrategy(Duration.ofHours(1), Duration.ofHours(8));
+            default -> throw new IllegalArgumentException("Unknown allocation strategy: " + name);
+        };
+    }
+}
@@ -0,0 +1,57 @@
+package com.cityparking.service;
+
+import com.cityparking.model.ParkingSlot;
+
+import java.time.Duration;
+
+/**
+ * Keeps the bays near the gate turning over. Stays up to {@code shortStay} get the nearest bay;
+ * longer stays are sent up the building in proportion to their length, reaching the highest
+ * floor with free bays at {@code longStay}, and take the nearest bay on that floor. When the
+ * target floor is full the next floor up is tried, then the floors below. The cost is one
+ * skip-list seek per floor plus one poll per floor tried.
+ */
+public class ExitTimeAwareStrategy implements AllocationStrategy {
+    private final long shortStaySeconds;
+    private final long longStaySeconds;
+
+    public ExitTimeAwareStrategy(Duration shortStay, Duration longStay) {
+        if (!shortStay.minus(longStay).isNegative()) {
+            throw new IllegalArgumentException("shortStay must be shorter than longStay");
+        }
+        this.shortStaySeconds = shortStay.toSeconds();
+        this.longStaySeconds = longStay.toSeconds();
+    }
+
+    @Override
+    public ParkingSlot acquire(SlotAllocator.FreeSlots free, Duration expectedStay) {
+        long stay = expectedStay.toSeconds();
+        if (stay <= shortStaySeconds) {
+            return free.pollNearest();
+        }
+        int[] floors = free.floors();
+        if (floors.length == 0) {
+            return null;
+        }
+        double share = Math.min(1.0, (double) (stay - shortStaySeconds) / (longStaySeconds - shortStaySeconds));
+        int target = (int) Math.round(share * (floors.length - 1));
+        for (int i = target; i < floors.length; i++) {
+            ParkingSlot slot = free.pollNearest(floors[i]);
+            if (slot != null) {
+                return slot;
+            }
+        }
+        for (int i = target - 1; i >= 0; i--) {
+            ParkingSlot slot = free.pollNearest(floors[i]);
+            if (slot != null) {
+                return slot;
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public String toString() {
+        return "exit-time";
+    }
+}
@@ -0,0 +1,42 @@
+package com.cityparking.service;
+
+import com.cityparking.model.FloorOccupancy;
+import com.cityparking.model.ParkingSlot;
+
+import java.time.Duration;
+
+/**
+ * Sends each vehicle to the floor with the lowest share of occupied bays, then to the nearest
+ * free bay there, so ramps and lifts on the ground floor stop jamming while upper floors sit
+ * empty. Ties go to the lower floor. Floor shares come from the lot's occupancy counters; the
+ * cost is one skip-list seek per floor plus one poll.
+ */
+public class LeastLoadedFloorStrategy implements AllocationStrategy {
+
+    @Override
+    public ParkingSlot acquire(SlotAllocator.FreeSlots free, Duration expectedStay) {
+        int bestFloor = 0;
+        double bestLoad = Double.MAX_VALUE;
+        for (int floor : free.floors()) {
+            FloorOccupancy occupancy = free.occupancy(floor);
+            double load = occupancy == null || occupancy.getTotalSlots() == 0
+                    ? 0
+                    : (double) occupancy.getOccupiedSlots() / occupancy.getTotalSlots();
+            if (load < bestLoad) {
+                bestLoad = load;
+                bestFloor = floor;
+            }
+        }
+        if (bestLoad == Double.MAX_VALUE) {
+            return null;
+        }
+        ParkingSlot slot = free.pollNearest(bestFloor);
+        // Another gate may have taken the floor's last bay since it was counted.
+        return slot != null ? slot : free.pollNearest();
+    }
+
+    @Override
+    public String toString() {
+        return "least-loaded";
+    }
+}
@@ -0,0 +1,179 @@
+package com.cityparking.service;
+
+import com.cityparking.model.ParkingTicket;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Active tickets keyed by their primitive ticket key. The key space is split over lock stripes,
+ * each an open-addressing table of parallel {@code long[]}/{@code ParkingTicket[]} arrays with
+ * linear probing, so puts and removes neither box the key nor allocate entry nodes.
+ * Key 0 marks an empty bucket and is never a valid ticket key.
+ */
+final class LongTicketMap {
+    private static final int STRIPES = 16;
+
+    private final Stripe[] stripes = new Stripe[STRIPES];
+
+    LongTicketMap() {
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new Stripe();
+        }
+    }
+
+    ParkingTicket get(long key) {
+        return stripeFor(key).get(key);
+    }
+
+    /**
+     * @return the ticket previously held under {@code key}, or null
+     */
+    ParkingTicket put(long key, ParkingTicket ticket) {
+        if (key == 0) {
+            throw new IllegalArgumentException("Ticket key 0 is reserved");
+        }
+        return stripeFor(key).put(key, ticket);
+    }
+
+    /**
+     * Removes and returns the ticket under {@code key}; exactly one concurrent caller wins.
+     */
+    ParkingTicket remove(long key) {
+        return stripeFor(key).remove(key);
+    }
+
+    int size() {
+        int size = 0;
+        for (Stripe stripe : stripes) {
+            size += stripe.size;
+        }
+        return size;
+    }
+
+    List<ParkingTicket> values() {
+        List<ParkingTicket> values = new ArrayList<>(size());
+        for (Stripe stripe : stripes) {
+            stripe.copyValuesTo(values);
+        }
+        return values;
+    }
+
+    private Stripe stripeFor(long key) {
+        return stripes[(int) (mix(key) >>> 60)];
+    }
+
+    /**
+     * Spreads sequential keys across stripes and buckets (the 64-bit MurmurHash3 finaliser).
+     */
+    private static long mix(long key) {
+        key ^= key >>> 33;
+        key *= 0xff51afd7ed558ccdL;
+        key ^= key >>> 33;
+        key *= 0xc4ceb9fe1a85ec53L;
+        return key ^ (key >>> 33);
+    }
+
+    private static final class Stripe {
+        private long[] keys = new long[64];
+        private ParkingTicket[] values = new ParkingTicket[64];
+        private volatile int size;
+
+        synchronized ParkingTicket get(long key) {
+            int index = indexOf(key);
+            return index < 0 ? null : values[index];
+        }
+
+        synchronized ParkingTicket put(long key, ParkingTicket ticket) {
+            int index = indexOf(key);
+            if (index >= 0) {
+                ParkingTicket previous = values[index];
+                values[index] = ticket;
+                return previous;
+            }
+            if ((size + 1) * 2 > keys.length) {
+                resize(keys.length * 2);
+            }
+            insert(key, ticket);
+            size++;
+            return null;
+        }
+
+        synchronized ParkingTicket remove(long key) {
+            int index = indexOf(key);
+            if (index < 0) {
+                return null;
+            }
+            ParkingTicket removed = values[index];
+            deleteAt(index);
+            size--;
+            return removed;
+        }
+
+        synchronized void copyValuesTo(List<ParkingTicket> target) {
+            for (ParkingTicket value : values) {
+                if (value != null) {
+                    target.add(value);
+                }
+            }
+        }
+
+        private int indexOf(long key) {
+            int mask = keys.length - 1;
+            for (int index = (int) mix(key) & mask; keys[index] != 0; index = (index + 1) & mask) {
+                if (keys[index] == key) {
+                    return index;
+                }
+            }
+            return -1;
+        }
+
+        private void insert(long key, ParkingTicket ticket) {
+            int mask = keys.length - 1;
+            int index = (int) mix(key) & mask;
+            while (keys[index] != 0) {
+                index = (index + 1) & mask;
+            }
+            keys[index] = key;
+            values[index] = ticket;
+        }
+
+        /**
+         * Backward-shift deletion: pulls later entries of the probe run into the hole so lookups
+         * never need tombstones.
+         */
+        private void deleteAt(int hole) {
+            int mask = keys.length - 1;
+            int index = hole;
+            while (true) {
+                index = (index + 1) & mask;
+                long key = keys[index];
+                if (key == 0) {
+                    break;
+                }
+                int home = (int) mix(key) & mask;
+                // Move the entry unless its home bucket lies cyclically in (hole, index].
+                boolean stays = hole <= index ? hole < home && home <= index : hole < home || home <= index;
+                if (!stays) {
+                    keys[hole] = key;
+                    values[hole] = values[index];
+                    hole = index;
+                }
+            }
+            keys[hole] = 0;
+            values[hole] = null;
+        }
+
+        private void resize(int capacity) {
+            long[] oldKeys = keys;
+            ParkingTicket[] oldValues = values;
+            keys = new long[capacity];
+            values = new ParkingTicket[capacity];
+            for (int i = 0; i < oldKeys.length; i++) {
+                if (oldKeys[i] != 0) {
+                    insert(oldKeys[i], oldValues[i]);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,154 @@
+package com.cityparking.service;
+
+import com.cityparking.model.GeoPoint;
+import com.cityparking.model.VehicleClass;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Uniform grid over lot locations for nearest-lot queries. Coordinates are projected to metres
+ * around the latitude of the first lot added, which is accurate to a fraction of a percent across
+ * a city. A query walks rings of cells outwards from the driver and stops once no unvisited cell
+ * can hold anything closer than the k-th lot found, so it touches a handful of cells however many
+ * lots there are. Free capacity is read from each lot's allocator counter at query time, so
+ * occupancy changes need no index maintenance; only adding a lot writes to the grid.
+ */
+final class LotLocator {
+    private static final double METERS_PER_DEGREE = 111_320.0;
+
+    private final double cellMeters;
+    private final Map<Long, Entry[]> cells = new ConcurrentHashMap<>();
+    private volatile double metersPerDegreeLongitude;
+    private volatile int minX;
+    private volatile int maxX;
+    private volatile int minY;
+    private volatile int maxY;
+
+    LotLocator(double cellMeters) {
+        this.cellMeters = cellMeters;
+    }
+
+    synchronized void add(String lotId, GeoPoint location, ParkingService service) {
+        boolean first = cells.isEmpty();
+        if (first) {
+            metersPerDegreeLongitude = METERS_PER_DEGREE * Math.cos(Math.toRadians(location.getLatitude()));
+        }
+        Entry entry = new Entry(lotId, location, service, x(location), y(location));
+        int cx = cell(entry.x);
+        int cy = cell(entry.y);
+        Long key = key(cx, cy);
+        Entry[] existing = cells.get(key);
+        Entry[] entries = existing == null ? new Entry[1] : Arrays.copyOf(existing, existing.length + 1);
+        entries[entries.length - 1] = entry;
+        minX = first ? cx : Math.min(minX, cx);
+        maxX = first ? cx : Math.max(maxX, cx);
+        minY = first ? cy : Math.min(minY, cy);
+        maxY = first ? cy : Math.max(maxY, cy);
+        cells.put(key, entries);
+    }
+
+    /**
+     * Up to {@code count} lots with a free bay for {@code vehicleClass}, nearest first.
+     */
+    List<LotRegistry.NearbyLot> nearest(GeoPoint from, int count, VehicleClass vehicleClass) {
+        if (count <= 0 || cells.isEmpty()) {
+            return List.of();
+        }
+        double x = x(from);
+        double y = y(from);
+        int cx = cell(x);
+        int cy = cell(y);
+        int x0 = minX;
+        int x1 = maxX;
+        int y0 = minY;
+        int y1 = maxY;
+        int lastRing = Math.max(Math.max(cx - x0, x1 - cx), Math.max(cy - y0, y1 - cy));
+
+        Entry[] best = new Entry[count];
+        double[] bestDistance = new double[count];
+        long[] bestFree = new long[count];
+        int found = 0;
+        for (int ring = 0; ring <= lastRing; ring++) {
+            for (int gy = Math.max(cy - ring, y0); gy <= Math.min(cy + ring, y1); gy++) {
+                boolean edgeRow = gy == cy - ring || gy == cy + ring;
+                int step = edgeRow ? 1 : 2 * ring;
+                for (int gx = cx - ring; gx <= cx + ring; gx += step) {
+                    if (gx < x0 || gx > x1) {
+                        continue;
+                    }
+                    Entry[] entries = cells.get(key(gx, gy));
+                    if (entries == null) {
+                        continue;
+                    }
+                    for (Entry entry : entries) {
+                        double distance = Math.hypot(entry.x - x, entry.y - y);
+                        if (found == count && distance >= bestDistance[count - 1]) {
+                            continue;
+                        }
+                        long free = entry.service.getFreeSlotCount(vehicleClass);
+                        if (free <= 0) {
+                            continue;
+                        }
+                        int i = found < count ? found++ : count - 1;
+                        while (i > 0 && bestDistance[i - 1] > distance) {
+                            best[i] = best[i - 1];
+                            bestDistance[i] = bestDistance[i - 1];
+                            bestFree[i] = bestFree[i - 1];
+                            i--;
+                        }
+                        best[i] = entry;
+                        bestDistance[i] = distance;
+                        bestFree[i] = free;
+                    }
+                }
+            }
+            // Every lot in a later ring is at least ring * cellMeters away.
+            if (found == count && bestDistance[count - 1] <= ring * cellMeters) {
+                break;
+            }
+        }
+
+        List<LotRegistry.NearbyLot> result = new ArrayList<>(found);
+        for (int i = 0; i < found; i++) {
+            result.add(new LotRegistry.NearbyLot(best[i].lotId, best[i].location, best[i].service,
+                    bestDistance[i], bestFree[i]));
+        }
+        return result;
+    }
+
+    private double x(GeoPoint point) {
+        return point.getLongitude() * metersPerDegreeLongitude;
+    }
+
+    private static double y(GeoPoint point) {
+        return point.getLatitude() * METERS_PER_DEGREE;
+    }
+
+    private int cell(double meters) {
+        return (int) Math.floor(meters / cellMeters);
+    }
+
+    private static Long key(int cx, int cy) {
+        return ((long) cx << 32) | (cy & 0xFFFF_FFFFL);
+    }
+
+    private static final class Entry {
+        private final String lotId;
+        private final GeoPoint location;
+        private final ParkingService service;
+        private final double x;
+        private final double y;
+
+        Entry(String lotId, GeoPoint location, ParkingService service, double x, double y) {
+            this.lotId = lotId;
+            this.location = location;
+            this.service = service;
+            this.x = x;
+            this.y = y;
+        }
+    }
+}
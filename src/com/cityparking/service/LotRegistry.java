@@ -0,0 +1,252 @@
+package com.cityparking.service;
+
+import com.cityparking.model.GeoPoint;
+import com.cityparking.model.ParkingLot;
+import com.cityparking.model.ParkingTicket;
+import com.cityparking.model.RateCard;
+import com.cityparking.model.VehicleClass;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Hosts every lot in the city in one process. Each lot gets its own {@link ParkingService}, so
+ * its allocator, ticket indexes and ledger are touched only by that lot's gates. Lots are
+ * partitioned by id into up to sixteen shards, one per core by default, and each shard issues
+ * ticket keys from its own generator for the registry's site, with the shard number in the top
+ * bits of the counter: keys stay unique across lots, and across sites sharing a back office,
+ * without a counter shared by every gate. The shard field is always sized for sixteen shards, so
+ * keys stay unique when a restart picks a different shard count. The one city-wide structure is
+ * the plate index, a concurrent map written once per entry and exit. Lots registered with a
+ * location can also be searched by distance, see {@link #findNearestLots}.
+ */
+public class LotRegistry {
+    private static final int MAX_SHARDS = 16;
+    private static final double GRID_CELL_METERS = 500;
+
+    private final Shard[] shards;
+    private final Map<String, ParkedVehicle> vehiclesByPlate = new ConcurrentHashMap<>();
+    private final LotLocator locator = new LotLocator(GRID_CELL_METERS);
+
+    public LotRegistry() {
+        this(0, Math.min(MAX_SHARDS, Runtime.getRuntime().availableProcessors()));
+    }
+
+    public LotRegistry(int shardCount) {
+        this(0, shardCount);
+    }
+
+    /**
+     * Registry for site {@code siteId}, see {@link TimestampTicketIdGenerator}.
+     */
+    public LotRegistry(int siteId, int shardCount) {
+        if (shardCount < 1 || shardCount > MAX_SHARDS) {
+            throw new IllegalArgumentException("shardCount must be between 1 and " + MAX_SHARDS);
+        }
+        this.shards = new Shard[shardCount];
+        for (int i = 0; i < shardCount; i++) {
+            shards[i] = new Shard(new TimestampTicketIdGenerator(siteId, i, MAX_SHARDS));
+        }
+    }
+
+    /**
+     * Starts serving {@code lot} under {@code lotId}. The lot has no location, so it is not
+     * returned by {@link #findNearestLots}.
+     *
+     * @return the lot's service, whose tickets are tracked by the plate index
+     * @throws IllegalArgumentException if the id is already registered
+     */
+    public ParkingService addLot(String lotId, ParkingLot lot, RateCard rateCard) {
+        return addLot(lotId, null, lot, rateCard);
+    }
+
+    /**
+     * Starts serving {@code lot} under {@code lotId}, searchable by distance from {@code location}.
+     *
+     * @return the lot's service, whose tickets are tracked by the plate index
+     * @throws IllegalArgumentException if the id is already registered
+     */
+    public ParkingService addLot(String lotId, GeoPoint location, ParkingLot lot, RateCard rateCard) {
+        String key = normalize(lotId);
+        Shard shard = shardOf(key);
+        ParkingService service = new ParkingService(lot, rateCard, shard.ticketIds);
+        if (shard.lots.putIfAbsent(key, service) != null) {
+            throw new IllegalArgumentException("Lot already registered: " + lotId);
+        }
+        service.addTicketListener(new PlateIndexer(key));
+        if (location != null) {
+            locator.add(key, location, service);
+        }
+        return service;
+    }
+
+    public Optional<ParkingService> getLot(String lotId) {
+        if (lotId == null || lotId.isBlank()) {
+            return Optional.empty();
+        }
+        String key = normalize(lotId);
+        return Optional.ofNullable(shardOf(key).lots.get(key));
+    }
+
+    /**
+     * Snapshot of the registered lots, ordered by id.
+     */
+    public Map<String, ParkingService> getLots() {
+        Map<String, ParkingService> lots = new TreeMap<>();
+        for (Shard shard : shards) {
+            lots.putAll(shard.lots);
+        }
+        return lots;
+    }
+
+    /**
+     * Which lot, if any, the vehicle is currently parked in.
+     */
+    public Optional<ParkedVehicle> findVehicle(String plateNumber) {
+        if (plateNumber == null) {
+            return Optional.empty();
+        }
+        return Optional.ofNullable(vehiclesByPlate.get(plateNumber.trim().toUpperCase()));
+    }
+
+    /**
+     * The {@code count} closest located lots that have a free bay for {@code vehicleClass},
+     * nearest first, by straight-line distance from {@code from}.
+     */
+    public List<NearbyLot> findNearestLots(GeoPoint from, int count, VehicleClass vehicleClass) {
+        return locator.nearest(from, count, vehicleClass);
+    }
+
+    /**
+     * Adds a lot's open tickets to the plate index. Tickets restored from durable storage do not
+     * notify listeners, so call this once a lot's recovery has finished.
+     */
+    public void indexRestoredTickets(String lotId) {
+        getLot(lotId).ifPresent(service -> {
+            String key = normalize(lotId);
+            for (ParkingTicket ticket : service.getActiveTickets()) {
+                vehiclesByPlate.putIfAbsent(ticket.getVehicle().getPlateNumber(), new ParkedVehicle(key, ticket));
+            }
+        });
+    }
+
+    public long getFreeSlotCount() {
+        long free = 0;
+        for (Shard shard : shards) {
+            for (ParkingService service : shard.lots.values()) {
+                free += service.getFreeSlotCount();
+            }
+        }
+        return free;
+    }
+
+    public int getParkedVehicleCount() {
+        return vehiclesByPlate.size();
+    }
+
+    public int getShardCount() {
+        return shards.length;
+    }
+
+    private Shard shardOf(String key) {
+        int h = key.hashCode();
+        return shards[Math.floorMod(h ^ (h >>> 16), shards.length)];
+    }
+
+    private static String normalize(String lotId) {
+        return lotId.trim().toUpperCase();
+    }
+
+    /**
+     * An open ticket and the lot that issued it.
+     */
+    public static final class ParkedVehicle {
+        private final String lotId;
+        private final ParkingTicket ticket;
+
+        public ParkedVehicle(String lotId, ParkingTicket ticket) {
+            this.lotId = lotId;
+            this.ticket = ticket;
+        }
+
+        public String getLotId() {
+            return lotId;
+        }
+
+        public ParkingTicket getTicket() {
+            return ticket;
+        }
+    }
+
+    /**
+     * A lot returned by {@link #findNearestLots}, with its free bays for the requested class at
+     * the time of the query.
+     */
+    public static final class NearbyLot {
+        private final String lotId;
+        private final GeoPoint location;
+        private final ParkingService service;
+        private final double distanceMeters;
+        private final long freeSlots;
+
+        public NearbyLot(String lotId, GeoPoint location, ParkingService service, double distanceMeters, long freeSlots) {
+            this.lotId = lotId;
+            this.location = location;
+            this.service = service;
+            this.distanceMeters = distanceMeters;
+            this.freeSlots = freeSlots;
+        }
+
+        public String getLotId() {
+            return lotId;
+        }
+
+        public GeoPoint getLocation() {
+            return location;
+        }
+
+        public ParkingService getService() {
+            return service;
+        }
+
+        public double getDistanceMeters() {
+            return distanceMeters;
+        }
+
+        public long getFreeSlots() {
+            return freeSlots;
+        }
+    }
+
+    private static final class Shard {
+        private final TicketIdGenerator ticketIds;
+        private final Map<String, ParkingService> lots = new ConcurrentHashMap<>();
+
+        Shard(TicketIdGenerator ticketIds) {
+            this.ticketIds = ticketIds;
+        }
+    }
+
+    private final class PlateIndexer implements TicketListener {
+        private final String lotId;
+
+        PlateIndexer(String lotId) {
+            this.lotId = lotId;
+        }
+
+        @Override
+        public void ticketOpened(ParkingTicket ticket) {
+            vehiclesByPlate.put(ticket.getVehicle().getPlateNumber(), new ParkedVehicle(lotId, ticket));
+        }
+
+        @Override
+        public void ticketClosed(ParkingTicket ticket) {
+            // A plate re-entering elsewhere may already have replaced this entry.
+            vehiclesByPlate.computeIfPresent(ticket.getVehicle().getPlateNumber(),
+                    (plate, parked) -> parked.getTicket() == ticket ? null : parked);
+        }
+    }
+}
@@ -0,0 +1,22 @@
+package com.cityparking.service;
+
+import com.cityparking.model.ParkingSlot;
+
+import java.time.Duration;
+
+/**
+ * Lowest floor, then shortest walk: the order of {@link ParkingSlot#compareTo}. One
+ * {@code pollFirst}.
+ */
+public class NearestFirstStrategy implements AllocationStrategy {
+
+    @Override
+    public ParkingSlot acquire(SlotAllocator.FreeSlots free, Duration expectedStay) {
+        return free.pollNearest();
+    }
+
+    @Override
+    public String toString() {
+        return "nearest";
+    }
+}
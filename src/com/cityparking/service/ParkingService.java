@@ -1,106 +1,228 @@
 package com.cityparking.service;
 
+import com.cityparking.latency.Latencies;
+import com.cityparking.latency.Operation;
 import com.cityparking.model.ParkingLot;
 import com.cityparking.model.ParkingSlot;
 import com.cityparking.model.ParkingTicket;
 import com.cityparking.model.RateCard;
+import com.cityparking.model.Reservation;
+import com.cityparking.model.SlotType;
+import com.cityparking.model.TicketIds;
+import com.cityparking.model.VehicleClass;
 import com.cityparking.model.VehicleInfo;
 
 import java.time.Duration;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.time.ZoneOffset;
 import java.util.ArrayDeque;
+import java.util.Collection;
 import java.util.Deque;
-import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
-import java.util.PriorityQueue;
 import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 /**
  * Core service that knows how to auto assign nearest slots and compute fees.
  */
 public class ParkingService {
+    /**
+     * Stay assumed for walk-in vehicles when steering them clear of upcoming reservations.
+     */
+    public static final Duration DEFAULT_EXPECTED_STAY = Duration.ofHours(2);
+
     private final ParkingLot parkingLot;
-    private final PriorityQueue<ParkingSlot> availableSlots;
-    private final Map<String, ParkingTicket> activeTickets = new HashMap<>();
-    private final Map<String, ParkingTicket> ticketsByPlate = new HashMap<>();
-    private final Map<String, ParkingTicket> ticketsBySlot = new HashMap<>();
+    private final SlotAllocator availableSlots;
+    private final LongTicketMap activeTickets = new LongTicketMap();
+    private final Map<String, ParkingTicket> ticketsByPlate = new ConcurrentHashMap<>();
+    private final Map<String, ParkingTicket> ticketsBySlot = new ConcurrentHashMap<>();
     private final Deque<ParkingTicket> recentHistory = new ArrayDeque<>();
     private final RateCard rateCard;
-    private double totalRevenue = 0.0;
+    private final RevenueLedger revenue = new RevenueLedger();
+    private final List<TicketListener> ticketListeners = new CopyOnWriteArrayList<>();
+    private final TicketIdGenerator ticketIds;
+    private final ReservationBook reservations;
 
     public ParkingService(ParkingLot parkingLot, RateCard rateCard) {
+        this(parkingLot, rateCard, new TimestampTicketIdGenerator(0));
+    }
+
+    public ParkingService(ParkingLot parkingLot, RateCard rateCard, TicketIdGenerator ticketIds) {
+        this(parkingLot, rateCard, ticketIds, SlotTypeRules.defaults());
+    }
+
+    public ParkingService(ParkingLot parkingLot, RateCard rateCard, TicketIdGenerator ticketIds,
+                          SlotTypeRules slotTypeRules) {
+        this(parkingLot, rateCard, ticketIds, slotTypeRules, new NearestFirstStrategy());
+    }
+
+    public ParkingService(ParkingLot parkingLot, RateCard rateCard, TicketIdGenerator ticketIds,
+                          SlotTypeRules slotTypeRules, AllocationStrategy allocationStrategy) {
         this.parkingLot = parkingLot;
         this.rateCard = rateCard;
-        this.availableSlots = new PriorityQueue<>(parkingLot.getSlots());
+        this.ticketIds = ticketIds;
+        this.availableSlots = new SlotAllocator(parkingLot, slotTypeRules, allocationStrategy);
+        this.reservations = new ReservationBook(parkingLot.getSlots(), slotTypeRules);
+        // Booked bays are offered to walk-ins last, so their reservation check rarely runs.
+        reservations.addListener(new ReservationListener() {
+            @Override
+            public void reservationBooked(Reservation reservation) {
+                availableSlots.hold(reservation.getSlot());
+            }
+
+            @Override
+            public void reservationReleased(Reservation reservation) {
+                availableSlots.unhold(reservation.getSlot());
+            }
+        });
     }
 
+    /**
+     * Parks a walk-in vehicle that declared no stay. Reservations are steered clear of for
+     * {@link #DEFAULT_EXPECTED_STAY}, but the ticket is open-ended, so it is never reported as
+     * overstaying.
+     */
     public Optional<ParkingTicket> assignSlot(VehicleInfo vehicle) {
-        ParkingSlot slot = availableSlots.poll();
-        if (slot == null || slot.isOccupied()) {
-            return Optional.empty();
-        }
-        slot.occupy(vehicle, LocalDateTime.now());
-        ParkingTicket ticket = new ParkingTicket(slot, vehicle);
-        registerTicket(ticket);
-        return Optional.of(ticket);
+        return assign(vehicle, DEFAULT_EXPECTED_STAY, false);
+    }
+
+    /**
+     * Parks a walk-in vehicle in a free slot its class may use, see {@link SlotTypeRules}, that
+     * is not reserved within {@code expectedStay} from now. The {@link AllocationStrategy}
+     * chooses among those slots. The ticket is due at the end of the expected stay.
+     */
+    public Optional<ParkingTicket> assignSlot(VehicleInfo vehicle, Duration expectedStay) {
+        return assign(vehicle, expectedStay, true);
     }
 
+    /**
+     * Closes a ticket by its printed id. Unknown or malformed ids yield empty.
+     */
     public Optional<ParkingTicket> closeTicket(String ticketId) {
-        ParkingTicket ticket = activeTickets.remove(ticketId);
-        if (ticket == null) {
-            return Optional.empty();
-        }
-        ParkingSlot slot = ticket.getSlot();
-        Duration duration = Duration.between(ticket.getCheckInTime(), LocalDateTime.now());
-        long hours = Math.max(1, (long) Math.ceil(duration.toMinutes() / 60.0));
-        double fee = rateCard.feeForHours(hours);
-        ticket.close(fee);
-        totalRevenue += fee;
-        ticketsByPlate.remove(ticket.getVehicle().getPlateNumber());
-        ticketsBySlot.remove(ticket.getSlot().getSlotId().toUpperCase());
-        recentHistory.addFirst(ticket);
-        while (recentHistory.size() > 8) {
-            recentHistory.removeLast();
+        long ticketKey = TicketIds.parse(ticketId);
+        return ticketKey > 0 ? closeTicket(ticketKey) : Optional.empty();
+    }
+
+    public Optional<ParkingTicket> closeTicket(long ticketKey) {
+        long start = System.nanoTime();
+        try {
+            ParkingTicket ticket = activeTickets.remove(ticketKey);
+            return ticket != null ? Optional.of(settle(ticket)) : Optional.empty();
+        } finally {
+            Latencies.record(Operation.CLOSE_TICKET, start);
         }
-        slot.release();
-        availableSlots.add(slot);
-        return Optional.of(ticket);
     }
 
+    /**
+     * Parks a vehicle in a chosen slot, unless it is taken or reserved within
+     * {@link #DEFAULT_EXPECTED_STAY} from now. The bay type is not checked: choosing the bay is
+     * how accessible bays and other exceptions are handed out.
+     */
     public Optional<ParkingTicket> assignSlotTo(String slotId, VehicleInfo vehicle) {
-        if (slotId == null || slotId.isBlank()) {
-            return Optional.empty();
+        long start = System.nanoTime();
+        try {
+            long from = LocalDateTime.now().toEpochSecond(ZoneOffset.UTC);
+            long to = from + DEFAULT_EXPECTED_STAY.toSeconds();
+            Optional<ParkingSlot> acquired = parkingLot.findSlotById(slotId).filter(availableSlots::acquire);
+            // Checked only once the bay is ours, so a booking made while we claimed it is still seen.
+            if (acquired.isPresent() && reservations.isHeld(acquired.get(), from, to)) {
+                availableSlots.release(acquired.get());
+                return Optional.empty();
+            }
+            return issueTicket(acquired, vehicle, null);
+        } finally {
+            Latencies.record(Operation.ASSIGN_SLOT_TO, start);
         }
-        Optional<ParkingSlot> slotOpt = parkingLot.findSlotById(slotId);
-        if (slotOpt.isEmpty()) {
+    }
+
+    /**
+     * Parks a pre-booked vehicle in its reserved slot and lifts the hold. If the slot is still
+     * taken, the nearest slot that stays clear until the booking ends is used instead. Either
+     * way the ticket is due when the booking ends.
+     */
+    public Optional<ParkingTicket> checkInReservation(long reservationId, VehicleInfo vehicle) {
+        Optional<Reservation> reservation = reservations.cancel(reservationId);
+        if (reservation.isEmpty()) {
             return Optional.empty();
         }
-        ParkingSlot slot = slotOpt.get();
-        if (slot.isOccupied()) {
-            return Optional.empty();
+        ParkingSlot slot = reservation.get().getSlot();
+        if (availableSlots.acquire(slot)) {
+            return issueTicket(Optional.of(slot), vehicle, reservation.get().getEnd());
         }
-        availableSlots.remove(slot);
-        slot.occupy(vehicle, LocalDateTime.now());
-        ParkingTicket ticket = new ParkingTicket(slot, vehicle);
-        registerTicket(ticket);
-        return Optional.of(ticket);
+        Duration remaining = Duration.between(LocalDateTime.now(), reservation.get().getEnd());
+        return assignSlot(vehicle, remaining.isNegative() ? DEFAULT_EXPECTED_STAY : remaining);
     }
 
     public synchronized boolean registerSlot(ParkingSlot slot) {
         boolean added = parkingLot.addSlot(slot);
-        if (added && !slot.isOccupied()) {
-            availableSlots.add(slot);
+        if (added) {
+            availableSlots.release(slot);
+            reservations.addSlot(slot);
         }
         return added;
     }
 
+    /**
+     * Bulk variant of {@link #registerSlot} for loading a full bay inventory in linear time.
+     */
+    public synchronized int registerSlots(Collection<ParkingSlot> slots) {
+        int before = parkingLot.getTotalSlots();
+        int added = parkingLot.addSlots(slots);
+        for (ParkingSlot slot : parkingLot.getSlots().subList(before, before + added)) {
+            availableSlots.release(slot);
+            reservations.addSlot(slot);
+        }
+        return added;
+    }
+
+    public void addTicketListener(TicketListener listener) {
+        ticketListeners.add(listener);
+    }
+
+    public void removeTicketListener(TicketListener listener) {
+        ticketListeners.remove(listener);
+    }
+
+    /**
+     * Re-admits a ticket recovered from durable storage without notifying listeners.
+     *
+     * @return false when the slot is unknown or already taken
+     */
+    public boolean restoreTicket(long ticketKey, String slotId, VehicleInfo vehicle, LocalDateTime checkInTime) {
+        ticketIds.advancePast(ticketKey);
+        Optional<ParkingSlot> acquired = parkingLot.findSlotById(slotId).filter(availableSlots::acquire);
+        if (acquired.isEmpty()) {
+            return false;
+        }
+        ParkingSlot slot = acquired.get();
+        slot.occupy(vehicle, checkInTime);
+        indexTicket(new ParkingTicket(ticketKey, slot, vehicle, checkInTime));
+        return true;
+    }
+
+    /**
+     * Adds revenue recovered from durable storage to the ledger, which only keeps the current
+     * day's. Revenue for a slot that is no longer registered is booked under floor -1.
+     */
+    public void restoreRevenue(LocalDate date, String slotId, VehicleClass vehicleClass, long paise) {
+        int floor = parkingLot.findSlotById(slotId).map(ParkingSlot::getFloor).orElse(-1);
+        revenue.record(date, floor, vehicleClass, paise);
+    }
+
     public Optional<ParkingTicket> findActiveTicketByPlate(String plateNumber) {
         if (plateNumber == null) {
             return Optional.empty();
         }
-        return Optional.ofNullable(ticketsByPlate.get(plateNumber.trim().toUpperCase()));
+        long start = System.nanoTime();
+        try {
+            return Optional.ofNullable(ticketsByPlate.get(plateNumber.trim().toUpperCase()));
+        } finally {
+            Latencies.record(Operation.FIND_BY_PLATE, start);
+        }
     }
 
     public Optional<ParkingTicket> findActiveTicketBySlot(String slotId) {
@@ -112,38 +234,154 @@ public class ParkingService {
 
     public Map<Integer, Long> getFloorLoad() {
         Map<Integer, Long> floorLoad = new TreeMap<>();
-        parkingLot.getSlots().forEach(slot -> {
-            if (slot.isOccupied()) {
-                floorLoad.merge(slot.getFloor(), 1L, Long::sum);
+        parkingLot.getFloorOccupancy().forEach(floor -> {
+            if (floor.getOccupiedSlots() > 0) {
+                floorLoad.put(floor.getFloor(), floor.getOccupiedSlots());
             }
         });
         return floorLoad;
     }
 
     public List<ParkingTicket> getRecentHistory() {
-        return recentHistory.stream().toList();
+        synchronized (recentHistory) {
+            return List.copyOf(recentHistory);
+        }
+    }
+
+    public RevenueLedger getRevenue() {
+        return revenue;
     }
 
-    public double getTotalRevenue() {
-        return totalRevenue;
+    /**
+     * Fee for a stay of {@code hours} starting now, rounded up to the next whole hour.
+     */
+    public double estimateFee(VehicleClass vehicleClass, double hours) {
+        long roundedHours = Math.max(1, (long) Math.ceil(hours));
+        return rateCard.feePaise(vehicleClass, LocalDateTime.now().getHour(), roundedHours) / 100.0;
     }
 
-    public double estimateFee(double hours) {
-        double sanitized = Math.max(0.25, hours);
-        long roundedHours = Math.max(1, (long) Math.ceil(sanitized));
-        return rateCard.feeForHours(roundedHours);
+    public ReservationBook getReservations() {
+        return reservations;
     }
 
-    public Map<String, ParkingTicket> getActiveTickets() {
-        return activeTickets;
+    public RateCard getRateCard() {
+        return rateCard;
+    }
+
+    /**
+     * Snapshot of the open tickets, in no particular order.
+     */
+    public List<ParkingTicket> getActiveTickets() {
+        return activeTickets.values();
+    }
+
+    public int getActiveTicketCount() {
+        return activeTickets.size();
+    }
+
+    /**
+     * Depth of the free-slot pool, cheap enough to poll for monitoring.
+     */
+    public int getFreeSlotCount() {
+        return availableSlots.size();
+    }
+
+    /**
+     * Free slots of the bay types a vehicle of the given class may be assigned.
+     */
+    public int getFreeSlotCount(VehicleClass vehicleClass) {
+        return availableSlots.size(vehicleClass);
+    }
+
+    public int getFreeSlotCount(SlotType slotType) {
+        return availableSlots.size(slotType);
+    }
+
+    public SlotTypeRules getSlotTypeRules() {
+        return availableSlots.getRules();
+    }
+
+    public AllocationStrategy getAllocationStrategy() {
+        return availableSlots.getStrategy();
     }
 
     public ParkingLot getParkingLot() {
         return parkingLot;
     }
 
+    private Optional<ParkingTicket> assign(VehicleInfo vehicle, Duration expectedStay, boolean dueAtEnd) {
+        long start = System.nanoTime();
+        try {
+            VehicleClass vehicleClass = vehicle.getVehicleClass();
+            LocalDateTime now = LocalDateTime.now();
+            LocalDateTime due = dueAtEnd ? now.plus(expectedStay) : null;
+            if (reservations.isEmpty()) {
+                return issueTicket(availableSlots.acquire(vehicleClass, expectedStay, null), vehicle, due);
+            }
+            long from = now.toEpochSecond(ZoneOffset.UTC);
+            long to = from + Math.max(1, expectedStay.toSeconds());
+            return issueTicket(availableSlots.acquire(vehicleClass, expectedStay,
+                    slot -> !reservations.isHeld(slot, from, to)), vehicle, due);
+        } finally {
+            Latencies.record(Operation.ASSIGN_SLOT, start);
+        }
+    }
+
+    private Optional<ParkingTicket> issueTicket(Optional<ParkingSlot> acquired, VehicleInfo vehicle,
+                                                LocalDateTime dueTime) {
+        if (acquired.isEmpty()) {
+            return Optional.empty();
+        }
+        ParkingSlot slot = acquired.get();
+        LocalDateTime now = LocalDateTime.now();
+        slot.occupy(vehicle, now);
+        ParkingTicket ticket = new ParkingTicket(ticketIds.nextKey(), slot, vehicle, now, dueTime);
+        registerTicket(ticket);
+        return Optional.of(ticket);
+    }
+
+    private ParkingTicket settle(ParkingTicket ticket) {
+        ParkingSlot slot = ticket.getSlot();
+        VehicleClass vehicleClass = ticket.getVehicle().getVehicleClass();
+        LocalDateTime now = LocalDateTime.now();
+        long fee = rateCard.feePaise(vehicleClass, ticket.getCheckInTime(), now);
+        ticket.close(fee, now);
+        revenue.record(now.toLocalDate(), slot.getFloor(), vehicleClass, fee);
+        ticketsByPlate.remove(ticket.getVehicle().getPlateNumber(), ticket);
+        ticketsBySlot.remove(ticket.getSlot().getSlotId().toUpperCase(), ticket);
+        synchronized (recentHistory) {
+            recentHistory.addFirst(ticket);
+            while (recentHistory.size() > 8) {
+                recentHistory.removeLast();
+            }
+        }
+        slot.release();
+        availableSlots.release(slot);
+        for (TicketListener listener : ticketListeners) {
+            try {
+                listener.ticketClosed(ticket);
+            } catch (RuntimeException e) {
+                // The bay is already released; one failing listener must not starve the others.
+                System.err.println("Ticket listener failed on close of " + ticket.getTicketId() + ": " + e);
+            }
+        }
+        return ticket;
+    }
+
     private void registerTicket(ParkingTicket ticket) {
-        activeTickets.put(ticket.getTicketId(), ticket);
+        // Notify before the ticket becomes findable so its open event always precedes its close.
+        for (TicketListener listener : ticketListeners) {
+            try {
+                listener.ticketOpened(ticket);
+            } catch (RuntimeException e) {
+                System.err.println("Ticket listener failed on open of " + ticket.getTicketId() + ": " + e);
+            }
+        }
+        indexTicket(ticket);
+    }
+
+    private void indexTicket(ParkingTicket ticket) {
+        activeTickets.put(ticket.getTicketKey(), ticket);
         ticketsByPlate.put(ticket.getVehicle().getPlateNumber(), ticket);
         ticketsBySlot.put(ticket.getSlot().getSlotId().toUpperCase(), ticket);
     }
@@ -0,0 +1,359 @@
+package com.cityparking.service;
+
+import com.cityparking.model.ParkingSlot;
+import com.cityparking.model.Reservation;
+import com.cityparking.model.SlotType;
+import com.cityparking.model.VehicleClass;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Future holds on bays, kept on a 15-minute grid: a booking is widened to whole quarter hours.
+ * Two indexes describe the same holds:
+ * <ul>
+ *   <li>per bay, a {@link TreeMap} of holds by start, so "is this bay held between now and the
+ *   end of the expected stay" is one {@code lowerEntry}, O(log n) in that bay's bookings; this is
+ *   what the gates ask on every walk-in;</li>
+ *   <li>per bay type and quarter hour, a bitmap of held bays in allocation order with a summary
+ *   bit per fully held 64-bay word, so "nearest EV bay free from 18:00 to 22:00" ORs sixteen
+ *   summaries to skip full stretches and stops at the first clear bit. Its cost depends on the
+ *   window length and the bay count over 4096, never on how many bookings exist, and bays of
+ *   types the vehicle may not use are never looked at. Types are tried in
+ *   {@link SlotTypeRules} order, as for walk-ins.</li>
+ * </ul>
+ * Bookings, cancellations and searches serialise on the book; gate checks only lock one bay's
+ * holds. Current occupancy is not consulted: a hold whose bay is still taken when the driver
+ * arrives is moved to another bay at check-in.
+ */
+public class ReservationBook {
+    private static final long QUARTER_SECONDS = 15 * 60;
+
+    private final Map<ParkingSlot, Holds> holdsBySlot = new ConcurrentHashMap<>();
+    private final Map<Long, Reservation> byId = new ConcurrentHashMap<>();
+    private final AtomicLong nextId = new AtomicLong();
+    private final Calendar[] calendars = new Calendar[SlotType.values().length];
+    private final SlotTypeRules rules;
+    private final List<ReservationListener> listeners = new CopyOnWriteArrayList<>();
+
+    public ReservationBook(Collection<ParkingSlot> slots) {
+        this(slots, SlotTypeRules.defaults());
+    }
+
+    public ReservationBook(Collection<ParkingSlot> slots, SlotTypeRules rules) {
+        this.rules = rules;
+        for (int i = 0; i < calendars.length; i++) {
+            calendars[i] = new Calendar();
+        }
+        slots.stream().sorted().forEach(this::addSlot);
+    }
+
+    /**
+     * Makes a newly registered bay bookable. Bays added after construction are searched after
+     * the original ones.
+     */
+    public synchronized void addSlot(ParkingSlot slot) {
+        Calendar calendar = calendars[slot.getSlotType().ordinal()];
+        Holds holds = new Holds(calendar, calendar.bays.size());
+        if (holdsBySlot.putIfAbsent(slot, holds) != null) {
+            return;
+        }
+        calendar.bays.add(slot);
+        int word = holds.index >>> 6;
+        for (Quarter quarter : calendar.quarters.values()) {
+            quarter.clearFull(word);
+        }
+    }
+
+    /**
+     * Books the nearest bay with no hold in {@code [start, end)} of the most preferred type the
+     * vehicle class may use.
+     */
+    public synchronized Optional<Reservation> reserve(String plateNumber, VehicleClass vehicleClass,
+                                                      LocalDateTime start, LocalDateTime end) {
+        long from = startQuarter(start, end);
+        long to = endQuarter(end);
+        return findFree(vehicleClass, from, to).map(slot -> book(slot, plateNumber, from, to));
+    }
+
+    /**
+     * Books a specific bay, or returns empty when it is unknown or already held in the window.
+     */
+    public synchronized Optional<Reservation> reserve(ParkingSlot slot, String plateNumber,
+                                                      LocalDateTime start, LocalDateTime end) {
+        long from = startQuarter(start, end);
+        long to = endQuarter(end);
+        Holds holds = holdsBySlot.get(slot);
+        if (holds == null || holds.overlaps(from * QUARTER_SECONDS, to * QUARTER_SECONDS)) {
+            return Optional.empty();
+        }
+        return Optional.of(book(slot, plateNumber, from, to));
+    }
+
+    /**
+     * The bay {@link #reserve(String, VehicleClass, LocalDateTime, LocalDateTime)} would book for
+     * {@code [start, end)}, once widened to whole quarter hours.
+     */
+    public synchronized Optional<ParkingSlot> findFreeSlot(VehicleClass vehicleClass, LocalDateTime start,
+                                                           LocalDateTime end) {
+        return findFree(vehicleClass, startQuarter(start, end), endQuarter(end));
+    }
+
+    /**
+     * True when the bay has a hold overlapping {@code [fromSecond, toSecond)}.
+     */
+    public boolean isHeld(ParkingSlot slot, long fromSecond, long toSecond) {
+        Holds holds = holdsBySlot.get(slot);
+        return holds != null && holds.overlaps(fromSecond, toSecond);
+    }
+
+    public synchronized Optional<Reservation> cancel(long reservationId) {
+        Reservation reservation = byId.remove(reservationId);
+        if (reservation == null) {
+            return Optional.empty();
+        }
+        Holds holds = holdsBySlot.get(reservation.getSlot());
+        holds.remove(reservation);
+        Map<Long, Quarter> quarters = holds.calendar.quarters;
+        for (long q = reservation.getStartSecond() / QUARTER_SECONDS; q < reservation.getEndSecond() / QUARTER_SECONDS; q++) {
+            Quarter quarter = quarters.get(q);
+            if (quarter != null && quarter.clear(holds.index)) {
+                quarters.remove(q);
+            }
+        }
+        listeners.forEach(listener -> listener.reservationReleased(reservation));
+        return Optional.of(reservation);
+    }
+
+    /**
+     * Drops every hold that ended at or before {@code now}. Scans the whole book; a
+     * {@link StayMonitor} releases holds as they end instead.
+     *
+     * @return the number of holds dropped
+     */
+    public synchronized int expire(LocalDateTime now) {
+        long second = now.toEpochSecond(ZoneOffset.UTC);
+        List<Long> expired = new ArrayList<>();
+        for (Reservation reservation : byId.values()) {
+            if (reservation.getEndSecond() <= second) {
+                expired.add(reservation.getReservationId());
+            }
+        }
+        expired.forEach(this::cancel);
+        return expired.size();
+    }
+
+    public void addListener(ReservationListener listener) {
+        listeners.add(listener);
+    }
+
+    public void removeListener(ReservationListener listener) {
+        listeners.remove(listener);
+    }
+
+    public Optional<Reservation> find(long reservationId) {
+        return Optional.ofNullable(byId.get(reservationId));
+    }
+
+    /**
+     * Holds on one bay in start order.
+     */
+    public List<Reservation> getReservations(ParkingSlot slot) {
+        Holds holds = holdsBySlot.get(slot);
+        return holds == null ? List.of() : holds.snapshot();
+    }
+
+    /**
+     * Snapshot of every hold, in no particular order.
+     */
+    public List<Reservation> getReservations() {
+        return List.copyOf(byId.values());
+    }
+
+    public int size() {
+        return byId.size();
+    }
+
+    public boolean isEmpty() {
+        return byId.isEmpty();
+    }
+
+    private Optional<ParkingSlot> findFree(VehicleClass vehicleClass, long fromQuarter, long toQuarter) {
+        for (SlotType type : rules.typesFor(vehicleClass)) {
+            Calendar calendar = calendars[type.ordinal()];
+            int index = calendar.findFreeIndex(fromQuarter, toQuarter);
+            if (index >= 0) {
+                return Optional.of(calendar.bays.get(index));
+            }
+        }
+        return Optional.empty();
+    }
+
+    private Reservation book(ParkingSlot slot, String plateNumber, long fromQuarter, long toQuarter) {
+        Reservation reservation = new Reservation(nextId.incrementAndGet(), slot, plateNumber,
+                LocalDateTime.ofEpochSecond(fromQuarter * QUARTER_SECONDS, 0, ZoneOffset.UTC),
+                LocalDateTime.ofEpochSecond(toQuarter * QUARTER_SECONDS, 0, ZoneOffset.UTC));
+        Holds holds = holdsBySlot.get(slot);
+        holds.add(reservation);
+        int count = holds.calendar.bays.size();
+        for (long q = fromQuarter; q < toQuarter; q++) {
+            holds.calendar.quarters.computeIfAbsent(q, k -> new Quarter()).set(holds.index, count);
+        }
+        byId.put(reservation.getReservationId(), reservation);
+        listeners.forEach(listener -> listener.reservationBooked(reservation));
+        return reservation;
+    }
+
+    private static long startQuarter(LocalDateTime start, LocalDateTime end) {
+        if (!start.isBefore(end)) {
+            throw new IllegalArgumentException("Reservation must end after it starts: " + start + " - " + end);
+        }
+        return Math.floorDiv(start.toEpochSecond(ZoneOffset.UTC), QUARTER_SECONDS);
+    }
+
+    private static long endQuarter(LocalDateTime end) {
+        return Math.floorDiv(end.toEpochSecond(ZoneOffset.UTC) + QUARTER_SECONDS - 1, QUARTER_SECONDS);
+    }
+
+    private static long validBits(int word, int count) {
+        int remaining = count - (word << 6);
+        return remaining >= 64 ? -1L : (1L << remaining) - 1;
+    }
+
+    /**
+     * Bays of one type in allocation order and, per quarter hour, which of them are held.
+     */
+    private static final class Calendar {
+        private final List<ParkingSlot> bays = new ArrayList<>();
+        private final Map<Long, Quarter> quarters = new HashMap<>();
+
+        int findFreeIndex(long fromQuarter, long toQuarter) {
+            int count = bays.size();
+            if (count == 0) {
+                return -1;
+            }
+            Quarter[] window = new Quarter[(int) (toQuarter - fromQuarter)];
+            int held = 0;
+            for (long q = fromQuarter; q < toQuarter; q++) {
+                Quarter quarter = quarters.get(q);
+                if (quarter != null) {
+                    window[held++] = quarter;
+                }
+            }
+            int words = (count + 63) >>> 6;
+            for (int summary = 0; summary < (words + 63) >>> 6; summary++) {
+                long skip = 0;
+                for (int i = 0; i < held; i++) {
+                    skip |= window[i].full(summary);
+                }
+                for (long open = ~skip; open != 0; open &= open - 1) {
+                    int word = (summary << 6) + Long.numberOfTrailingZeros(open);
+                    if (word >= words) {
+                        break;
+                    }
+                    long busy = 0;
+                    for (int i = 0; i < held; i++) {
+                        busy |= window[i].busy(word);
+                    }
+                    long free = ~busy & validBits(word, count);
+                    if (free != 0) {
+                        return (word << 6) + Long.numberOfTrailingZeros(free);
+                    }
+                }
+            }
+            return -1;
+        }
+    }
+
+    /**
+     * Bays held during one quarter hour, plus one bit per 64-bay word that is entirely held.
+     */
+    private static final class Quarter {
+        private long[] busy = new long[0];
+        private long[] full = new long[0];
+        private int held;
+
+        void set(int index, int count) {
+            int word = index >>> 6;
+            if (word >= busy.length) {
+                busy = Arrays.copyOf(busy, Math.max(word + 1, busy.length * 2));
+                full = Arrays.copyOf(full, (busy.length + 63) >>> 6);
+            }
+            long bit = 1L << index;
+            if ((busy[word] & bit) == 0) {
+                busy[word] |= bit;
+                held++;
+            }
+            if (busy[word] == validBits(word, count)) {
+                full[word >>> 6] |= 1L << word;
+            }
+        }
+
+        /**
+         * @return true when no bay is held any more
+         */
+        boolean clear(int index) {
+            int word = index >>> 6;
+            long bit = 1L << index;
+            if ((busy[word] & bit) != 0) {
+                busy[word] &= ~bit;
+                held--;
+            }
+            clearFull(word);
+            return held == 0;
+        }
+
+        void clearFull(int word) {
+            if ((word >>> 6) < full.length) {
+                full[word >>> 6] &= ~(1L << word);
+            }
+        }
+
+        long busy(int word) {
+            return word < busy.length ? busy[word] : 0;
+        }
+
+        long full(int summary) {
+            return summary < full.length ? full[summary] : 0;
+        }
+    }
+
+    private static final class Holds {
+        private final Calendar calendar;
+        private final int index;
+        private final TreeMap<Long, Reservation> byStart = new TreeMap<>();
+
+        Holds(Calendar calendar, int index) {
+            this.calendar = calendar;
+            this.index = index;
+        }
+
+        synchronized boolean overlaps(long from, long to) {
+            Map.Entry<Long, Reservation> latest = byStart.lowerEntry(to);
+            return latest != null && latest.getValue().getEndSecond() > from;
+        }
+
+        synchronized void add(Reservation reservation) {
+            byStart.put(reservation.getStartSecond(), reservation);
+        }
+
+        synchronized void remove(Reservation reservation) {
+            byStart.remove(reservation.getStartSecond(), reservation);
+        }
+
+        synchronized List<Reservation> snapshot() {
+            return List.copyOf(byStart.values());
+        }
+    }
+}
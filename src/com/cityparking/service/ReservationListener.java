@@ -0,0 +1,14 @@
+package com.cityparking.service;
+
+import com.cityparking.model.Reservation;
+
+/**
+ * Callback fired by {@link ReservationBook} when a hold is booked or lifted, whether by
+ * cancellation, check-in or expiry. Runs while the book is locked, so implementations must only
+ * record the change and must not call back into the book.
+ */
+public interface ReservationListener {
+    void reservationBooked(Reservation reservation);
+
+    void reservationReleased(Reservation reservation);
+}
@@ -0,0 +1,99 @@
+package com.cityparking.service;
+
+import com.cityparking.model.VehicleClass;
+
+import java.time.LocalDate;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Revenue collected today in paise, totalled and broken down by floor and by tariff class; revenue
+ * over time, per minute, hour or day, comes from {@code MetricsEngine}'s rollups. Every bucket is
+ * a {@link LongAdder}, so concurrent exits neither lose updates nor contend on one counter,
+ * integer paise never drift, and reports read the sums without blocking billing. A report taken
+ * while exits are being billed may see some buckets updated before others; each bucket on its own
+ * is exact.
+ * <p>
+ * The buckets belong to one calendar day of the lot's clock. The first exit of a new day starts
+ * a fresh set, and reports read zero until it does; an exit billed for a day that has already
+ * been rolled past is not counted.
+ */
+public class RevenueLedger {
+    private static final VehicleClass[] CLASSES = VehicleClass.values();
+
+    private final AtomicReference<Day> current = new AtomicReference<>(new Day(LocalDate.now()));
+
+    public void record(LocalDate date, int floor, VehicleClass vehicleClass, long paise) {
+        Day day = dayFor(date);
+        if (day == null) {
+            return;
+        }
+        day.total.add(paise);
+        day.byFloor.computeIfAbsent(floor, key -> new LongAdder()).add(paise);
+        day.byClass[vehicleClass.ordinal()].add(paise);
+    }
+
+    public long getTotalPaise() {
+        Day day = today();
+        return day == null ? 0 : day.total.sum();
+    }
+
+    /**
+     * Revenue per floor, ordered by floor.
+     */
+    public Map<Integer, Long> getByFloor() {
+        Map<Integer, Long> floors = new TreeMap<>();
+        Day day = today();
+        if (day != null) {
+            day.byFloor.forEach((floor, paise) -> floors.put(floor, paise.sum()));
+        }
+        return floors;
+    }
+
+    public Map<VehicleClass, Long> getByVehicleClass() {
+        Map<VehicleClass, Long> classes = new EnumMap<>(VehicleClass.class);
+        Day day = today();
+        for (VehicleClass vehicleClass : CLASSES) {
+            classes.put(vehicleClass, day == null ? 0L : day.byClass[vehicleClass.ordinal()].sum());
+        }
+        return classes;
+    }
+
+    private Day today() {
+        Day day = current.get();
+        return day.date.equals(LocalDate.now()) ? day : null;
+    }
+
+    /**
+     * The buckets for {@code date}, rolling forward when it is a new day; null for a past day.
+     */
+    private Day dayFor(LocalDate date) {
+        Day day = current.get();
+        while (day.date.isBefore(date)) {
+            Day next = new Day(date);
+            if (current.compareAndSet(day, next)) {
+                return next;
+            }
+            day = current.get();
+        }
+        return day.date.equals(date) ? day : null;
+    }
+
+    private static final class Day {
+        private final LocalDate date;
+        private final LongAdder total = new LongAdder();
+        private final Map<Integer, LongAdder> byFloor = new ConcurrentHashMap<>();
+        private final LongAdder[] byClass = new LongAdder[CLASSES.length];
+
+        Day(LocalDate date) {
+            this.date = date;
+            for (int i = 0; i < byClass.length; i++) {
+                byClass[i] = new LongAdder();
+            }
+        }
+    }
+}
@@ -0,0 +1,301 @@
+package com.cityparking.service;
+
+import com.cityparking.model.FloorOccupancy;
+import com.cityparking.model.ParkingLot;
+import com.cityparking.model.ParkingSlot;
+import com.cityparking.model.SlotType;
+import com.cityparking.model.VehicleClass;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+/**
+ * Thread-safe pool of free slots, one per bay type, each ordered by {@link ParkingSlot#compareTo}
+ * (floor, distance, id). Backed by lock-free skip lists so entry gates and exit kiosks never
+ * serialise on one lock; a slot is handed out only by the thread whose removal from the pool
+ * succeeds. A vehicle is served from the pools its class may use, in {@link SlotTypeRules}
+ * order, and never walks bays of other types. Within a pool the {@link AllocationStrategy}
+ * picks the bay; because the order is floor first, each floor's free bays are a contiguous
+ * range of the skip list, so strategies can take the nearest bay on any floor in O(log n).
+ * <p>
+ * Bays with a reservation on them wait in a second set per type from booking until the last
+ * hold is released, see {@link #hold} and {@link #unhold}, so a walk-in's reservation filter
+ * only runs over them when every unbooked bay of the type is taken. Moves between the two sets
+ * run under the bay's entry in the hold counts, so a returning bay and a new or lifted hold
+ * never race it into the wrong set.
+ */
+public class SlotAllocator {
+    private static final SlotType[] TYPES = SlotType.values();
+
+    private final Pool[] pools = new Pool[TYPES.length];
+    private final Map<ParkingSlot, Integer> holds = new ConcurrentHashMap<>();
+    private final SlotTypeRules rules;
+    private final AllocationStrategy strategy;
+    private final Supplier<List<FloorOccupancy>> floorOccupancy;
+
+    public SlotAllocator(Collection<ParkingSlot> slots) {
+        this(slots, SlotTypeRules.defaults());
+    }
+
+    public SlotAllocator(Collection<ParkingSlot> slots, SlotTypeRules rules) {
+        this(slots, rules, new NearestFirstStrategy(), List::of);
+    }
+
+    /**
+     * Allocator over a lot's slots whose strategy can read the lot's per-floor occupancy.
+     */
+    public SlotAllocator(ParkingLot lot, SlotTypeRules rules, AllocationStrategy strategy) {
+        this(lot.getSlots(), rules, strategy, lot::getFloorOccupancy);
+    }
+
+    private SlotAllocator(Collection<ParkingSlot> slots, SlotTypeRules rules, AllocationStrategy strategy,
+                          Supplier<List<FloorOccupancy>> floorOccupancy) {
+        this.rules = rules;
+        this.strategy = strategy;
+        this.floorOccupancy = floorOccupancy;
+        for (int i = 0; i < pools.length; i++) {
+            pools[i] = new Pool();
+        }
+        slots.forEach(this::release);
+    }
+
+    /**
+     * Claims a slot for a vehicle of the given class, trying its bay types in preference order
+     * and letting the strategy choose within each: first among bays with no reservation, then
+     * among reserved bays that pass {@code eligible}. Empty when no compatible slot is free.
+     *
+     * @param eligible further filter on candidate slots, or null to accept any
+     */
+    public Optional<ParkingSlot> acquire(VehicleClass vehicleClass, Duration expectedStay,
+                                         Predicate<ParkingSlot> eligible) {
+        for (SlotType type : rules.typesFor(vehicleClass)) {
+            Pool pool = pools[type.ordinal()];
+            ParkingSlot slot = null;
+            if (!pool.free.isEmpty()) {
+                slot = strategy.acquire(new FreeSlots(pool, pool.free, eligible, floorOccupancy), expectedStay);
+            }
+            if (slot == null && !pool.held.isEmpty()) {
+                slot = strategy.acquire(new FreeSlots(pool, pool.held, eligible, floorOccupancy), expectedStay);
+            }
+            if (slot != null) {
+                return Optional.of(slot);
+            }
+        }
+        return Optional.empty();
+    }
+
+    /**
+     * Claims a specific slot. Returns false when another caller already holds it. The slot is
+     * taken under the same lock as {@link #hold} and {@link #unhold}, so a bay moving between
+     * the unreserved and reserved sets is never missed in both.
+     */
+    public boolean acquire(ParkingSlot slot) {
+        Pool pool = pools[slot.getSlotType().ordinal()];
+        boolean[] taken = new boolean[1];
+        holds.compute(slot, (key, count) -> {
+            taken[0] = pool.free.remove(slot) || pool.held.remove(slot);
+            return count;
+        });
+        if (!taken[0]) {
+            return false;
+        }
+        pool.depth.decrement();
+        return true;
+    }
+
+    /**
+     * Returns a slot to the pool. Occupied slots are ignored.
+     */
+    public void release(ParkingSlot slot) {
+        if (slot.isOccupied()) {
+            return;
+        }
+        Pool pool = pools[slot.getSlotType().ordinal()];
+        holds.compute(slot, (key, count) -> {
+            if ((count == null ? pool.free : pool.held).add(slot)) {
+                pool.depth.increment();
+            }
+            return count;
+        });
+    }
+
+    /**
+     * Counts a reservation on the bay. While it has any, a free bay is offered to walk-ins only
+     * after the unreserved ones.
+     */
+    public void hold(ParkingSlot slot) {
+        Pool pool = pools[slot.getSlotType().ordinal()];
+        holds.compute(slot, (key, count) -> {
+            if (count == null && pool.free.remove(slot)) {
+                pool.held.add(slot);
+            }
+            return count == null ? 1 : count + 1;
+        });
+    }
+
+    /**
+     * Counts one reservation fewer on the bay, returning it to the unreserved bays with the last.
+     */
+    public void unhold(ParkingSlot slot) {
+        Pool pool = pools[slot.getSlotType().ordinal()];
+        holds.computeIfPresent(slot, (key, count) -> {
+            if (count > 1) {
+                return count - 1;
+            }
+            if (pool.held.remove(slot)) {
+                pool.free.add(slot);
+            }
+            return null;
+        });
+    }
+
+    public boolean isFree(ParkingSlot slot) {
+        Pool pool = pools[slot.getSlotType().ordinal()];
+        return pool.free.contains(slot) || pool.held.contains(slot);
+    }
+
+    /**
+     * Number of free slots, from counters kept next to the pools so it is cheap enough to poll
+     * for monitoring. Under concurrent traffic it may trail the pools by in-flight operations.
+     */
+    public int size() {
+        long free = 0;
+        for (Pool pool : pools) {
+            free += pool.depth.sum();
+        }
+        return (int) free;
+    }
+
+    /**
+     * Free slots of the types the class may use.
+     */
+    public int size(VehicleClass vehicleClass) {
+        long free = 0;
+        for (SlotType type : rules.typesFor(vehicleClass)) {
+            free += pools[type.ordinal()].depth.sum();
+        }
+        return (int) free;
+    }
+
+    public int size(SlotType type) {
+        return (int) pools[type.ordinal()].depth.sum();
+    }
+
+    public SlotTypeRules getRules() {
+        return rules;
+    }
+
+    public AllocationStrategy getStrategy() {
+        return strategy;
+    }
+
+    /**
+     * The free slots of one bay type as offered to an {@link AllocationStrategy}, in
+     * {@link ParkingSlot#compareTo} order: either the unreserved bays or the reserved ones.
+     * Every {@code poll} claims the slot it returns, and skips slots the caller's filter rejects.
+     */
+    public static final class FreeSlots {
+        private final Pool pool;
+        private final NavigableSet<ParkingSlot> slots;
+        private final Predicate<ParkingSlot> eligible;
+        private final Supplier<List<FloorOccupancy>> floorOccupancy;
+        private List<FloorOccupancy> occupancy;
+
+        private FreeSlots(Pool pool, NavigableSet<ParkingSlot> slots, Predicate<ParkingSlot> eligible,
+                          Supplier<List<FloorOccupancy>> floorOccupancy) {
+            this.pool = pool;
+            this.slots = slots;
+            this.eligible = eligible;
+            this.floorOccupancy = floorOccupancy;
+        }
+
+        /**
+         * Claims the nearest free slot, or returns null.
+         */
+        public ParkingSlot pollNearest() {
+            return poll(slots);
+        }
+
+        /**
+         * Claims the nearest free slot on {@code floor}, or returns null.
+         */
+        public ParkingSlot pollNearest(int floor) {
+            return poll(slots.subSet(probe(floor), true, probe(floor + 1), false));
+        }
+
+        /**
+         * Floors that have at least one free slot of this type, lowest first. Costs one skip-list
+         * seek per floor.
+         */
+        public int[] floors() {
+            int[] floors = new int[8];
+            int count = 0;
+            ParkingSlot next = slots.ceiling(probe(Integer.MIN_VALUE));
+            while (next != null) {
+                if (count == floors.length) {
+                    floors = Arrays.copyOf(floors, count * 2);
+                }
+                int floor = next.getFloor();
+                floors[count++] = floor;
+                next = floor == Integer.MAX_VALUE ? null : slots.ceiling(probe(floor + 1));
+            }
+            return Arrays.copyOf(floors, count);
+        }
+
+        /**
+         * Occupied and total slots of every type on a floor, or null when the allocator was not
+         * built over a lot. Read once per assignment from the lot's counters.
+         */
+        public FloorOccupancy occupancy(int floor) {
+            if (occupancy == null) {
+                occupancy = floorOccupancy.get();
+            }
+            for (FloorOccupancy candidate : occupancy) {
+                if (candidate.getFloor() == floor) {
+                    return candidate;
+                }
+            }
+            return null;
+        }
+
+        private ParkingSlot poll(NavigableSet<ParkingSlot> slots) {
+            if (eligible == null) {
+                ParkingSlot slot = slots.pollFirst();
+                if (slot != null) {
+                    pool.depth.decrement();
+                }
+                return slot;
+            }
+            for (ParkingSlot slot : slots) {
+                if (eligible.test(slot) && slots.remove(slot)) {
+                    pool.depth.decrement();
+                    return slot;
+                }
+            }
+            return null;
+        }
+
+        /**
+         * Sorts before every real slot on {@code floor}.
+         */
+        private static ParkingSlot probe(int floor) {
+            return new ParkingSlot("", floor, Integer.MIN_VALUE);
+        }
+    }
+
+    private static final class Pool {
+        private final ConcurrentSkipListSet<ParkingSlot> free = new ConcurrentSkipListSet<>();
+        private final ConcurrentSkipListSet<ParkingSlot> held = new ConcurrentSkipListSet<>();
+        private final LongAdder depth = new LongAdder();
+    }
+}
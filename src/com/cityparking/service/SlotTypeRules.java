@@ -0,0 +1,86 @@
+package com.cityparking.service;
+
+import com.cityparking.model.SlotType;
+import com.cityparking.model.VehicleClass;
+
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Which bay types each vehicle class may be given, in order of preference. The allocator tries
+ * the first type and falls back to the next only when no bay of the earlier types is free.
+ * Accessible bays are not in any default list; they are handed out by choosing the bay.
+ */
+public final class SlotTypeRules {
+    private static final SlotType[] NONE = new SlotType[0];
+
+    private final Map<VehicleClass, SlotType[]> preferences = new EnumMap<>(VehicleClass.class);
+
+    public SlotTypeRules(Map<VehicleClass, List<SlotType>> preferences) {
+        preferences.forEach((vehicleClass, types) -> this.preferences.put(vehicleClass, types.toArray(NONE)));
+    }
+
+    public static SlotTypeRules defaults() {
+        return new SlotTypeRules(Map.of(
+                VehicleClass.TWO_WHEELER, List.of(SlotType.TWO_WHEELER, SlotType.COMPACT, SlotType.STANDARD),
+                VehicleClass.CAR, List.of(SlotType.STANDARD, SlotType.COMPACT),
+                VehicleClass.EV, List.of(SlotType.EV, SlotType.STANDARD, SlotType.COMPACT),
+                VehicleClass.LARGE, List.of(SlotType.OVERSIZE, SlotType.STANDARD)));
+    }
+
+    /**
+     * The defaults with some classes overridden, e.g.
+     * {@code "CAR=STANDARD,COMPACT,OVERSIZE; LARGE=OVERSIZE"}.
+     *
+     * @throws IllegalArgumentException if a class or bay type is unknown
+     */
+    public static SlotTypeRules parse(String spec) {
+        Map<VehicleClass, List<SlotType>> preferences = new EnumMap<>(VehicleClass.class);
+        SlotTypeRules defaults = defaults();
+        defaults.preferences.forEach((vehicleClass, types) -> preferences.put(vehicleClass, List.of(types)));
+        for (String rule : spec.split(";")) {
+            if (rule.isBlank()) {
+                continue;
+            }
+            String[] sides = rule.split("=", 2);
+            if (sides.length != 2) {
+                throw new IllegalArgumentException("Expected CLASS=TYPE,TYPE...: " + rule);
+            }
+            VehicleClass vehicleClass = VehicleClass.valueOf(sides[0].trim().toUpperCase(Locale.ROOT));
+            List<SlotType> types = sides[1].isBlank() ? List.of() : Arrays.stream(sides[1].split(","))
+                    .map(type -> SlotType.valueOf(type.trim().toUpperCase(Locale.ROOT)))
+                    .toList();
+            preferences.put(vehicleClass, types);
+        }
+        return new SlotTypeRules(preferences);
+    }
+
+    /**
+     * Bay types for the class in order of preference; empty if the class may not be auto-assigned.
+     */
+    SlotType[] typesFor(VehicleClass vehicleClass) {
+        return preferences.getOrDefault(vehicleClass, NONE);
+    }
+
+    public List<SlotType> getPreferences(VehicleClass vehicleClass) {
+        return List.of(typesFor(vehicleClass));
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        preferences.forEach((vehicleClass, types) -> {
+            if (sb.length() > 0) {
+                sb.append("; ");
+            }
+            sb.append(vehicleClass.name()).append('=');
+            for (int i = 0; i < types.length; i++) {
+                sb.append(i == 0 ? "" : ",").append(types[i].name());
+            }
+        });
+        return sb.toString();
+    }
+}
@@ -0,0 +1,111 @@
+package com.cityparking.service;
+
+import com.cityparking.model.ParkingSlot;
+import com.cityparking.model.ParkingTicket;
+import com.cityparking.model.Reservation;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+
+/**
+ * A deadline passed by a parked vehicle or a booking, raised by {@link StayMonitor}. Ticket
+ * events carry the fee accrued when the event was raised; reservation events carry the hold
+ * that was released.
+ */
+public class StayEvent {
+    public enum Type {
+        /**
+         * The vehicle is still parked after its declared or reserved stay ended.
+         */
+        OVERSTAY,
+        /**
+         * The stay entered a new 24-hour block, so the daily cap starts over.
+         */
+        DAILY_CAP_ROLLOVER,
+        /**
+         * A booking ended without the driver checking in and its bay was released.
+         */
+        RESERVATION_EXPIRED
+    }
+
+    private final Type type;
+    private final LocalDateTime time;
+    private final ParkingTicket ticket;
+    private final Reservation reservation;
+    private final int day;
+    private final long accruedPaise;
+
+    StayEvent(Type type, LocalDateTime time, ParkingTicket ticket, Reservation reservation, int day, long accruedPaise) {
+        this.type = type;
+        this.time = time;
+        this.ticket = ticket;
+        this.reservation = reservation;
+        this.day = day;
+        this.accruedPaise = accruedPaise;
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    /**
+     * The deadline that was passed, not the moment it was noticed.
+     */
+    public LocalDateTime getTime() {
+        return time;
+    }
+
+    /**
+     * The open ticket, or null for {@link Type#RESERVATION_EXPIRED}.
+     */
+    public ParkingTicket getTicket() {
+        return ticket;
+    }
+
+    /**
+     * The released hold, or null for ticket events.
+     */
+    public Reservation getReservation() {
+        return reservation;
+    }
+
+    /**
+     * For {@link Type#DAILY_CAP_ROLLOVER}, the day of the stay that just began (2 after the first
+     * 24 hours); 0 otherwise.
+     */
+    public int getDay() {
+        return day;
+    }
+
+    public long getAccruedPaise() {
+        return accruedPaise;
+    }
+
+    public ParkingSlot getSlot() {
+        return ticket != null ? ticket.getSlot() : reservation.getSlot();
+    }
+
+    public String getPlateNumber() {
+        return ticket != null ? ticket.getVehicle().getPlateNumber() : reservation.getPlateNumber();
+    }
+
+    /**
+     * One line for operators, e.g. the control-room console or a wall display.
+     */
+    public String describe() {
+        LocalDateTime time = this.time.truncatedTo(ChronoUnit.SECONDS);
+        return switch (type) {
+            case OVERSTAY -> "%s in %s overstayed, due %s, INR %d.%02d so far".formatted(
+                    getPlateNumber(), getSlot().getSlotId(), time, accruedPaise / 100, accruedPaise % 100);
+            case DAILY_CAP_ROLLOVER -> "%s in %s started day %d at %s, INR %d.%02d so far".formatted(
+                    getPlateNumber(), getSlot().getSlotId(), day, time, accruedPaise / 100, accruedPaise % 100);
+            case RESERVATION_EXPIRED -> "Reservation #%d for %s in %s expired unused at %s".formatted(
+                    reservation.getReservationId(), getPlateNumber(), getSlot().getSlotId(), time);
+        };
+    }
+
+    @Override
+    public String toString() {
+        return type + " " + describe();
+    }
+}
@@ -0,0 +1,330 @@
+package com.cityparking.service;
+
+import com.cityparking.model.ParkingTicket;
+import com.cityparking.model.Reservation;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+/**
+ * Watches a lot's open tickets and bookings for deadlines: a vehicle still parked after its
+ * due time ({@link StayEvent.Type#OVERSTAY}), a stay entering another 24-hour cap block
+ * ({@link StayEvent.Type#DAILY_CAP_ROLLOVER}) and a booking that ended with no check-in, whose
+ * bay is then released ({@link StayEvent.Type#RESERVATION_EXPIRED}).
+ * <p>
+ * Nothing is scanned. Each ticket and booking holds one timer for its next deadline in a
+ * {@link TimerWheel}, armed from its check-in when the gate issues it and disarmed when it
+ * closes, both O(1). Gate threads never touch the wheel: they queue the arm or disarm on a
+ * lock-free queue, which the clock thread drains before each advance. A ticket's timer is
+ * re-armed after every event, so a stay costs one timer operation per event it raises, whatever
+ * the number of cars parked. The clock advances in whole ticks, one minute by default: events
+ * are raised at most a tick after their deadline and never before. Tickets restored from the
+ * journal have no due time and only roll over.
+ * <p>
+ * Listeners run on the thread that advances the clock, outside every lock.
+ */
+public class StayMonitor implements TicketListener, ReservationListener, AutoCloseable {
+    public static final Duration DEFAULT_TICK = Duration.ofMinutes(1);
+    private static final long DAY_SECONDS = 24 * 60 * 60;
+    private static final StayEvent.Type[] TYPES = StayEvent.Type.values();
+
+    private final ParkingService service;
+    private final long tickSeconds;
+    private final TimerWheel<Watch> wheel;
+    private final Queue<Change> changes = new ConcurrentLinkedQueue<>();
+    private final Map<Long, Watch> ticketWatches = new HashMap<>();
+    private final Map<Long, Watch> reservationWatches = new HashMap<>();
+    private final List<Consumer<StayEvent>> listeners = new CopyOnWriteArrayList<>();
+    private final LongAdder[] raised = new LongAdder[TYPES.length];
+    private ScheduledExecutorService executor;
+
+    public StayMonitor(ParkingService service) {
+        this(service, DEFAULT_TICK, LocalDateTime.now());
+    }
+
+    /**
+     * Starts watching {@code service} with its clock at {@code now}. Tickets already open and
+     * bookings already held are picked up.
+     *
+     * @param tick clock resolution, a whole number of seconds
+     */
+    public StayMonitor(ParkingService service, Duration tick, LocalDateTime now) {
+        if (tick.toSeconds() < 1 || tick.toNanos() % 1_000_000_000L != 0) {
+            throw new IllegalArgumentException("tick must be a whole number of seconds: " + tick);
+        }
+        this.service = service;
+        this.tickSeconds = tick.toSeconds();
+        this.wheel = new TimerWheel<>(Math.floorDiv(now.toEpochSecond(ZoneOffset.UTC), tickSeconds));
+        for (int i = 0; i < raised.length; i++) {
+            raised[i] = new LongAdder();
+        }
+        // Subscribe before reading what is already there; a ticket seen twice is watched once.
+        service.addTicketListener(this);
+        service.getReservations().addListener(this);
+        service.getActiveTickets().forEach(this::ticketOpened);
+        service.getReservations().getReservations().forEach(this::reservationBooked);
+    }
+
+    /**
+     * Advances the clock once per tick on a daemon thread.
+     */
+    public synchronized void start() {
+        if (executor != null) {
+            return;
+        }
+        executor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "stay-monitor");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long tickMillis = tickSeconds * 1000;
+        long intoTick = LocalDateTime.now().toInstant(ZoneOffset.UTC).toEpochMilli() % tickMillis;
+        executor.scheduleAtFixedRate(this::tick, tickMillis - intoTick, tickMillis, TimeUnit.MILLISECONDS);
+    }
+
+    public void addListener(Consumer<StayEvent> listener) {
+        listeners.add(listener);
+    }
+
+    public void removeListener(Consumer<StayEvent> listener) {
+        listeners.remove(listener);
+    }
+
+    @Override
+    public void ticketOpened(ParkingTicket ticket) {
+        changes.add(new Change(true, ticket, null));
+    }
+
+    @Override
+    public void ticketClosed(ParkingTicket ticket) {
+        changes.add(new Change(false, ticket, null));
+    }
+
+    @Override
+    public void reservationBooked(Reservation reservation) {
+        changes.add(new Change(true, null, reservation));
+    }
+
+    @Override
+    public void reservationReleased(Reservation reservation) {
+        changes.add(new Change(false, null, reservation));
+    }
+
+    /**
+     * Moves the clock to {@code now}, raising every event whose deadline has passed and
+     * releasing the bays of expired bookings. Called once per tick by {@link #start()}; call it
+     * directly to drive the monitor from another clock.
+     *
+     * @return the events raised
+     */
+    public List<StayEvent> advance(LocalDateTime now) {
+        long second = now.toEpochSecond(ZoneOffset.UTC);
+        List<Watch> due = new ArrayList<>();
+        List<StayEvent> events = new ArrayList<>();
+        List<Reservation> ended = new ArrayList<>();
+        synchronized (wheel) {
+            applyChanges();
+            wheel.advance(Math.floorDiv(second, tickSeconds), due::add);
+            for (Watch watch : due) {
+                if (watch.reservation != null) {
+                    reservationWatches.remove(watch.reservation.getReservationId(), watch);
+                    ended.add(watch.reservation);
+                } else if (watch.ticket.getCheckOutTime() != null) {
+                    // Closed while the watch was being set up.
+                    ticketWatches.remove(watch.ticket.getTicketKey(), watch);
+                } else {
+                    raiseTicketEvents(watch, now, second, events);
+                    wheel.reschedule(watch.timer, deadlineTick(nextDeadline(watch)));
+                }
+            }
+        }
+        // Outside the wheel lock: cancelling calls back into reservationReleased.
+        ReservationBook book = service.getReservations();
+        for (Reservation reservation : ended) {
+            book.cancel(reservation.getReservationId()).ifPresent(released -> events.add(new StayEvent(
+                    StayEvent.Type.RESERVATION_EXPIRED, released.getEnd(), null, released, 0, 0)));
+        }
+        for (StayEvent event : events) {
+            raised[event.getType().ordinal()].increment();
+            listeners.forEach(listener -> listener.accept(event));
+        }
+        return events;
+    }
+
+    public int getWatchedTicketCount() {
+        synchronized (wheel) {
+            applyChanges();
+            return ticketWatches.size();
+        }
+    }
+
+    public int getWatchedReservationCount() {
+        synchronized (wheel) {
+            applyChanges();
+            return reservationWatches.size();
+        }
+    }
+
+    /**
+     * Events of one type raised since the monitor was created.
+     */
+    public long getEventCount(StayEvent.Type type) {
+        return raised[type.ordinal()].sum();
+    }
+
+    public Duration getTick() {
+        return Duration.ofSeconds(tickSeconds);
+    }
+
+    /**
+     * Stops the clock thread and stops watching the service.
+     */
+    @Override
+    public synchronized void close() {
+        if (executor != null) {
+            executor.shutdownNow();
+            executor = null;
+        }
+        service.removeTicketListener(this);
+        service.getReservations().removeListener(this);
+    }
+
+    private void tick() {
+        try {
+            advance(LocalDateTime.now());
+        } catch (RuntimeException e) {
+            // A failing listener must not stop the clock.
+            System.err.println("Stay monitor tick failed: " + e);
+        }
+    }
+
+    /**
+     * Arms and disarms the timers queued by the gates, in the order they were queued. Called with
+     * the wheel locked.
+     */
+    private void applyChanges() {
+        Change change;
+        while ((change = changes.poll()) != null) {
+            if (change.ticket != null) {
+                long key = change.ticket.getTicketKey();
+                if (change.arm) {
+                    if (change.ticket.getCheckOutTime() == null && !ticketWatches.containsKey(key)) {
+                        Watch watch = new Watch(change.ticket, null);
+                        watch.timer = wheel.schedule(deadlineTick(nextDeadline(watch)), watch);
+                        ticketWatches.put(key, watch);
+                    }
+                } else {
+                    disarm(ticketWatches.remove(key));
+                }
+            } else {
+                long id = change.reservation.getReservationId();
+                if (change.arm) {
+                    if (!reservationWatches.containsKey(id)) {
+                        Watch watch = new Watch(null, change.reservation);
+                        watch.timer = wheel.schedule(deadlineTick(change.reservation.getEndSecond()), watch);
+                        reservationWatches.put(id, watch);
+                    }
+                } else {
+                    disarm(reservationWatches.remove(id));
+                }
+            }
+        }
+    }
+
+    private void disarm(Watch watch) {
+        if (watch != null) {
+            wheel.cancel(watch.timer);
+        }
+    }
+
+    private void raiseTicketEvents(Watch watch, LocalDateTime now, long second, List<StayEvent> events) {
+        ParkingTicket ticket = watch.ticket;
+        long checkIn = ticket.getCheckInTime().toEpochSecond(ZoneOffset.UTC);
+        long accrued = service.getRateCard().feePaise(ticket.getVehicle().getVehicleClass(), ticket.getCheckInTime(), now);
+        long dueSecond = watch.overdue || ticket.getDueTime() == null
+                ? Long.MAX_VALUE : ticket.getDueTime().toEpochSecond(ZoneOffset.UTC);
+        int days = (int) ((second - checkIn) / DAY_SECONDS);
+        long rollover = checkIn + days * DAY_SECONDS;
+        if (dueSecond <= second && dueSecond <= rollover) {
+            watch.overdue = true;
+            events.add(new StayEvent(StayEvent.Type.OVERSTAY, ticket.getDueTime(), ticket, null, 0, accrued));
+        }
+        if (days > watch.days) {
+            // After a long pause only the latest day is reported.
+            watch.days = days;
+            events.add(new StayEvent(StayEvent.Type.DAILY_CAP_ROLLOVER, toDateTime(rollover), ticket, null,
+                    days + 1, accrued));
+        }
+        if (dueSecond <= second && !watch.overdue) {
+            watch.overdue = true;
+            events.add(new StayEvent(StayEvent.Type.OVERSTAY, ticket.getDueTime(), ticket, null, 0, accrued));
+        }
+    }
+
+    /**
+     * Epoch second of the next deadline of a ticket's watch.
+     */
+    private static long nextDeadline(Watch watch) {
+        ParkingTicket ticket = watch.ticket;
+        long next = ticket.getCheckInTime().toEpochSecond(ZoneOffset.UTC) + (watch.days + 1L) * DAY_SECONDS;
+        if (!watch.overdue && ticket.getDueTime() != null) {
+            next = Math.min(next, ticket.getDueTime().toEpochSecond(ZoneOffset.UTC));
+        }
+        return next;
+    }
+
+    /**
+     * First tick at or after {@code second}, so nothing fires early.
+     */
+    private long deadlineTick(long second) {
+        return Math.floorDiv(second + tickSeconds - 1, tickSeconds);
+    }
+
+    private static LocalDateTime toDateTime(long second) {
+        return LocalDateTime.ofEpochSecond(second, 0, ZoneOffset.UTC);
+    }
+
+    /**
+     * A timer to arm or disarm for a ticket or, when {@code ticket} is null, a booking.
+     */
+    private static final class Change {
+        private final boolean arm;
+        private final ParkingTicket ticket;
+        private final Reservation reservation;
+
+        Change(boolean arm, ParkingTicket ticket, Reservation reservation) {
+            this.arm = arm;
+            this.ticket = ticket;
+            this.reservation = reservation;
+        }
+    }
+
+    /**
+     * The timer of one ticket or booking, and what it has already reported.
+     */
+    private static final class Watch {
+        private final ParkingTicket ticket;
+        private final Reservation reservation;
+        private TimerWheel.Timer<Watch> timer;
+        private int days;
+        private boolean overdue;
+
+        Watch(ParkingTicket ticket, Reservation reservation) {
+            this.ticket = ticket;
+            this.reservation = reservation;
+        }
+    }
+}
@@ -0,0 +1,17 @@
+package com.cityparking.service;
+
+/**
+ * Source of ticket keys. Keys must be positive and never repeat for the lifetime of the
+ * site's data, including across restarts; the printed id is the key in
+ * {@link com.cityparking.model.TicketIds} form.
+ */
+public interface TicketIdGenerator {
+    long nextKey();
+
+    /**
+     * Called with every key recovered from durable storage so later keys never collide with it,
+     * even if the wall clock has stepped backwards since it was issued.
+     */
+    default void advancePast(long key) {
+    }
+}
@@ -0,0 +1,15 @@
+package com.cityparking.service;
+
+import com.cityparking.model.ParkingTicket;
+
+/**
+ * Callback fired by {@link ParkingService} when a ticket is issued or closed. Runs on the gate
+ * thread that made the change, so implementations should hand off anything slow. An opened
+ * ticket is reported before it can be looked up, so its close is always reported after it. A
+ * listener that throws is logged and skipped; the others are still called.
+ */
+public interface TicketListener {
+    void ticketOpened(ParkingTicket ticket);
+
+    void ticketClosed(ParkingTicket ticket);
+}
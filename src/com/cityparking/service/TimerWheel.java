@@ -0,0 +1,186 @@
+package com.cityparking.service;
+
+import java.util.function.Consumer;
+
+/**
+ * Hierarchical timer wheel over an abstract tick counter: five levels of 64 buckets, each level
+ * 64 times coarser than the one below, so with one-minute ticks the top level spans about two
+ * thousand years. A timer sits in the lowest level whose bucket still tells its deadline apart
+ * from the current tick and moves down a level each time the clock reaches its bucket, so it is
+ * touched at most once per level before it fires. Scheduling and cancelling unlink or link one
+ * node; advancing by a tick reads one bucket plus, every 64 ticks, a bucket of the level above.
+ * None of it depends on how many timers are pending. Not thread-safe.
+ */
+final class TimerWheel<T> {
+    private static final int BITS = 6;
+    private static final int SIZE = 1 << BITS;
+    private static final int MASK = SIZE - 1;
+    private static final int LEVELS = 5;
+    private static final long SPAN = 1L << (BITS * LEVELS);
+
+    private final Timer<T>[][] buckets;
+    private long currentTick;
+    private int size;
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    TimerWheel(long startTick) {
+        this.buckets = new Timer[LEVELS][SIZE];
+        this.currentTick = startTick;
+    }
+
+    /**
+     * Schedules {@code value} to fire once the clock reaches {@code deadlineTick}; deadlines that
+     * are already due fire on the next tick.
+     */
+    Timer<T> schedule(long deadlineTick, T value) {
+        Timer<T> timer = new Timer<>(deadlineTick, value);
+        place(timer, Math.max(deadlineTick, currentTick + 1));
+        size++;
+        return timer;
+    }
+
+    /**
+     * Moves a pending or fired timer to a new deadline.
+     */
+    void reschedule(Timer<T> timer, long deadlineTick) {
+        if (timer.scheduled()) {
+            unlink(timer);
+        } else {
+            size++;
+        }
+        timer.deadlineTick = deadlineTick;
+        place(timer, Math.max(deadlineTick, currentTick + 1));
+    }
+
+    /**
+     * @return false when the timer had already fired or been cancelled
+     */
+    boolean cancel(Timer<T> timer) {
+        if (!timer.scheduled()) {
+            return false;
+        }
+        unlink(timer);
+        size--;
+        return true;
+    }
+
+    /**
+     * Runs the clock forward to {@code toTick}, handing every timer that comes due to
+     * {@code fired} tick by tick. The callback must not touch the wheel; collect the values and
+     * reschedule once this returns.
+     */
+    void advance(long toTick, Consumer<T> fired) {
+        while (currentTick < toTick) {
+            if (size == 0) {
+                currentTick = toTick;
+                return;
+            }
+            currentTick++;
+            int level = 0;
+            while (level + 1 < LEVELS && (currentTick & ((1L << (BITS * (level + 1))) - 1)) == 0) {
+                level++;
+            }
+            for (; level > 0; level--) {
+                cascade(level, (int) ((currentTick >>> (BITS * level)) & MASK));
+            }
+            Timer<T> timer = detach(0, (int) (currentTick & MASK));
+            while (timer != null) {
+                Timer<T> next = timer.next;
+                timer.next = null;
+                if (timer.deadlineTick > currentTick) {
+                    // Beyond the wheel's span when it was placed; go round again.
+                    place(timer, timer.deadlineTick);
+                } else {
+                    size--;
+                    fired.accept(timer.value);
+                }
+                timer = next;
+            }
+        }
+    }
+
+    long getCurrentTick() {
+        return currentTick;
+    }
+
+    int size() {
+        return size;
+    }
+
+    private void cascade(int level, int index) {
+        Timer<T> timer = detach(level, index);
+        while (timer != null) {
+            Timer<T> next = timer.next;
+            timer.next = null;
+            place(timer, Math.max(timer.deadlineTick, currentTick));
+            timer = next;
+        }
+    }
+
+    private void place(Timer<T> timer, long tick) {
+        tick = Math.min(tick, currentTick + SPAN - 1);
+        int level = 0;
+        while (level + 1 < LEVELS && (tick >>> (BITS * (level + 1))) != (currentTick >>> (BITS * (level + 1)))) {
+            level++;
+        }
+        int index = (int) ((tick >>> (BITS * level)) & MASK);
+        Timer<T> head = buckets[level][index];
+        timer.level = level;
+        timer.index = index;
+        timer.prev = null;
+        timer.next = head;
+        if (head != null) {
+            head.prev = timer;
+        }
+        buckets[level][index] = timer;
+    }
+
+    private Timer<T> detach(int level, int index) {
+        Timer<T> head = buckets[level][index];
+        buckets[level][index] = null;
+        for (Timer<T> timer = head; timer != null; timer = timer.next) {
+            timer.level = -1;
+            timer.prev = null;
+        }
+        return head;
+    }
+
+    private void unlink(Timer<T> timer) {
+        if (timer.prev != null) {
+            timer.prev.next = timer.next;
+        } else {
+            buckets[timer.level][timer.index] = timer.next;
+        }
+        if (timer.next != null) {
+            timer.next.prev = timer.prev;
+        }
+        timer.prev = null;
+        timer.next = null;
+        timer.level = -1;
+    }
+
+    /**
+     * One pending timer, linked into its bucket so it can be cancelled in O(1).
+     */
+    static final class Timer<T> {
+        private final T value;
+        private long deadlineTick;
+        private int level = -1;
+        private int index;
+        private Timer<T> prev;
+        private Timer<T> next;
+
+        private Timer(long deadlineTick, T value) {
+            this.deadlineTick = deadlineTick;
+            this.value = value;
+        }
+
+        boolean scheduled() {
+            return level >= 0;
+        }
+
+        long getDeadlineTick() {
+            return deadlineTick;
+        }
+    }
+}
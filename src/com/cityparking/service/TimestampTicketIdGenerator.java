@@ -0,0 +1,76 @@
+package com.cityparking.service;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Timestamp-plus-counter ticket keys:
+ * {@code [seconds since 2024-01-01][4-bit site][20-bit counter]}.
+ * Keys are strictly increasing, so they stay unique across restarts and sites sharing a back
+ * office; if more than a million tickets are issued in one second the counter borrows from the
+ * next second rather than wrapping. Issuing a key is one CAS and allocates nothing. Current keys
+ * print as eleven base32 characters.
+ * <p>
+ * Several generators can share a site, one per shard of a {@link LotRegistry}: the top bits of
+ * the counter then carry the shard number, leaving {@code 2^20 / shards} keys per shard per
+ * second. A generator for a single shard uses the plain layout.
+ */
+public class TimestampTicketIdGenerator implements TicketIdGenerator {
+    private static final long EPOCH_SECOND = 1_704_067_200L; // 2024-01-01T00:00:00Z
+    private static final int COUNTER_BITS = 20;
+    private static final int SITE_BITS = 4;
+    private static final int SECOND_SHIFT = COUNTER_BITS + SITE_BITS;
+    private static final int MAX_SHARD_BITS = 8;
+
+    private final long siteBits;
+    private final long counterMask;
+    private final AtomicLong last = new AtomicLong();
+
+    public TimestampTicketIdGenerator(int siteId) {
+        this(siteId, 0, 1);
+    }
+
+    /**
+     * Generator for shard {@code shard} of {@code shards} at one site. Every generator of the
+     * site must be built with the same {@code shards}, including across restarts.
+     */
+    public TimestampTicketIdGenerator(int siteId, int shard, int shards) {
+        if (siteId < 0 || siteId >= 1 << SITE_BITS) {
+            throw new IllegalArgumentException("siteId must be between 0 and " + ((1 << SITE_BITS) - 1));
+        }
+        if (shards < 1 || shards > 1 << MAX_SHARD_BITS) {
+            throw new IllegalArgumentException("shards must be between 1 and " + (1 << MAX_SHARD_BITS));
+        }
+        if (shard < 0 || shard >= shards) {
+            throw new IllegalArgumentException("shard must be between 0 and " + (shards - 1));
+        }
+        int counterBits = COUNTER_BITS - (32 - Integer.numberOfLeadingZeros(shards - 1));
+        this.counterMask = (1L << counterBits) - 1;
+        this.siteBits = ((long) siteId << COUNTER_BITS) | ((long) shard << counterBits);
+    }
+
+    @Override
+    public long nextKey() {
+        long floor = (Math.max(1, System.currentTimeMillis() / 1000 - EPOCH_SECOND) << SECOND_SHIFT) | siteBits;
+        while (true) {
+            long previous = last.get();
+            long next = previous < floor ? floor : successor(previous);
+            if (last.compareAndSet(previous, next)) {
+                return next;
+            }
+        }
+    }
+
+    @Override
+    public void advancePast(long key) {
+        last.accumulateAndGet(key, Math::max);
+    }
+
+    private long successor(long key) {
+        if ((key & counterMask) == counterMask || (key & ~counterMask & ((1L << SECOND_SHIFT) - 1)) != siteBits) {
+            // Counter exhausted, or the key came from another site or shard: move to the next
+            // second.
+            return (((key >>> SECOND_SHIFT) + 1) << SECOND_SHIFT) | siteBits;
+        }
+        return key + 1;
+    }
+}
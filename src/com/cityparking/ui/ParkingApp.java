@@ -1,14 +1,32 @@
 package com.cityparking.ui;
 
+import com.cityparking.archive.ClosedTicketArchive;
+import com.cityparking.journal.TicketJournal;
+import com.cityparking.latency.LatencyReporter;
+import com.cityparking.metrics.MetricsEngine;
+import com.cityparking.metrics.Resolution;
+import com.cityparking.model.CompactSlotStore;
 import com.cityparking.model.ParkingLot;
 import com.cityparking.model.ParkingSlot;
 import com.cityparking.model.ParkingTicket;
 import com.cityparking.model.RateCard;
+import com.cityparking.model.SlotType;
+import com.cityparking.model.VehicleClass;
 import com.cityparking.model.VehicleInfo;
+import com.cityparking.server.DashboardServer;
+import com.cityparking.service.AllocationStrategy;
 import com.cityparking.service.ParkingService;
-import com.cityparking.util.SlotSnapshotWriter;
+import com.cityparking.service.RevenueLedger;
+import com.cityparking.service.SlotTypeRules;
+import com.cityparking.service.StayEvent;
+import com.cityparking.service.StayMonitor;
+import com.cityparking.service.TimestampTicketIdGenerator;
+import com.cityparking.util.SlotChangeLog;
+import com.cityparking.util.SnapshotExporter;
+import javax.management.JMException;
 import javax.swing.BorderFactory;
 import javax.swing.JButton;
+import javax.swing.JComboBox;
 import javax.swing.JFrame;
 import javax.swing.JLabel;
 import javax.swing.JOptionPane;
@@ -18,7 +36,10 @@ import javax.swing.JTable;
 import javax.swing.JTextArea;
 import javax.swing.JTextField;
 import javax.swing.SwingUtilities;
-import javax.swing.table.DefaultTableModel;
+import javax.swing.Timer;
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.DocumentListener;
+import javax.swing.text.BadLocationException;
 import java.awt.BorderLayout;
 import java.awt.Color;
 import java.awt.Dimension;
@@ -27,46 +48,110 @@ import java.awt.GridBagLayout;
 import java.awt.Insets;
 import java.awt.event.MouseAdapter;
 import java.awt.event.MouseEvent;
+import java.awt.event.WindowAdapter;
+import java.awt.event.WindowEvent;
+import java.io.IOException;
 import java.nio.file.Path;
+import java.time.Duration;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
  * Swing UI that mimics a smart parking kiosk used in large cities.
  */
 public class ParkingApp extends JFrame {
+    private static final int MAX_ALERTS = 50;
+
     private final ParkingService parkingService;
     private final JLabel availabilityLabel = new JLabel();
-    private final DefaultTableModel slotTableModel;
+    private final SlotTableModel slotTableModel;
     private final JTable slotTable;
     private final JTextField plateField = new JTextField(10);
     private final JTextField ownerField = new JTextField(10);
     private final JTextField phoneField = new JTextField(10);
+    private final JComboBox<VehicleClass> vehicleClassBox = new JComboBox<>(VehicleClass.values());
     private final JTextField ticketField = new JTextField(8);
     private final JTextField searchPlateField = new JTextField(10);
     private final JTextField estimateHoursField = new JTextField("2", 4);
     private final JTextField manualSlotField = new JTextField(8);
     private final JTextArea receiptArea = new JTextArea(8, 28);
     private final JTextArea analyticsArea = new JTextArea(10, 28);
+    private final JTextArea alertArea = new JTextArea(5, 28);
+    private final ExecutorService refreshExecutor = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "control-room-refresh");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final AtomicBoolean refreshPending = new AtomicBoolean();
+    private final SlotChangeLog changeLog;
+    private final SnapshotExporter snapshotExporter;
+    private final MetricsEngine metrics;
+    private final StayMonitor stayMonitor;
+    private DashboardServer dashboardServer;
+    private boolean stayEntered;
 
     public ParkingApp(ParkingService parkingService) {
         super("City Smart Parking Manager");
         this.parkingService = parkingService;
-        this.slotTableModel = new DefaultTableModel(new Object[]{"Slot", "Floor", "Distance", "Status", "Vehicle"}, 0) {
-            @Override
-            public boolean isCellEditable(int row, int column) {
-                return false;
-            }
-        };
+        this.slotTableModel = new SlotTableModel(parkingService.getParkingLot());
         this.slotTable = new JTable(slotTableModel);
+        this.changeLog = new SlotChangeLog(1024);
+        this.snapshotExporter = new SnapshotExporter(parkingService.getParkingLot()::getSlots,
+                Path.of("web", "data", "slots.json"), changeLog, Duration.ofMillis(500));
+        parkingService.getParkingLot().addSlotListener(changeLog);
+        parkingService.getParkingLot().addSlotListener(snapshotExporter);
+        this.metrics = new MetricsEngine(parkingService.getParkingLot());
+        parkingService.getParkingLot().addSlotListener(metrics);
+        parkingService.addTicketListener(metrics);
+        startDashboardServer(changeLog);
+        this.stayMonitor = new StayMonitor(parkingService);
+        stayMonitor.addListener(event -> SwingUtilities.invokeLater(() -> showStayAlert(event)));
+        if (dashboardServer != null) {
+            stayMonitor.addListener(dashboardServer::publishAlert);
+        }
+        stayMonitor.start();
         buildUi();
+        snapshotExporter.requestExport();
         refreshView();
+        // Trends move with the clock even when nobody is at the console.
+        new Timer(30_000, e -> refreshView()).start();
+    }
+
+    /**
+     * Starts the live dashboard server when {@code -Dparking.http.port=<port>} is given.
+     */
+    private void startDashboardServer(SlotChangeLog changeLog) {
+        Integer port = Integer.getInteger("parking.http.port");
+        if (port == null) {
+            return;
+        }
+        try {
+            dashboardServer = new DashboardServer(parkingService.getParkingLot(), changeLog, Path.of("web"), port);
+            dashboardServer.start();
+        } catch (IOException e) {
+            System.err.println("Unable to start dashboard server on port " + port + ": " + e.getMessage());
+        }
     }
 
     private void buildUi() {
         setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
+        addWindowListener(new WindowAdapter() {
+            @Override
+            public void windowClosing(WindowEvent e) {
+                stayMonitor.close();
+                snapshotExporter.close();
+                if (dashboardServer != null) {
+                    dashboardServer.close();
+                }
+                changeLog.close();
+            }
+        });
         setLayout(new BorderLayout(8, 8));
         getContentPane().setBackground(Color.WHITE);
 
@@ -110,6 +195,13 @@ public class ParkingApp extends JFrame {
         gbc.gridx = 1;
         formPanel.add(phoneField, gbc);
 
+        vehicleClassBox.setSelectedItem(VehicleClass.CAR);
+        gbc.gridx = 0;
+        gbc.gridy++;
+        formPanel.add(new JLabel("Vehicle Class"), gbc);
+        gbc.gridx = 1;
+        formPanel.add(vehicleClassBox, gbc);
+
         gbc.gridx = 0;
         gbc.gridy++;
         formPanel.add(new JLabel("Assign Slot ID"), gbc);
@@ -163,6 +255,21 @@ public class ParkingApp extends JFrame {
         formPanel.add(new JLabel("Hours (est.)"), gbc);
         gbc.gridx = 1;
         formPanel.add(estimateHoursField, gbc);
+        estimateHoursField.getDocument().addDocumentListener(new DocumentListener() {
+            @Override
+            public void insertUpdate(DocumentEvent e) {
+                stayEntered = true;
+            }
+
+            @Override
+            public void removeUpdate(DocumentEvent e) {
+                stayEntered = true;
+            }
+
+            @Override
+            public void changedUpdate(DocumentEvent e) {
+            }
+        });
 
         JButton estimateButton = new JButton("Estimate Charges");
         estimateButton.addActionListener(e -> showEstimate());
@@ -175,7 +282,11 @@ public class ParkingApp extends JFrame {
         receiptArea.setBorder(BorderFactory.createTitledBorder("Digital Receipt"));
         analyticsArea.setEditable(false);
         analyticsArea.setBorder(BorderFactory.createTitledBorder("Control Room Insights"));
+        alertArea.setEditable(false);
+        alertArea.setForeground(new Color(183, 28, 28));
+        alertArea.setBorder(BorderFactory.createTitledBorder("Stay Alerts"));
         JPanel eastPanel = new JPanel(new BorderLayout(4, 4));
+        eastPanel.add(new JScrollPane(alertArea), BorderLayout.NORTH);
         eastPanel.add(new JScrollPane(receiptArea), BorderLayout.CENTER);
         eastPanel.add(new JScrollPane(analyticsArea), BorderLayout.SOUTH);
         add(formPanel, BorderLayout.WEST);
@@ -190,9 +301,12 @@ public class ParkingApp extends JFrame {
         if (vehicle == null) {
             return;
         }
-        Optional<ParkingTicket> ticket = parkingService.assignSlot(vehicle);
+        Optional<Duration> stay = expectedStay();
+        Optional<ParkingTicket> ticket = stay.isPresent()
+                ? parkingService.assignSlot(vehicle, stay.get())
+                : parkingService.assignSlot(vehicle);
         if (ticket.isEmpty()) {
-            JOptionPane.showMessageDialog(this, "No slot available. Direct vehicle to overflow lot.", "Parking Full", JOptionPane.ERROR_MESSAGE);
+            JOptionPane.showMessageDialog(this, "No " + vehicle.getVehicleClass() + " bay available. Direct vehicle to overflow lot.", "Parking Full", JOptionPane.ERROR_MESSAGE);
             return;
         }
         showEntryReceipt(ticket.get(), "ENTRY CONFIRMATION");
@@ -264,13 +378,20 @@ public class ParkingApp extends JFrame {
             JOptionPane.showMessageDialog(this, "Please fill vehicle number, owner name and phone.", "Missing data", JOptionPane.WARNING_MESSAGE);
             return null;
         }
-        return new VehicleInfo(plate, owner, phone);
+        return new VehicleInfo(plate, owner, phone, selectedVehicleClass());
     }
 
     private void clearVehicleForm() {
         plateField.setText("");
         ownerField.setText("");
         phoneField.setText("");
+        vehicleClassBox.setSelectedItem(VehicleClass.CAR);
+        estimateHoursField.setText("2");
+        stayEntered = false;
+    }
+
+    private VehicleClass selectedVehicleClass() {
+        return (VehicleClass) vehicleClassBox.getSelectedItem();
     }
 
     private void showEntryReceipt(ParkingTicket issued, String heading) {
@@ -329,10 +450,11 @@ public class ParkingApp extends JFrame {
             if (hours <= 0) {
                 throw new NumberFormatException("Negative hours");
             }
-            double amount = parkingService.estimateFee(hours);
+            VehicleClass vehicleClass = selectedVehicleClass();
+            double amount = parkingService.estimateFee(vehicleClass, hours);
             JOptionPane.showMessageDialog(this,
-                    "Estimated parking fee for " + hours + " hour(s): INR " + String.format("%.2f", amount) +
-                            " (rounded up to the next hour)",
+                    "Estimated parking fee for a " + vehicleClass + " parked " + hours + " hour(s) from now: INR "
+                            + String.format("%.2f", amount) + " (rounded up to the next hour)",
                     "Tariff estimator",
                     JOptionPane.INFORMATION_MESSAGE);
         } catch (NumberFormatException ex) {
@@ -340,15 +462,47 @@ public class ParkingApp extends JFrame {
         }
     }
 
-    private void highlightSlot(String slotId) {
-        for (int i = 0; i < slotTableModel.getRowCount(); i++) {
-            Object value = slotTableModel.getValueAt(i, 0);
-            if (slotId.equals(value)) {
-                slotTable.setRowSelectionInterval(i, i);
-                slotTable.scrollRectToVisible(slotTable.getCellRect(i, 0, true));
-                break;
+    /**
+     * The "Hours (est.)" field as the vehicle's expected stay, if the operator typed one since
+     * the last vehicle was parked. Empty when the field still holds the tariff estimator's
+     * default or is not a positive number, so the walk-in is parked undated.
+     */
+    private Optional<Duration> expectedStay() {
+        if (!stayEntered) {
+            return Optional.empty();
+        }
+        try {
+            double hours = Double.parseDouble(estimateHoursField.getText().trim());
+            return hours > 0 ? Optional.of(Duration.ofMinutes(Math.round(hours * 60))) : Optional.empty();
+        } catch (NumberFormatException ex) {
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Prepends an overstay, day rollover or expired booking to the alert panel, keeping the
+     * latest {@value #MAX_ALERTS}.
+     */
+    private void showStayAlert(StayEvent event) {
+        alertArea.insert(event.describe() + "\n", 0);
+        if (alertArea.getLineCount() > MAX_ALERTS) {
+            try {
+                alertArea.replaceRange("", alertArea.getLineStartOffset(MAX_ALERTS), alertArea.getDocument().getLength());
+            } catch (BadLocationException e) {
+                // Line count and offsets come from the same document; nothing to trim.
             }
         }
+        alertArea.setCaretPosition(0);
+        if (event.getType() == StayEvent.Type.RESERVATION_EXPIRED) {
+            refreshView();
+        }
+    }
+
+    private void highlightSlot(String slotId) {
+        slotTableModel.rowOf(slotId).ifPresent(row -> {
+            slotTable.setRowSelectionInterval(row, row);
+            slotTable.scrollRectToVisible(slotTable.getCellRect(row, 0, true));
+        });
     }
 
     private void showDetailsForSlot(int row) {
@@ -388,45 +542,73 @@ public class ParkingApp extends JFrame {
                                 details.getCheckInTime()));
     }
 
+    /**
+     * Table rows repaint themselves through {@link SlotTableModel} and the dashboard snapshot is
+     * exported by {@link SnapshotExporter}; this only recomputes the summary texts on a
+     * background thread. Requests that arrive while a refresh is queued are folded into it.
+     */
     private void refreshView() {
-        slotTableModel.setRowCount(0);
-        parkingService.getParkingLot().getSlots().forEach(slot -> {
-            slotTableModel.addRow(new Object[]{
-                    slot.getSlotId(),
-                    slot.getFloor(),
-                    slot.getDistance() + " m",
-                    slot.isOccupied() ? "Occupied" : "Free",
-                    slot.isOccupied() ? slot.getCurrentVehicle().getPlateNumber() : "-"
+        if (!refreshPending.compareAndSet(false, true)) {
+            return;
+        }
+        refreshExecutor.execute(() -> {
+            refreshPending.set(false);
+            ParkingLot lot = parkingService.getParkingLot();
+            String availability = "Available Slots: " + lot.getAvailableCount() +
+                    " | Occupied: " + lot.getOccupiedCount() +
+                    " | Total: " + lot.getTotalSlots();
+            String analytics = buildAnalytics();
+            SwingUtilities.invokeLater(() -> {
+                availabilityLabel.setText(availability);
+                analyticsArea.setText(analytics);
             });
         });
-        availabilityLabel.setText(
-                "Available Slots: " + parkingService.getParkingLot().getAvailableCount() +
-                        " | Occupied: " + parkingService.getParkingLot().getOccupiedCount() +
-                        " | Total: " + parkingService.getParkingLot().getTotalSlots());
-        updateAnalytics();
-        SlotSnapshotWriter.write(parkingService.getParkingLot().getSlots(), Path.of("web", "data", "slots.json"));
     }
 
-    private void updateAnalytics() {
+    private String buildAnalytics() {
         StringBuilder sb = new StringBuilder();
-        sb.append("Revenue Collected Today: INR ").append(String.format("%.2f", parkingService.getTotalRevenue())).append("\n");
-        sb.append("Active Vehicles: ").append(parkingService.getActiveTickets().size()).append("\n");
+        RevenueLedger revenue = parkingService.getRevenue();
+        sb.append("Revenue Collected Today: INR ").append(formatPaise(revenue.getTotalPaise())).append("\n");
+        sb.append("Active Vehicles: ").append(parkingService.getActiveTicketCount()).append("\n");
+        sb.append("Stay Alerts: ").append(stayMonitor.getEventCount(StayEvent.Type.OVERSTAY)).append(" overstays, ")
+                .append(stayMonitor.getEventCount(StayEvent.Type.DAILY_CAP_ROLLOVER)).append(" day rollovers, ")
+                .append(stayMonitor.getEventCount(StayEvent.Type.RESERVATION_EXPIRED)).append(" expired bookings\n");
+        sb.append("Dashboard Exports: ").append(snapshotExporter.describe()).append("\n");
+        if (dashboardServer != null) {
+            sb.append("Live Displays: ").append(dashboardServer.getConnectedClients())
+                    .append(" on port ").append(dashboardServer.getPort()).append("\n");
+        }
 
         sb.append("\nFloor Utilization:\n");
-        Map<Integer, long[]> floorStats = new java.util.TreeMap<>();
-        parkingService.getParkingLot().getSlots().forEach(slot -> {
-            long[] stats = floorStats.computeIfAbsent(slot.getFloor(), f -> new long[2]);
-            stats[0]++;
-            if (slot.isOccupied()) {
-                stats[1]++;
+        parkingService.getParkingLot().getFloorOccupancy().forEach(floor -> sb.append("Floor ")
+                .append(floor.getFloor()).append(": ")
+                .append(floor.getOccupiedSlots()).append("/").append(floor.getTotalSlots())
+                .append(" occupied (").append(floor.getAvailableSlots()).append(" free)\n"));
+
+        sb.append("\nTrends (oldest to now):\n");
+        sb.append("Arrivals/min, 30m: ").append(sparkline(metrics.getArrivals(Resolution.MINUTE, 30))).append("\n");
+        sb.append("Exits/min, 30m:    ").append(sparkline(metrics.getExits(Resolution.MINUTE, 30))).append("\n");
+        long[] revenueRupees = Arrays.stream(metrics.getRevenuePaise(Resolution.HOUR, 24)).map(paise -> paise / 100).toArray();
+        sb.append("Revenue/hour, 24h: ").append(sparkline(revenueRupees)).append(" INR\n");
+        metrics.getFloors().forEach(floor -> sb.append("Floor ").append(floor).append(" peak/hour, 12h: ")
+                .append(sparkline(metrics.getPeakOccupancy(floor, Resolution.HOUR, 12))).append("\n"));
+        long[] dwell = metrics.getDwellHistogram(Resolution.DAY, 1);
+        List<String> dwellLabels = MetricsEngine.getDwellBinLabels();
+        sb.append("Dwell today:");
+        for (int bin = 0; bin < dwell.length; bin++) {
+            sb.append(' ').append(dwellLabels.get(bin)).append('=').append(dwell[bin]);
+        }
+        sb.append("\n");
+
+        sb.append("\nRevenue by Floor:\n");
+        revenue.getByFloor().forEach((floor, paise) -> sb.append("Floor ").append(floor).append(": INR ")
+                .append(formatPaise(paise)).append("\n"));
+        sb.append("\nRevenue by Tariff:\n");
+        revenue.getByVehicleClass().forEach((vehicleClass, paise) -> {
+            if (paise != 0) {
+                sb.append(vehicleClass).append(": INR ").append(formatPaise(paise)).append("\n");
             }
         });
-        floorStats.forEach((floor, stats) -> {
-            long total = stats[0];
-            long occupied = stats[1];
-            long free = total - occupied;
-            sb.append("Floor ").append(floor).append(": ").append(occupied).append("/").append(total).append(" occupied (").append(free).append(" free)\n");
-        });
 
         sb.append("\nRecent Exit History:\n");
         List<ParkingTicket> recent = parkingService.getRecentHistory();
@@ -441,27 +623,117 @@ public class ParkingApp extends JFrame {
                     .append(")\n"));
         }
 
-        analyticsArea.setText(sb.toString());
+        return sb.toString();
     }
 
+    /**
+     * Renders a series as block characters scaled to its own maximum, plus that maximum.
+     */
+    private static String sparkline(long[] series) {
+        final String blocks = "\u2581\u2582\u2583\u2584\u2585\u2586\u2587\u2588";
+        long max = 0;
+        for (long value : series) {
+            max = Math.max(max, value);
+        }
+        StringBuilder line = new StringBuilder(series.length + 12);
+        for (long value : series) {
+            line.append(max == 0 ? blocks.charAt(0) : blocks.charAt((int) (value * (blocks.length() - 1) / max)));
+        }
+        return line.append(" max ").append(max).toString();
+    }
+
+    private static String formatPaise(long paise) {
+        return String.format("%d.%02d", paise / 100, Math.abs(paise % 100));
+    }
+
+    /**
+     * Builds the demo lot. With {@code -Dparking.compact=true} slot state is kept in a
+     * {@link CompactSlotStore} instead of per-slot objects.
+     */
     private static ParkingService bootService() {
+        CompactSlotStore compactStore = Boolean.getBoolean("parking.compact") ? new CompactSlotStore(36) : null;
         List<ParkingSlot> slots = new ArrayList<>();
         int slotCounter = 1;
         for (int floor = 0; floor < 3; floor++) {
             for (int bay = 1; bay <= 12; bay++) {
                 int distance = floor * 50 + bay * 4;
                 String slotId = "F" + floor + "-S" + String.format("%02d", bay);
-                slots.add(new ParkingSlot(slotId, floor, distance));
+                SlotType slotType = bayType(floor, bay);
+                slots.add(compactStore != null
+                        ? compactStore.newSlot(slotId, floor, distance, slotType)
+                        : new ParkingSlot(slotId, floor, distance, slotType));
                 slotCounter++;
             }
         }
         ParkingLot lot = new ParkingLot("Downtown Business District", slots);
-        RateCard rateCard = new RateCard(60.0, 40.0, 600.0);
-        return new ParkingService(lot, rateCard);
+        // Daily caps apply to each 24 hours of a stay; rush hours are billed at 125%.
+        RateCard rateCard = new RateCard(
+                Map.of(
+                        VehicleClass.CAR, new RateCard.ClassRates(60.0, 40.0, 600.0),
+                        VehicleClass.TWO_WHEELER, new RateCard.ClassRates(20.0, 10.0, 200.0),
+                        VehicleClass.LARGE, new RateCard.ClassRates(100.0, 70.0, 1000.0)),
+                List.of(new RateCard.PeakBand(8, 11, 125), new RateCard.PeakBand(17, 20, 125)));
+        // -Dparking.slotTypes=CAR=STANDARD,COMPACT,OVERSIZE;... overrides the fallback rules per
+        // class.
+        String slotTypes = System.getProperty("parking.slotTypes");
+        SlotTypeRules rules = slotTypes != null ? SlotTypeRules.parse(slotTypes) : SlotTypeRules.defaults();
+        // -Dparking.allocation=nearest|least-loaded|exit-time picks how walk-ins are spread over
+        // the floors.
+        AllocationStrategy strategy = AllocationStrategy.named(System.getProperty("parking.allocation", "nearest"));
+        return new ParkingService(lot, rateCard, new TimestampTicketIdGenerator(0), rules, strategy);
     }
 
-    public static void main(String[] args) {
-        SwingUtilities.invokeLater(() -> new ParkingApp(bootService()).setVisible(true));
+    /**
+     * Bay layout of each floor: the two bays by the lifts are accessible, the next two have EV
+     * chargers, the far end has a motorcycle bay and an oversize bay, and bays 9-10 are compact.
+     */
+    private static SlotType bayType(int floor, int bay) {
+        return switch (bay) {
+            case 1, 2 -> SlotType.ACCESSIBLE;
+            case 3, 4 -> SlotType.EV;
+            case 9, 10 -> SlotType.COMPACT;
+            case 11 -> SlotType.TWO_WHEELER;
+            case 12 -> SlotType.OVERSIZE;
+            default -> SlotType.STANDARD;
+        };
+    }
+
+    /**
+     * Publishes gate latencies over JMX and, with {@code -Dparking.latency.report=<seconds>},
+     * prints them to stdout at that interval.
+     */
+    private static LatencyReporter startLatencyReporter(ParkingService service) {
+        Integer seconds = Integer.getInteger("parking.latency.report");
+        LatencyReporter reporter = new LatencyReporter(Duration.ofSeconds(seconds != null ? seconds : 60),
+                service::getFreeSlotCount);
+        try {
+            reporter.registerMBeans();
+        } catch (JMException e) {
+            System.err.println("Unable to register latency MBeans: " + e.getMessage());
+        }
+        if (seconds != null) {
+            reporter.start(System.out);
+        }
+        return reporter;
+    }
+
+    public static void main(String[] args) throws IOException {
+        ParkingService service = bootService();
+        ClosedTicketArchive archive = new ClosedTicketArchive(Path.of("data", "archive"), 1 << 20);
+        service.addTicketListener(archive);
+        TicketJournal journal = new TicketJournal(Path.of("data", "journal"), Duration.ofMillis(50), 256, 100_000);
+        System.out.println("Ticket journal: " + journal.open(service));
+        LatencyReporter latencyReporter = startLatencyReporter(service);
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            latencyReporter.close();
+            journal.close();
+            try {
+                archive.close();
+            } catch (IOException e) {
+                System.err.println("Unable to close ticket archive: " + e.getMessage());
+            }
+        }, "parking-shutdown"));
+        SwingUtilities.invokeLater(() -> new ParkingApp(service).setVisible(true));
     }
 }
 
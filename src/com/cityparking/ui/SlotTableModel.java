@@ -0,0 +1,115 @@
+package com.cityparking.ui;
+
+import com.cityparking.model.ParkingLot;
+import com.cityparking.model.ParkingSlot;
+import com.cityparking.model.SlotListener;
+
+import javax.swing.SwingUtilities;
+import javax.swing.table.AbstractTableModel;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Table model that reads cells straight from the lot's slots instead of copying them into rows.
+ * Slot changes are collected from any thread and flushed on the EDT as one
+ * {@code fireTableRowsUpdated} per changed row, so a gate event repaints a single line.
+ */
+public class SlotTableModel extends AbstractTableModel implements SlotListener {
+    private static final long serialVersionUID = 1L;
+    private static final String[] COLUMNS = {"Slot", "Floor", "Type", "Distance", "Status", "Vehicle"};
+
+    private final ParkingLot parkingLot;
+    private final Map<ParkingSlot, Integer> rowBySlot = new IdentityHashMap<>();
+    private final Set<ParkingSlot> pendingChanges = ConcurrentHashMap.newKeySet();
+    private final AtomicBoolean flushScheduled = new AtomicBoolean();
+    private int rowCount;
+
+    public SlotTableModel(ParkingLot parkingLot) {
+        this.parkingLot = parkingLot;
+        indexNewRows();
+        parkingLot.addSlotListener(this);
+    }
+
+    @Override
+    public int getRowCount() {
+        return rowCount;
+    }
+
+    @Override
+    public int getColumnCount() {
+        return COLUMNS.length;
+    }
+
+    @Override
+    public String getColumnName(int column) {
+        return COLUMNS[column];
+    }
+
+    @Override
+    public Object getValueAt(int row, int column) {
+        ParkingSlot slot = slotAt(row);
+        return switch (column) {
+            case 0 -> slot.getSlotId();
+            case 1 -> slot.getFloor();
+            case 2 -> slot.getSlotType();
+            case 3 -> slot.getDistance() + " m";
+            case 4 -> slot.isOccupied() ? "Occupied" : "Free";
+            default -> plateOf(slot.getCurrentPlate());
+        };
+    }
+
+    public ParkingSlot slotAt(int row) {
+        return parkingLot.getSlots().get(row);
+    }
+
+    public Optional<Integer> rowOf(String slotId) {
+        return parkingLot.findSlotById(slotId).map(rowBySlot::get);
+    }
+
+    @Override
+    public void slotChanged(ParkingSlot slot) {
+        pendingChanges.add(slot);
+        if (flushScheduled.compareAndSet(false, true)) {
+            SwingUtilities.invokeLater(this::flush);
+        }
+    }
+
+    /**
+     * Picks up slots registered since the last flush and repaints the rows that changed. EDT only.
+     */
+    public void flush() {
+        flushScheduled.set(false);
+        int firstNew = rowCount;
+        indexNewRows();
+        if (rowCount > firstNew) {
+            fireTableRowsInserted(firstNew, rowCount - 1);
+        }
+        Iterator<ParkingSlot> changed = pendingChanges.iterator();
+        while (changed.hasNext()) {
+            Integer row = rowBySlot.get(changed.next());
+            changed.remove();
+            if (row != null) {
+                fireTableRowsUpdated(row, row);
+            }
+        }
+    }
+
+    private static String plateOf(String plate) {
+        return plate != null ? plate : "-";
+    }
+
+    private void indexNewRows() {
+        List<ParkingSlot> slots = parkingLot.getSlots();
+        int size = slots.size();
+        for (int row = rowCount; row < size; row++) {
+            rowBySlot.put(slots.get(row), row);
+        }
+        rowCount = size;
+    }
+}
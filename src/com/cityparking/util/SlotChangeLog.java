@@ -0,0 +1,200 @@
+package com.cityparking.util;
+
+import com.cityparking.model.ParkingSlot;
+import com.cityparking.model.SlotListener;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+
+/**
+ * Bounded, versioned log of slot state changes. Every occupy/release gets the next sequence
+ * number; the last {@code capacity} changes are retained so dashboards can catch up with
+ * {@link #changesSince(long)} instead of downloading the full snapshot. A client whose last
+ * seen version is older than {@link #getOldestVersion()} - 1 has fallen out of the window and
+ * must reload the snapshot.
+ * <p>
+ * Recording takes no lock: a gate thread claims a sequence number with one atomic increment and
+ * writes the change into its cell of a ring with room for {@value #HEADROOM} unpublished changes
+ * beyond the retained ones. A single publisher thread follows the ring in sequence order,
+ * advances {@link #getVersion()} and hands each change to the subscribers, so readers only ever
+ * see a gap-free prefix. A gate waits only if the publisher falls that far behind, which would
+ * otherwise overwrite retained changes. Readers that need the version, window and subscriptions
+ * to agree lock the log; only the publisher contends for that lock.
+ */
+public class SlotChangeLog implements SlotListener, AutoCloseable {
+    private static final int HEADROOM = 4096;
+    private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+
+    private final int capacity;
+    private final AtomicReferenceArray<Change> ring;
+    private final int mask;
+    private final AtomicLong claimed = new AtomicLong();
+    private final List<Consumer<Change>> subscribers = new CopyOnWriteArrayList<>();
+    private final Thread publisher;
+    private volatile long version;
+    private final AtomicBoolean idle = new AtomicBoolean();
+    private volatile boolean running = true;
+
+    public SlotChangeLog(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("capacity must be positive");
+        }
+        this.capacity = capacity;
+        int size = Integer.highestOneBit(capacity + HEADROOM - 1) << 1;
+        this.ring = new AtomicReferenceArray<>(size);
+        this.mask = size - 1;
+        this.publisher = new Thread(this::publish, "slot-change-log");
+        publisher.setDaemon(true);
+        publisher.start();
+    }
+
+    @Override
+    public void slotChanged(ParkingSlot slot) {
+        boolean occupied = slot.isOccupied();
+        String plate = occupied ? slot.getCurrentPlate() : null;
+        record(slot.getSlotId(), occupied, plate != null ? plate : "");
+    }
+
+    /**
+     * Appends a change and returns its sequence number. It becomes visible to readers and
+     * subscribers once every earlier change has been, shortly after this returns.
+     */
+    public long record(String slotId, boolean occupied, String plate) {
+        long sequence = claimed.incrementAndGet();
+        // The cell last held change sequence - ring size; it may go once it leaves the window.
+        while (sequence - version > ring.length() - capacity && running) {
+            Thread.yield();
+        }
+        ring.set((int) sequence & mask, new Change(sequence, slotId, occupied, plate));
+        if (idle.get() && idle.compareAndSet(true, false)) {
+            LockSupport.unpark(publisher);
+        }
+        return sequence;
+    }
+
+    /**
+     * Registers a callback that receives every new change in sequence order, on the publisher
+     * thread while the log is locked, so it must only hand the change off (e.g. offer it to a
+     * queue).
+     */
+    public void subscribe(Consumer<Change> subscriber) {
+        subscribers.add(subscriber);
+    }
+
+    public void unsubscribe(Consumer<Change> subscriber) {
+        subscribers.remove(subscriber);
+    }
+
+    /**
+     * Sequence number of the latest published change, or 0 when nothing has changed yet.
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * Sequence number of the oldest change still retained.
+     */
+    public long getOldestVersion() {
+        return Math.max(1, version - capacity + 1);
+    }
+
+    /**
+     * Changes with a sequence number greater than {@code sinceVersion}, oldest first. Returns
+     * only the retained window; callers compare against {@link #getOldestVersion()} to detect gaps.
+     */
+    public synchronized List<Change> changesSince(long sinceVersion) {
+        long latest = version;
+        long from = Math.max(sinceVersion + 1, Math.max(1, latest - capacity + 1));
+        List<Change> changes = new ArrayList<>((int) Math.max(0, latest - from + 1));
+        for (long sequence = from; sequence <= latest; sequence++) {
+            changes.add(ring.get((int) sequence & mask));
+        }
+        return changes;
+    }
+
+    /**
+     * Stops the publisher thread; changes recorded afterwards are not published and never wait.
+     */
+    @Override
+    public void close() {
+        running = false;
+        LockSupport.unpark(publisher);
+    }
+
+    private void publish() {
+        List<Change> batch = new ArrayList<>();
+        while (running) {
+            long next = version + 1;
+            Change change;
+            while ((change = ring.get((int) (next + batch.size()) & mask)) != null
+                    && change.sequence == next + batch.size()) {
+                batch.add(change);
+            }
+            if (batch.isEmpty()) {
+                idle.set(true);
+                // Re-check after announcing idleness, so a change recorded meanwhile unparks us.
+                change = ring.get((int) next & mask);
+                if (change == null || change.sequence != next) {
+                    LockSupport.parkNanos(this, IDLE_PARK_NANOS);
+                }
+                idle.set(false);
+                continue;
+            }
+            synchronized (this) {
+                for (Change published : batch) {
+                    version = published.sequence;
+                    for (Consumer<Change> subscriber : subscribers) {
+                        try {
+                            subscriber.accept(published);
+                        } catch (RuntimeException e) {
+                            // One failing subscriber must not stop the feed for the others.
+                            System.err.println("Slot change subscriber failed: " + e);
+                        }
+                    }
+                }
+            }
+            batch.clear();
+        }
+    }
+
+    /**
+     * One slot transition: the new state of the slot after change {@code sequence}.
+     */
+    public static final class Change {
+        private final long sequence;
+        private final String slotId;
+        private final boolean occupied;
+        private final String plate;
+
+        Change(long sequence, String slotId, boolean occupied, String plate) {
+            this.sequence = sequence;
+            this.slotId = slotId;
+            this.occupied = occupied;
+            this.plate = plate;
+        }
+
+        public long getSequence() {
+            return sequence;
+        }
+
+        public String getSlotId() {
+            return slotId;
+        }
+
+        public boolean isOccupied() {
+            return occupied;
+        }
+
+        public String getPlate() {
+            return plate;
+        }
+    }
+}
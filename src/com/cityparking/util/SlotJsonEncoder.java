@@ -0,0 +1,271 @@
+package com.cityparking.util;
+
+import com.cityparking.model.ParkingSlot;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+/**
+ * Streams the slot snapshot as UTF-8 JSON straight into a reusable buffer that is drained to a
+ * channel whenever it fills. Numbers are written digit by digit and strings are escaped and
+ * encoded char by char, so encoding a slot allocates nothing. Not thread-safe: keep one
+ * encoder per writer thread.
+ */
+public class SlotJsonEncoder {
+    private static final byte[] HEX = "0123456789abcdef".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] SLOT_ID = ascii("  {\"slotId\":\"");
+    private static final byte[] FLOOR = ascii("\",\"floor\":");
+    private static final byte[] DISTANCE = ascii(",\"distance\":");
+    private static final byte[] OCCUPIED = ascii(",\"occupied\":");
+    private static final byte[] VEHICLE = ascii(",\"vehicle\":\"");
+    private static final byte[] TRUE = ascii("true");
+    private static final byte[] FALSE = ascii("false");
+    private static final byte[] VERSION = ascii("{\"version\":");
+    private static final byte[] SLOTS = ascii(",\"slots\":");
+    private static final byte[] OLDEST = ascii(",\"oldest\":");
+    private static final byte[] CHANGES = ascii(",\"changes\":[\n");
+    private static final byte[] SEQ = ascii("{\"seq\":");
+    private static final byte[] CHANGE_SLOT_ID = ascii(",\"slotId\":\"");
+    private static final byte[] CHANGE_OCCUPIED = ascii("\",\"occupied\":");
+    private static final byte[] MIN_LONG = ascii(Long.toString(Long.MIN_VALUE));
+
+    private final ByteBuffer buffer;
+    private final byte[] digits = new byte[19];
+    private WritableByteChannel channel;
+
+    public SlotJsonEncoder() {
+        this(64 * 1024);
+    }
+
+    public SlotJsonEncoder(int bufferSize) {
+        this.buffer = ByteBuffer.allocateDirect(Math.max(64, bufferSize));
+    }
+
+    /**
+     * Writes the slots as a bare JSON array to {@code target}. The channel is not closed.
+     */
+    public void encode(List<ParkingSlot> slots, WritableByteChannel target) throws IOException {
+        channel = target;
+        buffer.clear();
+        try {
+            putSlotArray(slots);
+            drain();
+        } finally {
+            channel = null;
+        }
+    }
+
+    /**
+     * Writes {@code {"version":v,"slots":[...]}}, tagging the snapshot with the change-log
+     * version it reflects.
+     */
+    public void encodeSnapshot(long version, List<ParkingSlot> slots, WritableByteChannel target) throws IOException {
+        channel = target;
+        buffer.clear();
+        try {
+            put(VERSION);
+            putLong(version);
+            put(SLOTS);
+            putSlotArray(slots);
+            put((byte) '}');
+            drain();
+        } finally {
+            channel = null;
+        }
+    }
+
+    /**
+     * Writes {@code {"version":v,"oldest":o,"changes":[...]}} for a window of the change log.
+     */
+    public void encodeChanges(long version, long oldest, List<SlotChangeLog.Change> changes,
+                              WritableByteChannel target) throws IOException {
+        channel = target;
+        buffer.clear();
+        try {
+            put(VERSION);
+            putLong(version);
+            put(OLDEST);
+            putLong(oldest);
+            put(CHANGES);
+            int size = changes.size();
+            for (int i = 0; i < size; i++) {
+                put((byte) ' ');
+                put((byte) ' ');
+                encodeChange(changes.get(i));
+                if (i < size - 1) {
+                    put((byte) ',');
+                }
+                put((byte) '\n');
+            }
+            put((byte) ']');
+            put((byte) '}');
+            drain();
+        } finally {
+            channel = null;
+        }
+    }
+
+    /**
+     * Writes a single change object, as pushed to live dashboards.
+     */
+    public void encodeChange(SlotChangeLog.Change change, WritableByteChannel target) throws IOException {
+        channel = target;
+        buffer.clear();
+        try {
+            encodeChange(change);
+            drain();
+        } finally {
+            channel = null;
+        }
+    }
+
+    private void putSlotArray(List<ParkingSlot> slots) throws IOException {
+        put((byte) '[');
+        put((byte) '\n');
+        int size = slots.size();
+        for (int i = 0; i < size; i++) {
+            encodeSlot(slots.get(i));
+            if (i < size - 1) {
+                put((byte) ',');
+            }
+            put((byte) '\n');
+        }
+        put((byte) ']');
+    }
+
+    private void encodeChange(SlotChangeLog.Change change) throws IOException {
+        put(SEQ);
+        putLong(change.getSequence());
+        put(CHANGE_SLOT_ID);
+        putEscaped(change.getSlotId());
+        put(CHANGE_OCCUPIED);
+        put(change.isOccupied() ? TRUE : FALSE);
+        put(VEHICLE);
+        putEscaped(change.getPlate());
+        put((byte) '"');
+        put((byte) '}');
+    }
+
+    private void encodeSlot(ParkingSlot slot) throws IOException {
+        boolean occupied = slot.isOccupied();
+        String plate = occupied ? slot.getCurrentPlate() : null;
+        put(SLOT_ID);
+        putEscaped(slot.getSlotId());
+        put(FLOOR);
+        putLong(slot.getFloor());
+        put(DISTANCE);
+        putLong(slot.getDistance());
+        put(OCCUPIED);
+        put(occupied ? TRUE : FALSE);
+        put(VEHICLE);
+        if (plate != null) {
+            putEscaped(plate);
+        }
+        put((byte) '"');
+        put((byte) '}');
+    }
+
+    private void putEscaped(String value) throws IOException {
+        int length = value.length();
+        for (int i = 0; i < length; i++) {
+            char c = value.charAt(i);
+            if (c == '"' || c == '\\') {
+                put((byte) '\\');
+                put((byte) c);
+            } else if (c < 0x20) {
+                putControl(c);
+            } else if (c < 0x80) {
+                put((byte) c);
+            } else if (c < 0x800) {
+                put((byte) (0xC0 | (c >> 6)));
+                put((byte) (0x80 | (c & 0x3F)));
+            } else if (c == 0x2028 || c == 0x2029) {
+                putUnicodeEscape(c);
+            } else if (Character.isHighSurrogate(c) && i + 1 < length && Character.isLowSurrogate(value.charAt(i + 1))) {
+                int codePoint = Character.toCodePoint(c, value.charAt(++i));
+                put((byte) (0xF0 | (codePoint >> 18)));
+                put((byte) (0x80 | ((codePoint >> 12) & 0x3F)));
+                put((byte) (0x80 | ((codePoint >> 6) & 0x3F)));
+                put((byte) (0x80 | (codePoint & 0x3F)));
+            } else if (Character.isSurrogate(c)) {
+                put((byte) '?');
+            } else {
+                put((byte) (0xE0 | (c >> 12)));
+                put((byte) (0x80 | ((c >> 6) & 0x3F)));
+                put((byte) (0x80 | (c & 0x3F)));
+            }
+        }
+    }
+
+    private void putControl(char c) throws IOException {
+        switch (c) {
+            case '\n' -> put2('\\', 'n');
+            case '\r' -> put2('\\', 'r');
+            case '\t' -> put2('\\', 't');
+            case '\b' -> put2('\\', 'b');
+            case '\f' -> put2('\\', 'f');
+            default -> putUnicodeEscape(c);
+        }
+    }
+
+    private void putUnicodeEscape(char c) throws IOException {
+        put2('\\', 'u');
+        put(HEX[(c >> 12) & 0xF]);
+        put(HEX[(c >> 8) & 0xF]);
+        put(HEX[(c >> 4) & 0xF]);
+        put(HEX[c & 0xF]);
+    }
+
+    private void putLong(long value) throws IOException {
+        if (value == Long.MIN_VALUE) {
+            put(MIN_LONG);
+            return;
+        }
+        if (value < 0) {
+            put((byte) '-');
+            value = -value;
+        }
+        int pos = digits.length;
+        do {
+            digits[--pos] = (byte) ('0' + value % 10);
+            value /= 10;
+        } while (value != 0);
+        for (; pos < digits.length; pos++) {
+            put(digits[pos]);
+        }
+    }
+
+    private void put2(char first, char second) throws IOException {
+        put((byte) first);
+        put((byte) second);
+    }
+
+    private void put(byte[] bytes) throws IOException {
+        if (buffer.remaining() < bytes.length) {
+            drain();
+        }
+        buffer.put(bytes);
+    }
+
+    private void put(byte b) throws IOException {
+        if (!buffer.hasRemaining()) {
+            drain();
+        }
+        buffer.put(b);
+    }
+
+    private void drain() throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    private static byte[] ascii(String value) {
+        return value.getBytes(StandardCharsets.US_ASCII);
+    }
+}
@@ -1,47 +1,89 @@
 package com.cityparking.util;
 
+import com.cityparking.latency.Latencies;
+import com.cityparking.latency.Operation;
 import com.cityparking.model.ParkingSlot;
 
 import java.io.IOException;
+import java.nio.channels.FileChannel;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
 import java.util.List;
 
 /**
  * Writes the current slot status to a small JSON file consumed by the HTML dashboard.
  */
 public final class SlotSnapshotWriter {
+    private static final ThreadLocal<SlotJsonEncoder> ENCODER = ThreadLocal.withInitial(SlotJsonEncoder::new);
+
     private SlotSnapshotWriter() {
     }
 
     public static void write(List<ParkingSlot> slots, Path file) {
         try {
-            Files.createDirectories(file.getParent());
-            StringBuilder json = new StringBuilder();
-            json.append("[\n");
-            for (int i = 0; i < slots.size(); i++) {
-                ParkingSlot slot = slots.get(i);
-                String vehicle = slot.isOccupied() && slot.getCurrentVehicle() != null
-                        ? slot.getCurrentVehicle().getPlateNumber()
-                        : "";
-                json.append("  {")
-                        .append("\"slotId\":\"").append(slot.getSlotId()).append("\",")
-                        .append("\"floor\":").append(slot.getFloor()).append(',')
-                        .append("\"distance\":").append(slot.getDistance()).append(',')
-                        .append("\"occupied\":").append(slot.isOccupied()).append(',')
-                        .append("\"vehicle\":\"")
-                        .append(vehicle)
-                        .append("\"}");
-                if (i < slots.size() - 1) {
-                    json.append(",");
-                }
-                json.append("\n");
-            }
-            json.append("]");
-            Files.writeString(file, json.toString());
+            writeAtomically(slots, file);
         } catch (IOException e) {
             System.err.println("Unable to export slot snapshot: " + e.getMessage());
         }
     }
-}
 
+    /**
+     * Writes the snapshot to a sibling temp file and renames it over {@code file}, so readers
+     * see either the previous document or the new one, never a partial write.
+     */
+    public static void writeAtomically(List<ParkingSlot> slots, Path file) throws IOException {
+        writeAtomically(file, channel -> ENCODER.get().encode(slots, channel));
+    }
+
+    /**
+     * Atomically writes a snapshot tagged with the change-log version it reflects.
+     */
+    public static void writeAtomically(long version, List<ParkingSlot> slots, Path file) throws IOException {
+        writeAtomically(file, channel -> ENCODER.get().encodeSnapshot(version, slots, channel));
+    }
+
+    /**
+     * Atomically writes the retained window of the change log.
+     */
+    public static void writeChangesAtomically(SlotChangeLog changeLog, Path file) throws IOException {
+        long version;
+        long oldest;
+        List<SlotChangeLog.Change> changes;
+        synchronized (changeLog) {
+            version = changeLog.getVersion();
+            oldest = changeLog.getOldestVersion();
+            changes = changeLog.changesSince(0);
+        }
+        writeAtomically(file, channel -> ENCODER.get().encodeChanges(version, oldest, changes, channel));
+    }
+
+    private static void writeAtomically(Path file, ChannelWriter writer) throws IOException {
+        long start = System.nanoTime();
+        try {
+            writeAndRename(file, writer);
+        } finally {
+            Latencies.record(Operation.SNAPSHOT_WRITE, start);
+        }
+    }
+
+    private static void writeAndRename(Path file, ChannelWriter writer) throws IOException {
+        Files.createDirectories(file.getParent());
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            writer.writeTo(channel);
+        }
+        try {
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            Files.deleteIfExists(temp);
+            throw e;
+        }
+    }
+
+    private interface ChannelWriter {
+        void writeTo(FileChannel channel) throws IOException;
+    }
+}
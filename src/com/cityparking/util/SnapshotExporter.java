@@ -0,0 +1,166 @@
+package com.cityparking.util;
+
+import com.cityparking.model.ParkingSlot;
+import com.cityparking.model.SlotListener;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Exports the dashboard snapshot on a background thread, at most once per interval.
+ * Every slot change or explicit request marks the snapshot dirty; requests that land while an
+ * export is already pending are coalesced into it, so a burst of gate events costs one write.
+ * When a {@link SlotChangeLog} is attached the snapshot is tagged with its version and the
+ * change window is written next to it as {@code changes.json} for incremental dashboards.
+ */
+public class SnapshotExporter implements SlotListener, AutoCloseable {
+    private final Supplier<List<ParkingSlot>> slots;
+    private final Path file;
+    private final SlotChangeLog changeLog;
+    private final Path changesFile;
+    private final long intervalNanos;
+    private final ScheduledExecutorService executor;
+    private final AtomicBoolean pending = new AtomicBoolean();
+    private final AtomicBoolean closed = new AtomicBoolean();
+    private final LongAdder requested = new LongAdder();
+    private final LongAdder coalesced = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+    private final AtomicLong writes = new AtomicLong();
+    private final AtomicLong lastWriteNanos = new AtomicLong();
+    private final AtomicLong maxWriteNanos = new AtomicLong();
+    private final AtomicLong totalWriteNanos = new AtomicLong();
+    private volatile long lastWriteStartedAt = System.nanoTime() - Long.MAX_VALUE / 2;
+
+    public SnapshotExporter(Supplier<List<ParkingSlot>> slots, Path file, Duration interval) {
+        this(slots, file, null, interval);
+    }
+
+    public SnapshotExporter(Supplier<List<ParkingSlot>> slots, Path file, SlotChangeLog changeLog, Duration interval) {
+        this.slots = slots;
+        this.file = file;
+        this.changeLog = changeLog;
+        this.changesFile = file.resolveSibling("changes.json");
+        this.intervalNanos = interval.toNanos();
+        this.executor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "snapshot-exporter");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @Override
+    public void slotChanged(ParkingSlot slot) {
+        requestExport();
+    }
+
+    /**
+     * Marks the snapshot dirty. Never blocks and never touches the file on the caller's thread.
+     */
+    public void requestExport() {
+        requested.increment();
+        if (closed.get()) {
+            dropped.increment();
+            return;
+        }
+        if (!pending.compareAndSet(false, true)) {
+            coalesced.increment();
+            return;
+        }
+        long wait = Math.max(0, lastWriteStartedAt + intervalNanos - System.nanoTime());
+        executor.schedule(this::export, wait, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Writes any pending change and stops the background thread.
+     */
+    @Override
+    public void close() {
+        if (!closed.compareAndSet(false, true)) {
+            return;
+        }
+        executor.shutdown();
+        try {
+            if (!executor.awaitTermination(5, TimeUnit.SECONDS)) {
+                executor.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    public long getRequestCount() {
+        return requested.sum();
+    }
+
+    public long getWriteCount() {
+        return writes.get();
+    }
+
+    public long getCoalescedCount() {
+        return coalesced.sum();
+    }
+
+    /**
+     * Requests that never reached disk: those arriving after {@link #close()} and failed writes.
+     */
+    public long getDroppedCount() {
+        return dropped.sum();
+    }
+
+    public Duration getLastWriteLatency() {
+        return Duration.ofNanos(lastWriteNanos.get());
+    }
+
+    public Duration getMaxWriteLatency() {
+        return Duration.ofNanos(maxWriteNanos.get());
+    }
+
+    public Duration getAverageWriteLatency() {
+        long count = writes.get();
+        return count == 0 ? Duration.ZERO : Duration.ofNanos(totalWriteNanos.get() / count);
+    }
+
+    public String describe() {
+        return "%d written, %d coalesced, %d dropped, last %.1f ms, max %.1f ms".formatted(
+                getWriteCount(),
+                getCoalescedCount(),
+                getDroppedCount(),
+                lastWriteNanos.get() / 1_000_000.0,
+                maxWriteNanos.get() / 1_000_000.0);
+    }
+
+    private void export() {
+        pending.set(false);
+        long start = System.nanoTime();
+        lastWriteStartedAt = start;
+        try {
+            if (changeLog == null) {
+                SlotSnapshotWriter.writeAtomically(slots.get(), file);
+            } else {
+                // Read the version before the slots: changes racing with the export are then
+                // replayed on top of the snapshot, which is harmless because each carries full state.
+                long version = changeLog.getVersion();
+                SlotSnapshotWriter.writeAtomically(version, slots.get(), file);
+                SlotSnapshotWriter.writeChangesAtomically(changeLog, changesFile);
+            }
+        } catch (IOException | RuntimeException e) {
+            dropped.increment();
+            System.err.println("Unable to export slot snapshot: " + e.getMessage());
+            return;
+        }
+        long elapsed = System.nanoTime() - start;
+        writes.incrementAndGet();
+        lastWriteNanos.set(elapsed);
+        totalWriteNanos.addAndGet(elapsed);
+        maxWriteNanos.accumulateAndGet(elapsed, Math::max);
+    }
+}
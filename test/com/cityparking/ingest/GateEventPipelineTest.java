@@ -0,0 +1,70 @@
+package com.cityparking.ingest;
+
+import com.cityparking.model.ParkingLot;
+import com.cityparking.model.ParkingSlot;
+import com.cityparking.model.RateCard;
+import com.cityparking.model.VehicleClass;
+import com.cityparking.service.ParkingService;
+import org.junit.jupiter.api.Test;
+
+import java.io.BufferedReader;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class GateEventPipelineTest {
+
+    /**
+     * A ring far smaller than the feed, so producers stall and the ring wraps many times.
+     */
+    @Test
+    void appliesEveryEventAndAccountsForIt() throws Exception {
+        ParkingService service = service(100);
+        StringBuilder feed = new StringBuilder("# entries, exits and noise\n");
+        for (int i = 0; i < 150; i++) {
+            feed.append("ENTRY,KA").append(i).append(",CAR\n");
+        }
+        feed.append("ENTRY,KA0,CAR\nnot an event\n");
+        for (int i = 0; i < 100; i++) {
+            feed.append("EXIT,KA").append(i).append('\n');
+        }
+        feed.append("EXIT,KA0\n");
+
+        GateEventPipeline pipeline = new GateEventPipeline(service, 8, 4);
+        pipeline.start();
+        long submitted = pipeline.ingest(new BufferedReader(new StringReader(feed.toString())));
+        pipeline.close();
+
+        assertEquals(252, submitted);
+        assertEquals(252, pipeline.getProcessedCount());
+        assertEquals(100, pipeline.getAdmittedCount());
+        assertEquals(100, pipeline.getClosedCount());
+        // 50 entries found the lot full, KA0 entered twice, and KA0 left twice.
+        assertEquals(52, pipeline.getRejectedCount());
+        assertEquals(0, pipeline.getFailedCount());
+        assertEquals(0, service.getActiveTicketCount());
+        assertEquals(100, service.getFreeSlotCount());
+    }
+
+    @Test
+    void refusesEventsOnceClosed() {
+        GateEventPipeline pipeline = new GateEventPipeline(service(1), 8, 4);
+        assertThrows(IllegalStateException.class, () -> pipeline.submit(GateEvent.exit("KA 1")));
+        pipeline.start();
+        pipeline.close();
+        assertThrows(IllegalStateException.class, () -> pipeline.submit(GateEvent.entry("KA 1", VehicleClass.CAR)));
+        assertFalse(pipeline.offer(GateEvent.exit("KA 1")));
+    }
+
+    private static ParkingService service(int bays) {
+        List<ParkingSlot> slots = new ArrayList<>();
+        for (int i = 1; i <= bays; i++) {
+            slots.add(new ParkingSlot("F0-S" + i, 0, i * 4));
+        }
+        return new ParkingService(new ParkingLot("Pipeline lot", slots), new RateCard(60.0, 40.0, 600.0));
+    }
+}
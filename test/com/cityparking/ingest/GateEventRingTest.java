@@ -0,0 +1,119 @@
+package com.cityparking.ingest;
+
+import com.cityparking.model.VehicleClass;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class GateEventRingTest {
+
+    @Test
+    void capacityRoundsUpToAPowerOfTwoOfAtLeastFour() {
+        assertEquals(4, new GateEventRing(1).capacity());
+        assertEquals(4, new GateEventRing(3).capacity());
+        assertEquals(4, new GateEventRing(4).capacity());
+        assertEquals(8, new GateEventRing(5).capacity());
+    }
+
+    /**
+     * Fills and partly drains a four-cell ring with varying amounts so every cell is reused many
+     * laps over, checking order, the full ring refusing offers, and the size.
+     */
+    @Test
+    void keepsOrderAcrossManyWraparounds() {
+        GateEventRing ring = new GateEventRing(4);
+        GateEvent[] batch = new GateEvent[4];
+        List<GateEvent> queued = new ArrayList<>();
+        int next = 0;
+        for (int round = 0; round < 1_000; round++) {
+            int offers = 1 + round % 5;
+            for (int i = 0; i < offers; i++) {
+                GateEvent event = GateEvent.entry("KA " + next++, VehicleClass.CAR);
+                boolean room = queued.size() < 4;
+                assertEquals(room, ring.offer(event));
+                if (room) {
+                    queued.add(event);
+                }
+            }
+            assertEquals(queued.size(), ring.size());
+            int drained = ring.drainTo(batch, 1 + round % 3);
+            assertEquals(Math.min(queued.size(), 1 + round % 3), drained);
+            for (int i = 0; i < drained; i++) {
+                assertSame(queued.remove(0), batch[i]);
+            }
+        }
+        assertEquals(queued.size(), ring.drainTo(batch, 4));
+        assertEquals(0, ring.size());
+        assertEquals(0, ring.drainTo(batch, 4));
+    }
+
+    @Test
+    void fullRingRefusesUntilDrained() {
+        GateEventRing ring = new GateEventRing(4);
+        for (String plate : new String[] {"A", "B", "C", "D"}) {
+            assertTrue(ring.offer(GateEvent.exit(plate)));
+        }
+        assertFalse(ring.offer(GateEvent.exit("E")));
+        GateEvent[] batch = new GateEvent[1];
+        assertEquals(1, ring.drainTo(batch, 1));
+        assertEquals("A", batch[0].getPlateNumber());
+        assertTrue(ring.offer(GateEvent.exit("E")));
+        assertFalse(ring.offer(GateEvent.exit("F")));
+    }
+
+    /**
+     * Four producers against one consumer through a small ring: every event arrives once, and
+     * each producer's events arrive in the order it offered them.
+     */
+    @Test
+    void concurrentProducersLoseAndReorderNothing() throws Exception {
+        int producers = 4;
+        int perProducer = 50_000;
+        GateEventRing ring = new GateEventRing(64);
+        ExecutorService threads = Executors.newFixedThreadPool(producers);
+        List<Future<?>> results = new ArrayList<>();
+        for (int p = 0; p < producers; p++) {
+            String prefix = "P" + p + " ";
+            results.add(threads.submit(() -> {
+                for (int i = 0; i < perProducer; i++) {
+                    GateEvent event = GateEvent.exit(prefix + i);
+                    while (!ring.offer(event)) {
+                        Thread.yield();
+                    }
+                }
+            }));
+        }
+        int[] nextExpected = new int[producers];
+        GateEvent[] batch = new GateEvent[32];
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(60);
+        int received = 0;
+        while (received < producers * perProducer && System.nanoTime() < deadline) {
+            int count = ring.drainTo(batch, batch.length);
+            for (int i = 0; i < count; i++) {
+                String[] parts = batch[i].getPlateNumber().split(" ");
+                int producer = Integer.parseInt(parts[0].substring(1));
+                assertEquals(nextExpected[producer]++, Integer.parseInt(parts[1]));
+            }
+            received += count;
+            if (count == 0) {
+                Thread.yield();
+            }
+        }
+        for (Future<?> result : results) {
+            result.get(10, TimeUnit.SECONDS);
+        }
+        threads.shutdown();
+        assertEquals(producers * perProducer, received);
+        assertEquals(0, ring.size());
+    }
+}
@@ -0,0 +1,152 @@
+package com.cityparking.service;
+
+import com.cityparking.model.ParkingLot;
+import com.cityparking.model.ParkingSlot;
+import com.cityparking.model.ParkingTicket;
+import com.cityparking.model.RateCard;
+import com.cityparking.model.SlotType;
+import com.cityparking.model.VehicleInfo;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class AllocationStrategyTest {
+    private static final int FLOORS = 4;
+    private static final int BAYS_PER_FLOOR = 5;
+
+    private int nextPlate;
+
+    /**
+     * Random arrivals and departures; every arrival must get the smallest free bay in
+     * {@link ParkingSlot#compareTo} order.
+     */
+    @Test
+    void nearestFirstTakesTheSmallestFreeBay() {
+        List<ParkingSlot> slots = slots();
+        ParkingService service = service(slots, new NearestFirstStrategy());
+        SplittableRandom random = new SplittableRandom(3);
+        List<ParkingTicket> parked = new ArrayList<>();
+        for (int i = 0; i < 2_000; i++) {
+            if (!parked.isEmpty() && random.nextInt(5) < 2) {
+                service.closeTicket(parked.remove(random.nextInt(parked.size())).getTicketKey());
+                continue;
+            }
+            ParkingSlot expected = slots.stream().filter(slot -> !slot.isOccupied())
+                    .min(Comparator.naturalOrder()).orElse(null);
+            ParkingSlot actual = park(service, Duration.ofHours(1));
+            assertEquals(expected, actual);
+            if (actual != null) {
+                parked.add(service.findActiveTicketBySlot(actual.getSlotId()).orElseThrow());
+            }
+        }
+    }
+
+    @Test
+    void leastLoadedSpreadsArrivalsEvenlyOverFloors() {
+        List<ParkingSlot> slots = slots();
+        ParkingService service = service(slots, new LeastLoadedFloorStrategy());
+        for (int round = 0; round < BAYS_PER_FLOOR; round++) {
+            for (int floor = 0; floor < FLOORS; floor++) {
+                ParkingSlot slot = park(service, Duration.ofHours(1));
+                // Ties go to the lower floor, so each round visits the floors in order.
+                assertEquals(floor, slot.getFloor());
+                assertEquals(round, (slot.getDistance() - floor * 100) / 4);
+            }
+        }
+        assertNull(park(service, Duration.ofHours(1)));
+    }
+
+    @Test
+    void exitTimeSendsLongerStaysHigher() {
+        List<ParkingSlot> slots = slots();
+        ParkingService service = service(slots, new ExitTimeAwareStrategy(Duration.ofHours(1), Duration.ofHours(7)));
+        assertEquals(0, park(service, Duration.ofMinutes(30)).getFloor());
+        assertEquals(1, park(service, Duration.ofHours(3)).getFloor());
+        assertEquals(2, park(service, Duration.ofHours(5)).getFloor());
+        assertEquals(3, park(service, Duration.ofHours(7)).getFloor());
+        assertEquals(3, park(service, Duration.ofHours(24)).getFloor());
+
+        // Fill the top floor: long stays then move to the next floor down.
+        while (service.getParkingLot().getFloorOccupancy().get(3).getAvailableSlots() > 0) {
+            park(service, Duration.ofHours(24));
+        }
+        assertEquals(2, park(service, Duration.ofHours(24)).getFloor());
+    }
+
+    @Test
+    void exitTimeTriesHigherFloorsBeforeLowerOnes() {
+        List<ParkingSlot> slots = slots();
+        ParkingService service = service(slots, new ExitTimeAwareStrategy(Duration.ofHours(1), Duration.ofHours(7)));
+        for (ParkingSlot slot : slots) {
+            if (slot.getFloor() == 1) {
+                service.assignSlotTo(slot.getSlotId(), vehicle());
+            }
+        }
+        // Floor 1 is full, so it drops out of the free floors and 3h now aims at floor 2 of 0, 2, 3.
+        assertEquals(2, park(service, Duration.ofHours(3)).getFloor());
+    }
+
+    @Test
+    void strategiesAreFoundByName() {
+        assertInstanceOf(NearestFirstStrategy.class, AllocationStrategy.named("nearest"));
+        assertInstanceOf(LeastLoadedFloorStrategy.class, AllocationStrategy.named(" Least-Loaded "));
+        assertInstanceOf(ExitTimeAwareStrategy.class, AllocationStrategy.named("exit-time"));
+        assertThrows(IllegalArgumentException.class, () -> AllocationStrategy.named("random"));
+        assertThrows(IllegalArgumentException.class,
+                () -> new ExitTimeAwareStrategy(Duration.ofHours(2), Duration.ofHours(2)));
+    }
+
+    /**
+     * Strategies only see bays of one type at a time, so they never spill into another type
+     * before the preferred one is full.
+     */
+    @Test
+    void strategiesStayWithinTheBayType() {
+        for (AllocationStrategy strategy : List.of(new NearestFirstStrategy(), new LeastLoadedFloorStrategy(),
+                new ExitTimeAwareStrategy(Duration.ofHours(1), Duration.ofHours(7)))) {
+            List<ParkingSlot> slots = new ArrayList<>();
+            for (int floor = 0; floor < FLOORS; floor++) {
+                slots.add(new ParkingSlot("F" + floor + "-C", floor, 0, SlotType.COMPACT));
+                slots.add(new ParkingSlot("F" + floor + "-S", floor, 4, SlotType.STANDARD));
+            }
+            ParkingService service = service(slots, strategy);
+            for (int i = 0; i < FLOORS; i++) {
+                assertEquals(SlotType.STANDARD, park(service, Duration.ofHours(1 + 2 * i)).getSlotType(), strategy.toString());
+            }
+            assertEquals(SlotType.COMPACT, park(service, Duration.ofHours(1)).getSlotType(), strategy.toString());
+            assertEquals(FLOORS - 1, service.getFreeSlotCount(), strategy.toString());
+        }
+    }
+
+    private ParkingSlot park(ParkingService service, Duration stay) {
+        return service.assignSlot(vehicle(), stay).map(ParkingTicket::getSlot).orElse(null);
+    }
+
+    private VehicleInfo vehicle() {
+        return new VehicleInfo("KA " + nextPlate++, "Owner", "9800000000");
+    }
+
+    private static List<ParkingSlot> slots() {
+        List<ParkingSlot> slots = new ArrayList<>();
+        for (int floor = 0; floor < FLOORS; floor++) {
+            for (int bay = 0; bay < BAYS_PER_FLOOR; bay++) {
+                slots.add(new ParkingSlot("F" + floor + "-S" + bay, floor, floor * 100 + bay * 4));
+            }
+        }
+        return slots;
+    }
+
+    private static ParkingService service(List<ParkingSlot> slots, AllocationStrategy strategy) {
+        return new ParkingService(new ParkingLot("Strategy lot", slots), new RateCard(60.0, 40.0, 600.0),
+                new TimestampTicketIdGenerator(0), SlotTypeRules.defaults(), strategy);
+    }
+}
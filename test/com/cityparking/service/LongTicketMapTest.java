@@ -0,0 +1,82 @@
+package com.cityparking.service;
+
+import com.cityparking.model.ParkingSlot;
+import com.cityparking.model.ParkingTicket;
+import com.cityparking.model.VehicleInfo;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class LongTicketMapTest {
+    private static final ParkingSlot SLOT = new ParkingSlot("F0-S1", 0, 0);
+    private static final VehicleInfo VEHICLE = new VehicleInfo("KA 01 AB 1234", "Owner", "9800000000");
+    private static final LocalDateTime CHECK_IN = LocalDateTime.of(2026, 1, 1, 9, 0);
+
+    /**
+     * Keys from a small range keep the tables dense, so removals keep landing inside long probe
+     * runs and exercise the backward shift, including runs that wrap past the end of a table.
+     */
+    @Test
+    void matchesHashMapUnderRandomPutsAndRemoves() {
+        LongTicketMap map = new LongTicketMap();
+        Map<Long, ParkingTicket> model = new HashMap<>();
+        SplittableRandom random = new SplittableRandom(13);
+        for (int i = 0; i < 200_000; i++) {
+            long key = 1 + random.nextInt(2_000);
+            if (random.nextInt(5) < 3) {
+                ParkingTicket ticket = ticket(key);
+                assertSame(model.put(key, ticket), map.put(key, ticket));
+            } else {
+                assertSame(model.remove(key), map.remove(key));
+            }
+            if (i % 1_000 == 0) {
+                assertMatches(model, map);
+            }
+        }
+        assertMatches(model, map);
+    }
+
+    @Test
+    void removingEverythingEmptiesTheMap() {
+        LongTicketMap map = new LongTicketMap();
+        for (long key = 1; key <= 10_000; key++) {
+            map.put(key, ticket(key));
+        }
+        for (long key = 10_000; key >= 1; key -= 2) {
+            assertEquals(key, map.remove(key).getTicketKey());
+        }
+        for (long key = 1; key <= 10_000; key += 2) {
+            assertEquals(key, map.get(key).getTicketKey());
+            assertEquals(key, map.remove(key).getTicketKey());
+        }
+        assertEquals(0, map.size());
+        assertEquals(0, map.values().size());
+        assertNull(map.remove(1));
+    }
+
+    @Test
+    void rejectsTheEmptyMarkerKey() {
+        assertThrows(IllegalArgumentException.class, () -> new LongTicketMap().put(0, ticket(1)));
+    }
+
+    private static void assertMatches(Map<Long, ParkingTicket> model, LongTicketMap map) {
+        assertEquals(model.size(), map.size());
+        for (Map.Entry<Long, ParkingTicket> entry : model.entrySet()) {
+            assertSame(entry.getValue(), map.get(entry.getKey()));
+        }
+        assertEquals(new HashSet<>(model.values()), new HashSet<>(map.values()));
+    }
+
+    private static ParkingTicket ticket(long key) {
+        return new ParkingTicket(key, SLOT, VEHICLE, CHECK_IN);
+    }
+}
@@ -0,0 +1,94 @@
+package com.cityparking.service;
+
+import com.cityparking.model.GeoPoint;
+import com.cityparking.model.ParkingLot;
+import com.cityparking.model.ParkingSlot;
+import com.cityparking.model.RateCard;
+import com.cityparking.model.VehicleClass;
+import com.cityparking.model.VehicleInfo;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LotLocatorTest {
+    private static final double METERS_PER_DEGREE = 111_320.0;
+    private static final double CELL_METERS = 500;
+
+    /**
+     * Lots scattered over a city, a third of them full, queried from inside and outside the
+     * grid. Every answer must be the prefix of all lots with a free bay sorted by distance.
+     */
+    @Test
+    void nearestMatchesSortingEveryLot() {
+        SplittableRandom random = new SplittableRandom(7);
+        LotLocator locator = new LotLocator(CELL_METERS);
+        List<Located> lots = new ArrayList<>();
+        for (int i = 0; i < 600; i++) {
+            GeoPoint location = new GeoPoint(12.9 + random.nextDouble() * 0.2, 77.5 + random.nextDouble() * 0.2);
+            ParkingService service = lot(random.nextInt(3) == 0);
+            locator.add("LOT-" + i, location, service);
+            lots.add(new Located("LOT-" + i, location, service.getFreeSlotCount() > 0));
+        }
+        double metersPerDegreeLongitude = METERS_PER_DEGREE * Math.cos(Math.toRadians(lots.get(0).location.getLatitude()));
+
+        for (int q = 0; q < 300; q++) {
+            GeoPoint from = new GeoPoint(12.8 + random.nextDouble() * 0.4, 77.4 + random.nextDouble() * 0.4);
+            int count = 1 + random.nextInt(12);
+            List<Located> expected = lots.stream()
+                    .filter(lot -> lot.free)
+                    .sorted(Comparator.comparingDouble(lot -> lot.distanceFrom(from, metersPerDegreeLongitude)))
+                    .limit(count)
+                    .toList();
+            List<LotRegistry.NearbyLot> actual = locator.nearest(from, count, VehicleClass.CAR);
+            assertEquals(expected.size(), actual.size());
+            for (int i = 0; i < actual.size(); i++) {
+                assertEquals(expected.get(i).lotId, actual.get(i).getLotId());
+                assertEquals(expected.get(i).distanceFrom(from, metersPerDegreeLongitude),
+                        actual.get(i).getDistanceMeters(), 1e-6);
+                assertTrue(actual.get(i).getFreeSlots() > 0);
+            }
+        }
+    }
+
+    @Test
+    void emptyLocatorAndZeroCountFindNothing() {
+        LotLocator locator = new LotLocator(CELL_METERS);
+        GeoPoint from = new GeoPoint(12.97, 77.59);
+        assertTrue(locator.nearest(from, 3, VehicleClass.CAR).isEmpty());
+        locator.add("ONLY", from, lot(false));
+        assertTrue(locator.nearest(from, 0, VehicleClass.CAR).isEmpty());
+        assertEquals("ONLY", locator.nearest(from, 3, VehicleClass.CAR).get(0).getLotId());
+    }
+
+    private static ParkingService lot(boolean full) {
+        ParkingService service = new ParkingService(new ParkingLot("Lot", List.of(new ParkingSlot("F0-S1", 0, 0))),
+                new RateCard(60.0, 40.0, 600.0));
+        if (full) {
+            service.assignSlot(new VehicleInfo("KA 01 AB 1234", "Owner", "9800000000"));
+        }
+        return service;
+    }
+
+    private static final class Located {
+        private final String lotId;
+        private final GeoPoint location;
+        private final boolean free;
+
+        Located(String lotId, GeoPoint location, boolean free) {
+            this.lotId = lotId;
+            this.location = location;
+            this.free = free;
+        }
+
+        double distanceFrom(GeoPoint from, double metersPerDegreeLongitude) {
+            return Math.hypot((location.getLongitude() - from.getLongitude()) * metersPerDegreeLongitude,
+                    (location.getLatitude() - from.getLatitude()) * METERS_PER_DEGREE);
+        }
+    }
+}
@@ -0,0 +1,92 @@
+package com.cityparking.service;
+
+import com.cityparking.model.ParkingLot;
+import com.cityparking.model.ParkingSlot;
+import com.cityparking.model.ParkingTicket;
+import com.cityparking.model.RateCard;
+import com.cityparking.model.VehicleInfo;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LotRegistryTest {
+    private static final RateCard RATES = new RateCard(60.0, 40.0, 600.0);
+
+    @Test
+    void lotsAreFoundByIdWhateverTheCase() {
+        LotRegistry registry = new LotRegistry(4);
+        ParkingService service = registry.addLot("mg-road", lot(2), RATES);
+        assertEquals(service, registry.getLot(" MG-ROAD ").orElseThrow());
+        assertTrue(registry.getLot("brigade").isEmpty());
+        assertThrows(IllegalArgumentException.class, () -> registry.addLot("MG-Road", lot(2), RATES));
+        assertEquals(List.of("MG-ROAD"), List.copyOf(registry.getLots().keySet()));
+    }
+
+    /**
+     * Lots spread over every shard, and registries for two sites sharing a back office.
+     */
+    @Test
+    void ticketKeysAreUniqueAcrossLotsShardsAndSites() {
+        Set<Long> keys = new HashSet<>();
+        int issued = 0;
+        for (int site = 0; site < 2; site++) {
+            LotRegistry registry = new LotRegistry(site, 16);
+            for (int lot = 0; lot < 64; lot++) {
+                ParkingService service = registry.addLot("LOT-" + lot, lot(50), RATES);
+                for (int bay = 0; bay < 50; bay++) {
+                    ParkingTicket ticket = service.assignSlot(vehicle("S" + site + " L" + lot + " " + bay)).orElseThrow();
+                    keys.add(ticket.getTicketKey());
+                    issued++;
+                }
+            }
+        }
+        assertEquals(issued, keys.size());
+    }
+
+    @Test
+    void plateIndexFollowsEntriesAndExits() {
+        LotRegistry registry = new LotRegistry(3);
+        ParkingService first = registry.addLot("FIRST", lot(2), RATES);
+        ParkingService second = registry.addLot("SECOND", lot(2), RATES);
+
+        ParkingTicket ticket = first.assignSlot(vehicle("KA 01 AB 1234")).orElseThrow();
+        assertEquals("FIRST", registry.findVehicle("ka 01 ab 1234").orElseThrow().getLotId());
+        assertEquals(1, registry.getParkedVehicleCount());
+        assertEquals(3, registry.getFreeSlotCount());
+
+        // Re-entering elsewhere before the first exit is recorded keeps the newer entry.
+        second.assignSlot(vehicle("KA 01 AB 1234")).orElseThrow();
+        first.closeTicket(ticket.getTicketKey());
+        assertEquals("SECOND", registry.findVehicle("KA 01 AB 1234").orElseThrow().getLotId());
+
+        second.closeTicket(second.findActiveTicketByPlate("KA 01 AB 1234").orElseThrow().getTicketKey());
+        assertTrue(registry.findVehicle("KA 01 AB 1234").isEmpty());
+        assertEquals(0, registry.getParkedVehicleCount());
+    }
+
+    @Test
+    void rejectsShardCountsOutOfRange() {
+        assertThrows(IllegalArgumentException.class, () -> new LotRegistry(0));
+        assertThrows(IllegalArgumentException.class, () -> new LotRegistry(17));
+        assertThrows(IllegalArgumentException.class, () -> new LotRegistry(16, 4));
+    }
+
+    private static ParkingLot lot(int bays) {
+        List<ParkingSlot> slots = new ArrayList<>();
+        for (int i = 1; i <= bays; i++) {
+            slots.add(new ParkingSlot("F0-S" + i, 0, i * 4));
+        }
+        return new ParkingLot("Lot", slots);
+    }
+
+    private static VehicleInfo vehicle(String plate) {
+        return new VehicleInfo(plate, "Owner", "9800000000");
+    }
+}
@@ -0,0 +1,102 @@
+package com.cityparking.service;
+
+import com.cityparking.model.ParkingLot;
+import com.cityparking.model.ParkingSlot;
+import com.cityparking.model.ParkingTicket;
+import com.cityparking.model.RateCard;
+import com.cityparking.model.VehicleInfo;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.SplittableRandom;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Gate threads assigning and closing against one lot that is kept close to full, so most
+ * assignments race for the last few bays.
+ */
+class ParkingServiceConcurrencyTest {
+    private static final int GATES = 8;
+    private static final int OPERATIONS = 20_000;
+    private static final int FLOORS = 4;
+    private static final int BAYS_PER_FLOOR = 16;
+
+    @Test
+    void everyBayHasOneOwnerAndCountsAddUp() throws Exception {
+        List<ParkingSlot> slots = new ArrayList<>();
+        for (int floor = 0; floor < FLOORS; floor++) {
+            for (int bay = 1; bay <= BAYS_PER_FLOOR; bay++) {
+                slots.add(new ParkingSlot("F" + floor + "-S" + bay, floor, bay * 4));
+            }
+        }
+        ParkingService service = new ParkingService(new ParkingLot("Stress lot", slots), new RateCard(60.0, 40.0, 600.0));
+        Map<ParkingSlot, String> owners = new ConcurrentHashMap<>();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService gates = Executors.newFixedThreadPool(GATES);
+        List<Future<Deque<ParkingTicket>>> results = new ArrayList<>();
+        for (int gate = 0; gate < GATES; gate++) {
+            int id = gate;
+            results.add(gates.submit(() -> runGate(id, service, owners, start)));
+        }
+        start.countDown();
+        List<ParkingTicket> open = new ArrayList<>();
+        for (Future<Deque<ParkingTicket>> result : results) {
+            open.addAll(result.get(60, TimeUnit.SECONDS));
+        }
+        gates.shutdown();
+
+        Set<ParkingSlot> held = new HashSet<>();
+        for (ParkingTicket ticket : open) {
+            assertTrue(held.add(ticket.getSlot()), "two open tickets on " + ticket.getSlot().getSlotId());
+            assertEquals(ticket.getVehicle(), ticket.getSlot().getCurrentVehicle());
+        }
+        long occupied = slots.stream().filter(ParkingSlot::isOccupied).count();
+        assertEquals(open.size(), occupied);
+        assertEquals(open.size(), service.getActiveTicketCount());
+        assertEquals(slots.size(), service.getFreeSlotCount() + occupied);
+        assertEquals(slots.size() - occupied, service.getParkingLot().getAvailableCount());
+    }
+
+    /**
+     * Parks when fewer than eight of this gate's vehicles are inside, otherwise mostly closes,
+     * checking at every step that nobody else owns the bay it was given.
+     */
+    private static Deque<ParkingTicket> runGate(int gate, ParkingService service, Map<ParkingSlot, String> owners,
+                                                CountDownLatch start) throws InterruptedException {
+        SplittableRandom random = new SplittableRandom(gate);
+        Deque<ParkingTicket> parked = new ArrayDeque<>();
+        start.await();
+        for (int i = 0; i < OPERATIONS; i++) {
+            if (!parked.isEmpty() && (parked.size() >= 8 || random.nextInt(3) == 0)) {
+                ParkingTicket ticket = random.nextBoolean() ? parked.pollFirst() : parked.pollLast();
+                assertTrue(owners.remove(ticket.getSlot(), ticket.getVehicle().getPlateNumber()));
+                assertTrue(service.closeTicket(ticket.getTicketKey()).isPresent());
+                continue;
+            }
+            String plate = "G" + gate + " " + i;
+            Optional<ParkingTicket> ticket = service.assignSlot(new VehicleInfo(plate, "Gate " + gate, "9800000000"));
+            if (ticket.isPresent()) {
+                ParkingSlot slot = ticket.get().getSlot();
+                assertNull(owners.putIfAbsent(slot, plate), () -> slot.getSlotId() + " handed out twice");
+                parked.add(ticket.get());
+            }
+        }
+        return parked;
+    }
+}
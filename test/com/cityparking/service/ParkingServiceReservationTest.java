@@ -0,0 +1,93 @@
+package com.cityparking.service;
+
+import com.cityparking.model.ParkingLot;
+import com.cityparking.model.ParkingSlot;
+import com.cityparking.model.ParkingTicket;
+import com.cityparking.model.RateCard;
+import com.cityparking.model.Reservation;
+import com.cityparking.model.VehicleInfo;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Walk-ins against a lot with bookings on it: booked bays are offered last, and never while a
+ * hold overlaps the expected stay.
+ */
+class ParkingServiceReservationTest {
+    private List<ParkingSlot> slots;
+    private ParkingService service;
+    private ReservationBook book;
+    private LocalDateTime now;
+
+    @BeforeEach
+    void setUp() {
+        slots = new ArrayList<>();
+        for (int i = 0; i < 6; i++) {
+            slots.add(new ParkingSlot("F0-S" + i, 0, i * 4));
+        }
+        service = new ParkingService(new ParkingLot("Reserved lot", slots), new RateCard(60.0, 40.0, 600.0));
+        book = service.getReservations();
+        now = LocalDateTime.now();
+    }
+
+    @Test
+    void walkInsTakeUnbookedBaysFirstThenBaysBookedAfterTheirStay() {
+        for (int i = 0; i < 4; i++) {
+            book.reserve(slots.get(i), "RES " + i, now.minusMinutes(5), now.plusHours(3)).orElseThrow();
+        }
+        book.reserve(slots.get(4), "LATER", now.plusHours(5), now.plusHours(6)).orElseThrow();
+        assertEquals(6, service.getFreeSlotCount());
+
+        assertEquals("F0-S5", park("KA 1", Duration.ofHours(1)));
+        assertEquals("F0-S4", park("KA 2", Duration.ofHours(1)));
+        assertTrue(service.assignSlot(vehicle("KA 3"), Duration.ofHours(1)).isEmpty());
+        assertEquals(4, service.getFreeSlotCount());
+    }
+
+    @Test
+    void baysReturnToTheUnbookedPoolWhenTheirLastHoldIsReleased() {
+        Reservation first = book.reserve(slots.get(0), "RES 1", now.plusHours(4), now.plusHours(5)).orElseThrow();
+        Reservation second = book.reserve(slots.get(0), "RES 2", now.plusHours(6), now.plusHours(7)).orElseThrow();
+        book.cancel(first.getReservationId());
+        assertEquals("F0-S1", park("KA 1", Duration.ofHours(1)));
+        book.cancel(second.getReservationId());
+        assertEquals("F0-S0", park("KA 2", Duration.ofHours(1)));
+    }
+
+    @Test
+    void checkInParksInTheReservedBayAndClosingFreesIt() {
+        Reservation reservation = book.reserve(slots.get(0), "KA 9", now.minusMinutes(5), now.plusHours(2)).orElseThrow();
+        ParkingTicket ticket = service.checkInReservation(reservation.getReservationId(), vehicle("KA 9")).orElseThrow();
+        assertEquals(slots.get(0), ticket.getSlot());
+        assertTrue(book.isEmpty());
+        service.closeTicket(ticket.getTicketKey());
+        assertEquals(6, service.getFreeSlotCount());
+        assertEquals("F0-S0", park("KA 1", Duration.ofHours(1)));
+    }
+
+    @Test
+    void aChosenBayBookedWithinTheDefaultStayIsRefusedAndStaysFree() {
+        book.reserve(slots.get(2), "RES 1", now.plusMinutes(30), now.plusHours(2)).orElseThrow();
+        assertTrue(service.assignSlotTo("F0-S2", vehicle("KA 1")).isEmpty());
+        assertEquals(6, service.getFreeSlotCount());
+        assertFalse(slots.get(2).isOccupied());
+        assertEquals("F0-S3", service.assignSlotTo("F0-S3", vehicle("KA 2")).orElseThrow().getSlot().getSlotId());
+    }
+
+    private String park(String plate, Duration stay) {
+        return service.assignSlot(vehicle(plate), stay).orElseThrow().getSlot().getSlotId();
+    }
+
+    private static VehicleInfo vehicle(String plate) {
+        return new VehicleInfo(plate, "Owner", "9800000000");
+    }
+}
@@ -0,0 +1,139 @@
+package com.cityparking.service;
+
+import com.cityparking.model.ParkingSlot;
+import com.cityparking.model.Reservation;
+import com.cityparking.model.SlotType;
+import com.cityparking.model.VehicleClass;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ReservationBookTest {
+    private static final long QUARTER_SECONDS = 15 * 60;
+    private static final LocalDateTime BASE = LocalDateTime.of(2026, 3, 1, 8, 0);
+    private static final VehicleClass[] CLASSES = {VehicleClass.CAR, VehicleClass.EV, VehicleClass.TWO_WHEELER};
+
+    /**
+     * Dense random bookings over a short horizon, so whole 64-bay words fill up and the summary
+     * bits are exercised, with cancellations and bays added late. Every search must return the
+     * first bay, in preference and allocation order, that a scan of every bay's holds finds free.
+     */
+    @Test
+    void findFreeSlotMatchesScanningEveryBay() {
+        SplittableRandom random = new SplittableRandom(5);
+        List<ParkingSlot> slots = new ArrayList<>();
+        addBays(slots, SlotType.STANDARD, 200, random);
+        addBays(slots, SlotType.COMPACT, 70, random);
+        addBays(slots, SlotType.EV, 40, random);
+        ReservationBook book = new ReservationBook(slots);
+        Map<SlotType, List<ParkingSlot>> allocationOrder = new EnumMap<>(SlotType.class);
+        slots.stream().sorted().forEach(slot ->
+                allocationOrder.computeIfAbsent(slot.getSlotType(), type -> new ArrayList<>()).add(slot));
+        List<Reservation> booked = new ArrayList<>();
+
+        for (int i = 0; i < 20_000; i++) {
+            LocalDateTime start = BASE.plusMinutes(random.nextInt(24 * 15));
+            LocalDateTime end = start.plusMinutes(1 + random.nextInt(4 * 60));
+            VehicleClass vehicleClass = CLASSES[random.nextInt(CLASSES.length)];
+            Optional<ParkingSlot> expected = scan(book, allocationOrder, vehicleClass, start, end);
+            int action = random.nextInt(10);
+            if (action < 5) {
+                Optional<Reservation> reservation = book.reserve("KA " + i, vehicleClass, start, end);
+                assertEquals(expected, reservation.map(Reservation::getSlot));
+                reservation.ifPresent(booked::add);
+            } else if (action < 7) {
+                ParkingSlot slot = slots.get(random.nextInt(slots.size()));
+                boolean free = isFree(book, slot, start, end);
+                Optional<Reservation> reservation = book.reserve(slot, "KA " + i, start, end);
+                assertEquals(free, reservation.isPresent());
+                reservation.ifPresent(booked::add);
+            } else if (action < 9 && !booked.isEmpty()) {
+                Reservation reservation = booked.remove(random.nextInt(booked.size()));
+                assertTrue(book.cancel(reservation.getReservationId()).isPresent());
+            } else if (random.nextInt(50) == 0) {
+                SlotType type = SlotType.values()[random.nextInt(3)];
+                ParkingSlot slot = new ParkingSlot("LATE-" + i, random.nextInt(4), random.nextInt(200), type);
+                slots.add(slot);
+                book.addSlot(slot);
+                allocationOrder.get(type).add(slot);
+            } else {
+                assertEquals(expected, book.findFreeSlot(vehicleClass, start, end));
+            }
+        }
+        assertEquals(booked.size(), book.size());
+    }
+
+    @Test
+    void bookingsAreWidenedToWholeQuarters() {
+        ParkingSlot slot = new ParkingSlot("F0-S1", 0, 0);
+        ReservationBook book = new ReservationBook(List.of(slot));
+        Reservation reservation = book.reserve("KA 1", VehicleClass.CAR, BASE.plusMinutes(7), BASE.plusMinutes(31)).orElseThrow();
+        assertEquals(BASE, reservation.getStart());
+        assertEquals(BASE.plusMinutes(45), reservation.getEnd());
+        assertTrue(book.findFreeSlot(VehicleClass.CAR, BASE.plusMinutes(44), BASE.plusMinutes(50)).isEmpty());
+        assertEquals(Optional.of(slot), book.findFreeSlot(VehicleClass.CAR, BASE.plusMinutes(45), BASE.plusMinutes(50)));
+    }
+
+    @Test
+    void expireDropsEndedHoldsAndNotifies() {
+        ParkingSlot slot = new ParkingSlot("F0-S1", 0, 0);
+        ReservationBook book = new ReservationBook(List.of(slot));
+        List<Reservation> released = new ArrayList<>();
+        book.addListener(new ReservationListener() {
+            @Override
+            public void reservationBooked(Reservation reservation) {
+            }
+
+            @Override
+            public void reservationReleased(Reservation reservation) {
+                released.add(reservation);
+            }
+        });
+        Reservation early = book.reserve(slot, "KA 1", BASE, BASE.plusHours(1)).orElseThrow();
+        book.reserve(slot, "KA 2", BASE.plusHours(2), BASE.plusHours(3)).orElseThrow();
+        assertEquals(1, book.expire(BASE.plusHours(1)));
+        assertEquals(List.of(early), released);
+        assertEquals(1, book.size());
+        assertFalse(book.find(early.getReservationId()).isPresent());
+    }
+
+    private static void addBays(List<ParkingSlot> slots, SlotType type, int count, SplittableRandom random) {
+        for (int i = 0; i < count; i++) {
+            slots.add(new ParkingSlot(type.name() + "-" + i, random.nextInt(4), random.nextInt(200), type));
+        }
+    }
+
+    private static Optional<ParkingSlot> scan(ReservationBook book, Map<SlotType, List<ParkingSlot>> allocationOrder,
+                                              VehicleClass vehicleClass, LocalDateTime start, LocalDateTime end) {
+        for (SlotType type : SlotTypeRules.defaults().getPreferences(vehicleClass)) {
+            for (ParkingSlot slot : allocationOrder.getOrDefault(type, List.of())) {
+                if (isFree(book, slot, start, end)) {
+                    return Optional.of(slot);
+                }
+            }
+        }
+        return Optional.empty();
+    }
+
+    private static boolean isFree(ReservationBook book, ParkingSlot slot, LocalDateTime start, LocalDateTime end) {
+        long from = Math.floorDiv(start.toEpochSecond(ZoneOffset.UTC), QUARTER_SECONDS) * QUARTER_SECONDS;
+        long to = Math.floorDiv(end.toEpochSecond(ZoneOffset.UTC) + QUARTER_SECONDS - 1, QUARTER_SECONDS) * QUARTER_SECONDS;
+        for (Reservation reservation : book.getReservations(slot)) {
+            if (reservation.getStartSecond() < to && reservation.getEndSecond() > from) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
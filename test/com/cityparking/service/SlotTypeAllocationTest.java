@@ -0,0 +1,84 @@
+package com.cityparking.service;
+
+import com.cityparking.model.ParkingLot;
+import com.cityparking.model.ParkingSlot;
+import com.cityparking.model.RateCard;
+import com.cityparking.model.SlotType;
+import com.cityparking.model.VehicleClass;
+import com.cityparking.model.VehicleInfo;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Walk-ins served by vehicle class: each class takes its preferred bay type first, falls back in
+ * {@link SlotTypeRules} order, and is never given a bay of a type outside its list.
+ */
+class SlotTypeAllocationTest {
+    private static final RateCard RATES = new RateCard(60.0, 40.0, 600.0);
+
+    @Test
+    void classesFallBackInPreferenceOrder() {
+        ParkingService service = service(
+                new ParkingSlot("A-1", 0, 0, SlotType.ACCESSIBLE),
+                new ParkingSlot("S-1", 0, 4, SlotType.STANDARD),
+                new ParkingSlot("C-1", 0, 8, SlotType.COMPACT),
+                new ParkingSlot("T-1", 0, 12, SlotType.TWO_WHEELER));
+        assertEquals("T-1", park(service, "KA 1", VehicleClass.TWO_WHEELER));
+        assertEquals("C-1", park(service, "KA 2", VehicleClass.TWO_WHEELER));
+        assertEquals("S-1", park(service, "KA 3", VehicleClass.TWO_WHEELER));
+        assertTrue(service.assignSlot(vehicle("KA 4", VehicleClass.TWO_WHEELER)).isEmpty());
+        assertEquals(1, service.getFreeSlotCount());
+    }
+
+    @Test
+    void carsTakeAStandardBayBeforeANearerCompactOne() {
+        ParkingService service = service(
+                new ParkingSlot("C-1", 0, 0, SlotType.COMPACT),
+                new ParkingSlot("S-1", 2, 40, SlotType.STANDARD));
+        assertEquals("S-1", park(service, "KA 1", VehicleClass.CAR));
+        assertEquals("C-1", park(service, "KA 2", VehicleClass.CAR));
+        assertTrue(service.assignSlot(vehicle("KA 3", VehicleClass.CAR)).isEmpty());
+    }
+
+    @Test
+    void freeCountsIncludeOnlyCompatibleTypes() {
+        List<ParkingSlot> slots = new ArrayList<>();
+        for (SlotType type : SlotType.values()) {
+            slots.add(new ParkingSlot(type.name(), 0, slots.size() * 4, type));
+        }
+        ParkingService service = service(slots.toArray(new ParkingSlot[0]));
+        assertEquals(SlotType.values().length, service.getFreeSlotCount());
+        assertEquals(2, service.getFreeSlotCount(VehicleClass.CAR));
+        assertEquals(3, service.getFreeSlotCount(VehicleClass.TWO_WHEELER));
+        assertEquals(3, service.getFreeSlotCount(VehicleClass.EV));
+        assertEquals(2, service.getFreeSlotCount(VehicleClass.LARGE));
+    }
+
+    @Test
+    void parsedRulesOverrideOnlyTheNamedClasses() {
+        SlotTypeRules rules = SlotTypeRules.parse("car=standard,oversize; LARGE=OVERSIZE");
+        assertEquals(List.of(SlotType.STANDARD, SlotType.OVERSIZE), rules.getPreferences(VehicleClass.CAR));
+        assertEquals(List.of(SlotType.OVERSIZE), rules.getPreferences(VehicleClass.LARGE));
+        assertEquals(SlotTypeRules.defaults().getPreferences(VehicleClass.EV), rules.getPreferences(VehicleClass.EV));
+        assertThrows(IllegalArgumentException.class, () -> SlotTypeRules.parse("CAR=DOUBLE"));
+        assertThrows(IllegalArgumentException.class, () -> SlotTypeRules.parse("CAR"));
+    }
+
+    private static ParkingService service(ParkingSlot... slots) {
+        return new ParkingService(new ParkingLot("Typed lot", new ArrayList<>(List.of(slots))), RATES);
+    }
+
+    private static String park(ParkingService service, String plate, VehicleClass vehicleClass) {
+        return service.assignSlot(vehicle(plate, vehicleClass)).orElseThrow().getSlot().getSlotId();
+    }
+
+    private static VehicleInfo vehicle(String plate, VehicleClass vehicleClass) {
+        return new VehicleInfo(plate, "Owner", "9800000000", vehicleClass);
+    }
+}
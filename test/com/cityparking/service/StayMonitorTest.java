@@ -0,0 +1,130 @@
+package com.cityparking.service;
+
+import com.cityparking.model.ParkingLot;
+import com.cityparking.model.ParkingSlot;
+import com.cityparking.model.ParkingTicket;
+import com.cityparking.model.RateCard;
+import com.cityparking.model.Reservation;
+import com.cityparking.model.VehicleInfo;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Drives the monitor from an explicit clock that starts when the tickets are issued.
+ */
+class StayMonitorTest {
+    private List<ParkingSlot> slots;
+    private ParkingService service;
+    private StayMonitor monitor;
+    private LocalDateTime start;
+
+    @BeforeEach
+    void setUp() {
+        slots = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            slots.add(new ParkingSlot("F0-S" + i, 0, i * 4));
+        }
+        service = new ParkingService(new ParkingLot("Monitored lot", slots), new RateCard(60.0, 40.0, 600.0));
+        start = LocalDateTime.now();
+        monitor = new StayMonitor(service, Duration.ofMinutes(1), start);
+    }
+
+    @AfterEach
+    void tearDown() {
+        monitor.close();
+    }
+
+    @Test
+    void overstayIsRaisedOnceAndNeverEarly() {
+        ParkingTicket ticket = service.assignSlot(vehicle("KA 1"), Duration.ofHours(2)).orElseThrow();
+        assertEquals(1, monitor.getWatchedTicketCount());
+
+        assertTrue(monitor.advance(ticket.getDueTime().minusSeconds(1)).isEmpty());
+        List<StayEvent> events = monitor.advance(ticket.getDueTime().plusMinutes(1));
+        assertEquals(1, events.size());
+        assertEquals(StayEvent.Type.OVERSTAY, events.get(0).getType());
+        assertSame(ticket, events.get(0).getTicket());
+        assertEquals(ticket.getDueTime(), events.get(0).getTime());
+        assertTrue(events.get(0).getAccruedPaise() > 0);
+
+        assertTrue(monitor.advance(ticket.getDueTime().plusHours(3)).isEmpty());
+        assertEquals(1, monitor.getEventCount(StayEvent.Type.OVERSTAY));
+    }
+
+    @Test
+    void closedTicketsRaiseNothing() {
+        ParkingTicket ticket = service.assignSlot(vehicle("KA 1"), Duration.ofHours(1)).orElseThrow();
+        service.closeTicket(ticket.getTicketKey());
+        assertEquals(0, monitor.getWatchedTicketCount());
+        assertTrue(monitor.advance(start.plusDays(3)).isEmpty());
+    }
+
+    @Test
+    void openEndedStaysRollOverEveryDay() {
+        ParkingTicket ticket = service.assignSlot(vehicle("KA 1")).orElseThrow();
+        LocalDateTime checkIn = ticket.getCheckInTime();
+        assertTrue(monitor.advance(checkIn.plusHours(23)).isEmpty());
+
+        List<StayEvent> first = monitor.advance(checkIn.plusDays(1).plusMinutes(1));
+        assertEquals(1, first.size());
+        assertEquals(StayEvent.Type.DAILY_CAP_ROLLOVER, first.get(0).getType());
+        assertEquals(2, first.get(0).getDay());
+
+        List<StayEvent> second = monitor.advance(checkIn.plusDays(2).plusMinutes(1));
+        assertEquals(1, second.size());
+        assertEquals(3, second.get(0).getDay());
+        assertEquals(0, monitor.getEventCount(StayEvent.Type.OVERSTAY));
+    }
+
+    @Test
+    void expiredBookingsReleaseTheirBay() {
+        ReservationBook book = service.getReservations();
+        Reservation reservation = book.reserve(slots.get(0), "KA 9", start.plusMinutes(10), start.plusHours(1)).orElseThrow();
+        assertEquals(1, monitor.getWatchedReservationCount());
+        assertTrue(monitor.advance(reservation.getEnd().minusSeconds(1)).isEmpty());
+
+        List<StayEvent> events = monitor.advance(reservation.getEnd().plusMinutes(1));
+        assertEquals(1, events.size());
+        assertEquals(StayEvent.Type.RESERVATION_EXPIRED, events.get(0).getType());
+        assertEquals(reservation.getReservationId(), events.get(0).getReservation().getReservationId());
+        assertTrue(book.isEmpty());
+        assertEquals(0, monitor.getWatchedReservationCount());
+        // The bay is back among the unbooked ones, so the nearest walk-in gets it.
+        assertEquals(slots.get(0), service.assignSlot(vehicle("KA 1"), Duration.ofHours(1)).orElseThrow().getSlot());
+    }
+
+    @Test
+    void checkedInBookingsDoNotExpire() {
+        Reservation reservation = service.getReservations()
+                .reserve(slots.get(1), "KA 9", start.minusMinutes(5), start.plusHours(1)).orElseThrow();
+        service.checkInReservation(reservation.getReservationId(), vehicle("KA 9")).orElseThrow();
+        assertEquals(0, monitor.getWatchedReservationCount());
+        List<StayEvent> events = monitor.advance(reservation.getEnd().plusMinutes(1));
+        // The ticket is due when the booking ends, so only the overstay is raised.
+        assertEquals(1, events.size());
+        assertEquals(StayEvent.Type.OVERSTAY, events.get(0).getType());
+    }
+
+    @Test
+    void ticketsAlreadyOpenArePickedUp() {
+        service.assignSlot(vehicle("KA 1"), Duration.ofHours(1)).orElseThrow();
+        monitor.close();
+        monitor = new StayMonitor(service, Duration.ofMinutes(1), start);
+        assertEquals(1, monitor.getWatchedTicketCount());
+        assertEquals(1, monitor.advance(start.plusHours(2)).size());
+    }
+
+    private static VehicleInfo vehicle(String plate) {
+        return new VehicleInfo(plate, "Owner", "9800000000");
+    }
+}
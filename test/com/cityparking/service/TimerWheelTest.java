@@ -0,0 +1,117 @@
+package com.cityparking.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TimerWheelTest {
+
+    /**
+     * Random schedules, reschedules and cancels with deadlines spread over every level, checked
+     * against a map of when each timer should fire: a timer fires on the first tick at or after
+     * its deadline, and never on a tick before it was scheduled.
+     */
+    @Test
+    void firesEveryTimerOnItsTickAgainstAModel() {
+        SplittableRandom random = new SplittableRandom(17);
+        long start = 1_000_003;
+        TimerWheel<Integer> wheel = new TimerWheel<>(start);
+        Map<Integer, TimerWheel.Timer<Integer>> timers = new HashMap<>();
+        Map<Integer, Long> expected = new HashMap<>();
+        int nextId = 0;
+        long tick = start;
+        while (tick < start + 400_000) {
+            for (int op = random.nextInt(4); op > 0; op--) {
+                int choice = random.nextInt(10);
+                if (choice < 6 || timers.isEmpty()) {
+                    long deadline = tick - 5 + random.nextLong(1L << random.nextInt(22));
+                    int id = nextId++;
+                    timers.put(id, wheel.schedule(deadline, id));
+                    expected.put(id, Math.max(deadline, tick + 1));
+                } else {
+                    int id = anyKey(timers, random);
+                    if (choice < 8) {
+                        long deadline = tick + random.nextLong(1L << random.nextInt(16));
+                        wheel.reschedule(timers.get(id), deadline);
+                        expected.put(id, Math.max(deadline, tick + 1));
+                    } else {
+                        assertEquals(expected.remove(id) != null, wheel.cancel(timers.get(id)));
+                    }
+                }
+            }
+            assertEquals(expected.size(), wheel.size());
+
+            long target = random.nextInt(20) == 0 ? tick + random.nextInt(5_000) : tick + 1;
+            Set<Integer> fired = new HashSet<>();
+            if (target == tick + 1) {
+                wheel.advance(target, fired::add);
+            } else {
+                List<Integer> order = new ArrayList<>();
+                wheel.advance(target, order::add);
+                for (int i = 1; i < order.size(); i++) {
+                    assertTrue(expected.get(order.get(i - 1)) <= expected.get(order.get(i)), "fired out of order");
+                }
+                fired.addAll(order);
+            }
+            Set<Integer> due = new HashSet<>();
+            for (Map.Entry<Integer, Long> entry : expected.entrySet()) {
+                if (entry.getValue() <= target) {
+                    due.add(entry.getKey());
+                }
+            }
+            assertEquals(due, fired);
+            for (Integer id : fired) {
+                expected.remove(id);
+                assertFalse(timers.get(id).scheduled());
+            }
+            tick = target;
+            assertEquals(tick, wheel.getCurrentTick());
+        }
+        assertEquals(expected.size(), wheel.size());
+    }
+
+    @Test
+    void firedTimersCanBeRescheduled() {
+        TimerWheel<String> wheel = new TimerWheel<>(0);
+        TimerWheel.Timer<String> timer = wheel.schedule(3, "a");
+        List<String> fired = new ArrayList<>();
+        wheel.advance(3, fired::add);
+        assertEquals(List.of("a"), fired);
+        assertFalse(wheel.cancel(timer));
+
+        wheel.reschedule(timer, 100);
+        assertEquals(1, wheel.size());
+        wheel.advance(99, fired::add);
+        assertEquals(1, fired.size());
+        wheel.advance(100, fired::add);
+        assertEquals(List.of("a", "a"), fired);
+        assertEquals(0, wheel.size());
+    }
+
+    @Test
+    void emptyWheelJumpsStraightToTheTarget() {
+        TimerWheel<String> wheel = new TimerWheel<>(10);
+        wheel.advance(Long.MAX_VALUE / 2, value -> { });
+        assertEquals(Long.MAX_VALUE / 2, wheel.getCurrentTick());
+    }
+
+    private static int anyKey(Map<Integer, ?> map, SplittableRandom random) {
+        int skip = random.nextInt(Math.min(map.size(), 32));
+        for (Integer key : map.keySet()) {
+            if (skip-- == 0) {
+                return key;
+            }
+        }
+        throw new AssertionError();
+    }
+}
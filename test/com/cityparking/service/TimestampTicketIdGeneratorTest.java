@@ -0,0 +1,102 @@
+package com.cityparking.service;
+
+import com.cityparking.model.TicketIds;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TimestampTicketIdGeneratorTest {
+
+    /**
+     * More keys than fit in one second's counter, so the counter borrows from later seconds.
+     */
+    @Test
+    void keysStrictlyIncreasePastTheCounter() {
+        TimestampTicketIdGenerator generator = new TimestampTicketIdGenerator(0);
+        long previous = 0;
+        for (int i = 0; i < 3_000_000; i++) {
+            long key = generator.nextKey();
+            assertTrue(key > previous, "key did not increase");
+            previous = key;
+        }
+    }
+
+    @Test
+    void concurrentCallersNeverShareAKey() throws Exception {
+        TimestampTicketIdGenerator generator = new TimestampTicketIdGenerator(3);
+        ExecutorService threads = Executors.newFixedThreadPool(4);
+        List<Future<long[]>> results = new ArrayList<>();
+        for (int t = 0; t < 4; t++) {
+            results.add(threads.submit(() -> {
+                long[] keys = new long[200_000];
+                for (int i = 0; i < keys.length; i++) {
+                    keys[i] = generator.nextKey();
+                }
+                return keys;
+            }));
+        }
+        Set<Long> seen = new HashSet<>();
+        for (Future<long[]> result : results) {
+            for (long key : result.get(60, TimeUnit.SECONDS)) {
+                assertTrue(seen.add(key), "duplicate key");
+            }
+        }
+        threads.shutdown();
+        assertEquals(800_000, seen.size());
+    }
+
+    /**
+     * Generators of one site must agree on the shard count, so each site here uses sixteen.
+     */
+    @Test
+    void sitesAndShardsNeverCollide() {
+        List<TimestampTicketIdGenerator> generators = new ArrayList<>();
+        for (int site = 0; site < 2; site++) {
+            for (int shard = 0; shard < 16; shard++) {
+                generators.add(new TimestampTicketIdGenerator(site, shard, 16));
+            }
+        }
+        Set<Long> seen = new HashSet<>();
+        for (TimestampTicketIdGenerator generator : generators) {
+            for (int i = 0; i < 100_000; i++) {
+                assertTrue(seen.add(generator.nextKey()), "duplicate key");
+            }
+        }
+    }
+
+    @Test
+    void advancePastSkipsRecoveredKeys() {
+        TimestampTicketIdGenerator generator = new TimestampTicketIdGenerator(1);
+        long recovered = generator.nextKey() + (1L << 40);
+        generator.advancePast(recovered);
+        assertTrue(generator.nextKey() > recovered);
+    }
+
+    @Test
+    void keysRoundTripThroughPrintedIds() {
+        TimestampTicketIdGenerator generator = new TimestampTicketIdGenerator(15, 7, 16);
+        for (int i = 0; i < 1_000; i++) {
+            long key = generator.nextKey();
+            assertEquals(key, TicketIds.parse(TicketIds.format(key)));
+        }
+    }
+
+    @Test
+    void rejectsOutOfRangeSitesAndShards() {
+        assertThrows(IllegalArgumentException.class, () -> new TimestampTicketIdGenerator(16));
+        assertThrows(IllegalArgumentException.class, () -> new TimestampTicketIdGenerator(-1));
+        assertThrows(IllegalArgumentException.class, () -> new TimestampTicketIdGenerator(0, 16, 16));
+        assertThrows(IllegalArgumentException.class, () -> new TimestampTicketIdGenerator(0, 0, 0));
+    }
+}
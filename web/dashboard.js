@@ -1,51 +1,194 @@
-async function loadSlots() {
-    const cacheBuster = Date.now();
+const cards = new Map();
+const counts = {total: 0, occupied: 0};
+let lastVersion = -1;
+let live = false;
+let loading = null;
+let buffered = [];
+const MAX_ALERTS = 20;
+
+async function fetchJson(path) {
+    // no-cache revalidates with the server, so an unchanged file costs a 304 and no body.
+    const response = await fetch(path, {cache: 'no-cache'});
+    if (!response.ok) {
+        throw new Error('Snapshot not found yet. Run the Java app once to generate it.');
+    }
+    return response.json();
+}
+
+function loadSlots() {
+    if (!loading) {
+        loading = fetchSnapshot().finally(() => {
+            loading = null;
+        });
+    }
+    return loading;
+}
+
+async function fetchSnapshot() {
     try {
-        const response = await fetch(`data/slots.json?cb=${cacheBuster}`);
-        if (!response.ok) {
-            throw new Error('Snapshot not found yet. Run the Java app once to generate it.');
-        }
-        const slots = await response.json();
+        const snapshot = await fetchJson(live ? 'api/slots' : 'data/slots.json');
+        // Older exports wrote a bare array with no version.
+        const slots = Array.isArray(snapshot) ? snapshot : snapshot.slots;
+        lastVersion = Array.isArray(snapshot) ? -1 : snapshot.version;
         renderSlots(slots);
+        const pending = buffered;
+        buffered = [];
+        pending.forEach(applyLiveChange);
+    } catch (err) {
+        showError(err);
+    }
+}
+
+function connectLive() {
+    if (!window.EventSource || !location.protocol.startsWith('http')) {
+        return;
+    }
+    const source = new EventSource('api/events');
+    let opened = false;
+    source.addEventListener('open', () => {
+        opened = true;
+        live = true;
+    });
+    // Sent on first connect and whenever the server cannot replay what we missed.
+    source.addEventListener('reset', () => {
+        // Chain after any in-flight file load so the final state comes from the live snapshot.
+        (loading || Promise.resolve()).then(loadSlots);
+    });
+    source.addEventListener('slot', event => applyLiveChange(JSON.parse(event.data)));
+    // Overstays, daily-cap rollovers and expired bookings; live only, never replayed.
+    source.addEventListener('alert', event => showAlert(JSON.parse(event.data)));
+    source.addEventListener('error', () => {
+        live = false;
+        if (!opened) {
+            // No live server (e.g. plain static hosting): stay on file polling.
+            source.close();
+        }
+    });
+}
+
+function applyLiveChange(change) {
+    if (lastVersion < 0 && !loading) {
+        loadSlots();
+    }
+    if (loading) {
+        buffered.push(change);
+        return;
+    }
+    if (change.seq <= lastVersion) {
+        return;
+    }
+    if (!applyChange(change)) {
+        loadSlots();
+        return;
+    }
+    lastVersion = change.seq;
+    updateCounters();
+}
+
+function showAlert(alert) {
+    const list = document.getElementById('alertList');
+    const item = document.createElement('li');
+    item.textContent = alert.message;
+    if (alert.type === 'RESERVATION_EXPIRED') {
+        item.className = 'expired';
+    }
+    list.prepend(item);
+    while (list.children.length > MAX_ALERTS) {
+        list.lastElementChild.remove();
+    }
+    document.getElementById('alertPanel').hidden = false;
+}
+
+async function pollChanges() {
+    if (live || loading) {
+        return;
+    }
+    if (lastVersion < 0) {
+        return loadSlots();
+    }
+    try {
+        const feed = await fetchJson('data/changes.json');
+        if (feed.version === lastVersion) {
+            return;
+        }
+        if (feed.version < lastVersion || feed.oldest > lastVersion + 1) {
+            // The exporter restarted or we fell behind the retained window.
+            return loadSlots();
+        }
+        const unknownSlot = feed.changes
+            .filter(change => change.seq > lastVersion)
+            .some(change => !applyChange(change));
+        if (unknownSlot) {
+            // A bay registered after our snapshot; reload to pick it up.
+            return loadSlots();
+        }
+        lastVersion = feed.version;
+        updateCounters();
     } catch (err) {
-        const grid = document.getElementById('slotGrid');
-        grid.innerHTML = `<div class="slot-card occupied"><h3>No data</h3><p>${err.message}</p></div>`;
-        document.getElementById('totalSlots').textContent = 'Total: 0';
-        document.getElementById('freeSlots').textContent = 'Free: 0';
-        document.getElementById('occupiedSlots').textContent = 'Occupied: 0';
+        lastVersion = -1;
     }
 }
 
+function showError(err) {
+    const grid = document.getElementById('slotGrid');
+    grid.innerHTML = `<div class="slot-card occupied"><h3>No data</h3><p>${err.message}</p></div>`;
+    cards.clear();
+    counts.total = 0;
+    counts.occupied = 0;
+    updateCounters();
+}
+
 function renderSlots(slots) {
     const grid = document.getElementById('slotGrid');
     grid.innerHTML = '';
-    let free = 0;
-    let occupied = 0;
+    cards.clear();
+    counts.total = slots.length;
+    counts.occupied = 0;
 
     slots.forEach(slot => {
         const card = document.createElement('article');
-        card.className = `slot-card ${slot.occupied ? 'occupied' : 'free'}`;
-
         card.innerHTML = `
-            <div class="badge">${slot.occupied ? 'Occupied' : 'Free'}</div>
-            <h3>${slot.slotId}</h3>
-            <p class="meta">Floor ${slot.floor} • ${slot.distance} m from gate</p>
-            <p class="meta">${slot.occupied ? 'Vehicle: ' + slot.vehicle : 'Ready for allocation'}</p>
+            <div class="badge"></div>
+            <h3></h3>
+            <p class="meta"></p>
+            <p class="meta vehicle"></p>
         `;
-
+        card.querySelector('h3').textContent = slot.slotId;
+        card.querySelector('.meta').textContent = `Floor ${slot.floor} • ${slot.distance} m from gate`;
+        const entry = {card, occupied: false};
+        cards.set(slot.slotId, entry);
+        paintCard(entry, slot.occupied, slot.vehicle);
         grid.appendChild(card);
-        if (slot.occupied) {
-            occupied++;
-        } else {
-            free++;
-        }
     });
 
-    document.getElementById('totalSlots').textContent = `Total: ${slots.length}`;
-    document.getElementById('freeSlots').textContent = `Free: ${free}`;
-    document.getElementById('occupiedSlots').textContent = `Occupied: ${occupied}`;
+    updateCounters();
 }
 
-loadSlots();
-setInterval(loadSlots, 5000);
+function applyChange(change) {
+    const entry = cards.get(change.slotId);
+    if (!entry) {
+        return false;
+    }
+    paintCard(entry, change.occupied, change.vehicle);
+    return true;
+}
 
+function paintCard(entry, occupied, vehicle) {
+    if (entry.occupied !== occupied) {
+        counts.occupied += occupied ? 1 : -1;
+    }
+    entry.occupied = occupied;
+    entry.card.className = `slot-card ${occupied ? 'occupied' : 'free'}`;
+    entry.card.querySelector('.badge').textContent = occupied ? 'Occupied' : 'Free';
+    entry.card.querySelector('.vehicle').textContent = occupied ? 'Vehicle: ' + vehicle : 'Ready for allocation';
+}
+
+function updateCounters() {
+    document.getElementById('totalSlots').textContent = `Total: ${counts.total}`;
+    document.getElementById('freeSlots').textContent = `Free: ${counts.total - counts.occupied}`;
+    document.getElementById('occupiedSlots').textContent = `Occupied: ${counts.occupied}`;
+}
+
+loadSlots();
+connectLive();
+setInterval(pollChanges, 5000);